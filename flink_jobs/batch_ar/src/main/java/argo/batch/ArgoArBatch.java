@@ -17,6 +17,7 @@ import org.apache.flink.api.java.ExecutionEnvironment;
 import org.apache.flink.api.java.io.AvroInputFormat;
 
 import org.apache.flink.api.java.operators.DataSource;
+import org.apache.flink.api.java.tuple.Tuple4;
 import org.apache.flink.api.java.utils.ParameterTool;
 import org.apache.flink.core.fs.Path;
 
@@ -126,10 +127,16 @@ public class ArgoArBatch {
 
 		DataSet<MetricData> mdataPrevTotalDS = mdataDS.union(pdataMin);
 
-		// Generate Full Missing dataset for the given topology
-		DataSet<MonData> fillMissDS = mdataPrevTotalDS.reduceGroup(new FillMissing(params))
-				.withBroadcastSet(mpsDS, "mps").withBroadcastSet(egpDS, "egp").withBroadcastSet(ggpDS, "ggp")
-				.withBroadcastSet(opsDS, "ops").withBroadcastSet(aprDS, "aps").withBroadcastSet(confDS, "conf");
+		// List the metrics expected by the topology and the (distinct) metrics found in the data
+		DataSet<Tuple4<String, String, String, String>> expectedDS = egpDS.flatMap(new ListExpectedMetrics(params))
+				.withBroadcastSet(mpsDS, "mps");
+		DataSet<Tuple4<String, String, String, String>> foundDS = mdataPrevTotalDS
+				.flatMap(new ListFoundMetrics(params)).withBroadcastSet(egpDS, "egp")
+				.withBroadcastSet(ggpDS, "ggp").withBroadcastSet(confDS, "conf").distinct();
+
+		// Generate Full Missing dataset for the given topology (expected metrics that were not found)
+		DataSet<MonData> fillMissDS = expectedDS.coGroup(foundDS).where(0, 1, 2, 3).equalTo(0, 1, 2, 3)
+				.with(new FillMissing(params)).withBroadcastSet(opsDS, "ops");
 
 		// Discard unused data and attach endpoint group as information
 		DataSet<MonData> mdataTrimDS = mdataPrevTotalDS.flatMap(new PickEndpoints(params))
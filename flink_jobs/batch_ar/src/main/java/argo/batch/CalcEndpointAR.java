@@ -3,8 +3,6 @@ package argo.batch;
 import java.io.IOException;
 import java.text.ParseException;
 
-import java.util.List;
-
 import org.apache.flink.api.common.functions.RichFlatMapFunction;
 
 import org.apache.flink.api.java.utils.ParameterTool;
@@ -13,8 +11,6 @@ import org.apache.flink.util.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import argo.avro.GroupEndpoint;
-import argo.avro.GroupGroup;
 import ops.ConfigManager;
 import ops.DIntegrator;
 import ops.OpsManager;
@@ -41,18 +37,13 @@ public class CalcEndpointAR extends RichFlatMapFunction<MonTimeline, EndpointAR>
 	static Logger LOG = LoggerFactory.getLogger(ArgoArBatch.class);
 
 	
-	private List<GroupEndpoint> egp;
-	private List<GroupGroup> ggp;
-	private List<String> apr;
-	private List<String> rec;
-	private List<String> ops;
-	private List<String> conf;
 
 	private EndpointGroupManager egpMgr;
 	private GroupGroupManager ggpMgr;
 	private AggregationProfileManager aprMgr;
 	private RecomputationManager recMgr;
 	private OpsManager opsMgr;
+	private DIntegrator dAR;
 	private ConfigManager confMgr;
 
 
@@ -72,38 +63,25 @@ public class CalcEndpointAR extends RichFlatMapFunction<MonTimeline, EndpointAR>
 	 */
 	@Override
 	public void open(Configuration parameters) throws IOException, ParseException {
-		// Get data from broadcast variable
-		
-		this.egp = getRuntimeContext().getBroadcastVariable("egp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
-		this.apr = getRuntimeContext().getBroadcastVariable("apr");
-		this.rec = getRuntimeContext().getBroadcastVariable("rec");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
-		this.conf = getRuntimeContext().getBroadcastVariable("conf");
-
-		
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize endpoint group manager
-		this.egpMgr = new EndpointGroupManager();
-		this.egpMgr.loadFromList(egp);
+		this.egpMgr = SyncContext.endpointGroups(getRuntimeContext());
 
-		this.ggpMgr = new GroupGroupManager();
-		this.ggpMgr.loadFromList(ggp);
+		this.ggpMgr = SyncContext.groupGroups(getRuntimeContext());
 
 		// Initialize Aggregation Profile Manager ;
-		this.aprMgr = new AggregationProfileManager();
-		this.aprMgr.loadJsonString(apr);
+		this.aprMgr = SyncContext.aggregationProfiles(getRuntimeContext(), "apr");
 
 		// Initialize Recomputations Manager;
-		this.recMgr = new RecomputationManager();
-		this.recMgr.loadJsonString(rec);
+		this.recMgr = SyncContext.recomputations(getRuntimeContext());
 		
 		// Initialize Operations Manager;
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
+		// Status classes of the integrator are resolved once
+		this.dAR = new DIntegrator(this.opsMgr);
 		
 		// Initialize Config Manager
-		this.confMgr = new ConfigManager();
-		this.confMgr.loadJsonString(conf);
+		this.confMgr = SyncContext.config(getRuntimeContext());
 
 	
 
@@ -131,8 +109,8 @@ public class CalcEndpointAR extends RichFlatMapFunction<MonTimeline, EndpointAR>
 		
 		
 		
-		DIntegrator dAR = new DIntegrator();
-		dAR.calculateAR(mtl.getTimeline(),this.opsMgr); 
+		DIntegrator dAR = this.dAR;
+		dAR.calculateAR(mtl.getRuns());
 		
 		int runDateInt = Integer.parseInt(this.runDate.replace("-", ""));
 		
@@ -3,8 +3,6 @@ package argo.batch;
 import java.io.IOException;
 import java.text.ParseException;
 
-import java.util.List;
-
 import org.apache.flink.api.common.functions.RichFlatMapFunction;
 
 import org.apache.flink.api.java.utils.ParameterTool;
@@ -13,11 +11,6 @@ import org.apache.flink.util.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import argo.avro.GroupEndpoint;
-import argo.avro.GroupGroup;
-
-import argo.avro.MetricProfile;
-import argo.avro.Weight;
 import ops.ConfigManager;
 import ops.DIntegrator;
 
@@ -45,20 +38,13 @@ public class CalcEndpointGroupAR extends RichFlatMapFunction<MonTimeline, Endpoi
 
 	static Logger LOG = LoggerFactory.getLogger(ArgoArBatch.class);
 
-	private List<MetricProfile> mps;
-	private List<GroupEndpoint> egp;
-	private List<GroupGroup> ggp;
-	private List<Weight> weight;
-	private List<String> apr;
-	private List<String> rec;
-	private List<String> ops;
-	private List<String> conf;
 	private MetricProfileManager mpsMgr;
 	private EndpointGroupManager egpMgr;
 	private GroupGroupManager ggpMgr;
 	private AggregationProfileManager aprMgr;
 	private RecomputationManager recMgr;
 	private OpsManager opsMgr;
+	private DIntegrator dAR;
 	private WeightManager weightMgr;
 	private ConfigManager confMgr;
 
@@ -79,44 +65,29 @@ public class CalcEndpointGroupAR extends RichFlatMapFunction<MonTimeline, Endpoi
 	 */
 	@Override
 	public void open(Configuration parameters) throws IOException, ParseException {
-		// Get data from broadcast variable
-		this.mps = getRuntimeContext().getBroadcastVariable("mps");
-		this.egp = getRuntimeContext().getBroadcastVariable("egp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
-		this.apr = getRuntimeContext().getBroadcastVariable("apr");
-		this.rec = getRuntimeContext().getBroadcastVariable("rec");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
-		this.weight = getRuntimeContext().getBroadcastVariable("weight");
-		this.conf = getRuntimeContext().getBroadcastVariable("conf");
-
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize metric profile manager
-		this.mpsMgr = new MetricProfileManager();
-		this.mpsMgr.loadFromList(mps);
+		this.mpsMgr = SyncContext.metricProfiles(getRuntimeContext());
 		// Initialize endpoint group manager
-		this.egpMgr = new EndpointGroupManager();
-		this.egpMgr.loadFromList(egp);
+		this.egpMgr = SyncContext.endpointGroups(getRuntimeContext());
 
-		this.ggpMgr = new GroupGroupManager();
-		this.ggpMgr.loadFromList(ggp);
+		this.ggpMgr = SyncContext.groupGroups(getRuntimeContext());
 
-		this.weightMgr = new WeightManager();
-		this.weightMgr.loadFromList(weight);
+		this.weightMgr = SyncContext.weights(getRuntimeContext());
 
 		// Initialize Aggregation Profile Manager ;
-		this.aprMgr = new AggregationProfileManager();
-		this.aprMgr.loadJsonString(apr);
+		this.aprMgr = SyncContext.aggregationProfiles(getRuntimeContext(), "apr");
 
 		// Initialize Recomputations Manager;
-		this.recMgr = new RecomputationManager();
-		this.recMgr.loadJsonString(rec);
+		this.recMgr = SyncContext.recomputations(getRuntimeContext());
 
 		// Initialize Operations Manager;
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
+		// Status classes of the integrator are resolved once
+		this.dAR = new DIntegrator(this.opsMgr);
 
 		// Initialize Config Manager
-		this.confMgr = new ConfigManager();
-		this.confMgr.loadJsonString(conf);
+		this.confMgr = SyncContext.config(getRuntimeContext());
 		
 		// Initialize rundate
 		this.runDate = params.getRequired("run.date");
@@ -145,8 +116,8 @@ public class CalcEndpointGroupAR extends RichFlatMapFunction<MonTimeline, Endpoi
 		
 		
 		
-		DIntegrator dAR = new DIntegrator();
-		dAR.calculateAR(mtl.getTimeline(),this.opsMgr); 
+		DIntegrator dAR = this.dAR;
+		dAR.calculateAR(mtl.getRuns());
 		
 		int runDateInt = Integer.parseInt(this.runDate.replace("-", ""));
 		
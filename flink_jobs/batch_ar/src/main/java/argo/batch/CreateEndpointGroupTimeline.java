@@ -3,8 +3,6 @@ package argo.batch;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.flink.api.common.functions.RichGroupReduceFunction;
@@ -16,13 +14,9 @@ import org.apache.flink.util.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import argo.avro.GroupEndpoint;
-import argo.avro.GroupGroup;
-
-import argo.avro.MetricProfile;
-import ops.DAggregator;
-import ops.DTimeline;
+import ops.AggregationPlan;
 import ops.OpsManager;
+import ops.RLAggregator;
 import sync.AggregationProfileManager;
 import sync.EndpointGroupManager;
 import sync.GroupGroupManager;
@@ -45,17 +39,12 @@ public class CreateEndpointGroupTimeline extends RichGroupReduceFunction<MonTime
 
 	static Logger LOG = LoggerFactory.getLogger(ArgoArBatch.class);
 
-	private List<MetricProfile> mps;
-	private List<String> aps;
-	private List<String> ops;
-	private List<GroupEndpoint> egp;
-	private List<GroupGroup> ggp;
-	private List<String> rec;
 	private MetricProfileManager mpsMgr;
 	private AggregationProfileManager apsMgr;
 	private EndpointGroupManager egpMgr;
 	private GroupGroupManager ggpMgr;
 	private OpsManager opsMgr;
+	private AggregationPlan plan;
 	private RecomputationManager recMgr;
 	private String runDate;
 
@@ -74,34 +63,24 @@ public class CreateEndpointGroupTimeline extends RichGroupReduceFunction<MonTime
 	@Override
 	public void open(Configuration parameters) throws IOException, ParseException {
 
-		// Get data from broadcast variables
-		this.mps = getRuntimeContext().getBroadcastVariable("mps");
-		this.aps = getRuntimeContext().getBroadcastVariable("aps");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
-		this.egp = getRuntimeContext().getBroadcastVariable("egp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
-		this.rec = getRuntimeContext().getBroadcastVariable("rec");
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize metric profile manager
-		this.mpsMgr = new MetricProfileManager();
-		this.mpsMgr.loadFromList(mps);
+		this.mpsMgr = SyncContext.metricProfiles(getRuntimeContext());
 		// Initialize aggregation profile manager
-		this.apsMgr = new AggregationProfileManager();
-
-		this.apsMgr.loadJsonString(aps);
+		this.apsMgr = SyncContext.aggregationProfiles(getRuntimeContext(), "aps");
 		// Initialize operations manager
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
+
+		// Compile the aggregation plan of the first profile
+		this.plan = SyncContext.aggregationPlan(this.apsMgr, this.opsMgr);
 
 		// Initialize endpoint group manager
-		this.egpMgr = new EndpointGroupManager();
-		this.egpMgr.loadFromList(egp);
+		this.egpMgr = SyncContext.endpointGroups(getRuntimeContext());
 
-		this.ggpMgr = new GroupGroupManager();
-		this.ggpMgr.loadFromList(ggp);
+		this.ggpMgr = SyncContext.groupGroups(getRuntimeContext());
 
 		// Initialize Recomputations Manager;
-		this.recMgr = new RecomputationManager();
-		this.recMgr.loadJsonString(rec);
+		this.recMgr = SyncContext.recomputations(getRuntimeContext());
 		
 		this.runDate = params.getRequired("run.date");
 
@@ -113,7 +92,7 @@ public class CreateEndpointGroupTimeline extends RichGroupReduceFunction<MonTime
 	 * <p>
 	 * This runs for each group item (endpointGroup) and contains a list of
 	 * service timelines sorted by the "service" field. It uses multiple
-	 * Discrete Aggregator to aggregate the endpoint timelines according to the
+	 * run-length encoded aggregators to aggregate the endpoint timelines according to the
 	 * aggregation groups defined in the aggregation profile and the operations
 	 * defined in the operations profile to produce the final endpoint group
 	 * timeline.
@@ -131,12 +110,10 @@ public class CreateEndpointGroupTimeline extends RichGroupReduceFunction<MonTime
 		String service = "";
 		String endpointGroup = "";
 
-		// Create a Hasmap of Discrete Aggregators for each aggregation group
-		// based on aggregation profile
-		Map<String, DAggregator> groupAggr = new HashMap<String, DAggregator>();
+		// Create an array of aggregators for each aggregation group indexed by
+		// the group id of the aggregation plan
+		RLAggregator[] groupAggr = new RLAggregator[this.plan.getGroupCount()];
 
-		// Grab metric operation type from aggregation profile
-		String avProf = apsMgr.getAvProfiles().get(0);
 		// For each service timeline of the input group
 		for (MonTimeline item : in) {
 
@@ -144,49 +121,39 @@ public class CreateEndpointGroupTimeline extends RichGroupReduceFunction<MonTime
 			endpointGroup = item.getGroup();
 
 			// Get the aggregation group
-			String group = apsMgr.getGroupByService(avProf, service);
+			int group = this.plan.getServiceGroup(service);
+			if (group < 0) {
+				continue;
+			}
 
 			// if group doesn't exist yet create it
-			if (groupAggr.containsKey(group) == false) {
-				groupAggr.put(group, new DAggregator());
+			if (groupAggr[group] == null) {
+				groupAggr[group] = new RLAggregator();
 			}
 
-			// Initialize a DTimelineObject
-			DTimeline dtl = new DTimeline();
-			dtl.samples = item.getTimeline();
-			dtl.setStartState(dtl.samples[0]);
-
 			// group will be present now
-			groupAggr.get(group).timelines.put(service, dtl);
-		}
-
-		// Aggregate each group
-		for (String group : groupAggr.keySet()) {
-			// Get group Operation
-
-			String gop = this.apsMgr.getProfileGroupOp(avProf, group);
-
-			groupAggr.get(group).aggregate(gop, this.opsMgr);
-
+			groupAggr[group].timelines.put(service, item.getRuns());
 		}
 
 		// Combine group aggregates to a final endpoint group aggregation
 		// Aggregate all sites
-		DAggregator totalSite = new DAggregator();
-
-		// Aggregate each group
-		for (String group : groupAggr.keySet()) {
-			DTimeline curTimeline = groupAggr.get(group).aggregation;
-			for (int i = 0; i < curTimeline.samples.length; i++) {
-				totalSite.insertSlot(group, i, curTimeline.samples[i]);
+		RLAggregator totalSite = new RLAggregator();
 
+		// Aggregate each group using its operation
+		for (int group = 0; group < groupAggr.length; group++) {
+			if (groupAggr[group] == null) {
+				continue;
 			}
 
+			groupAggr[group].aggregate(this.plan.getGroupOp(group), this.plan);
+
+			totalSite.timelines.put(this.plan.getGroupName(group), groupAggr[group].aggregation);
+
 		}
 
 		// Final site aggregate
-		// Get appropriate operation from availability profile
-		totalSite.aggregate(this.apsMgr.getTotalOp(avProf), this.opsMgr);
+		// Get appropriate operation from aggregation plan
+		totalSite.aggregate(this.plan.getTotalOp(), this.plan);
 
 		// Check if endpoint group is excluded in recomputations
 		if (this.recMgr.isExcluded(endpointGroup)) {
@@ -202,8 +169,8 @@ public class CreateEndpointGroupTimeline extends RichGroupReduceFunction<MonTime
 
 		// Create a new MonTimeline object for endpoint group
 		MonTimeline mtl = new MonTimeline(endpointGroup, "", "", "");
-		// Add Discrete Timeline samples int array to the MonTimeline
-		mtl.setTimeline(totalSite.aggregation.samples);
+		// Add the aggregated run-length encoded timeline to the MonTimeline
+		mtl.setRuns(totalSite.aggregation);
 		// Output MonTimeline object
 		out.collect(mtl);
 
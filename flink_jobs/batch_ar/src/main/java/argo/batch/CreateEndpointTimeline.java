@@ -3,7 +3,6 @@ package argo.batch;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 import org.apache.flink.api.common.functions.RichGroupReduceFunction;
 
@@ -14,14 +13,9 @@ import org.apache.flink.util.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import argo.avro.Downtime;
-import argo.avro.GroupEndpoint;
-import argo.avro.GroupGroup;
-
-import argo.avro.MetricProfile;
-import ops.DAggregator;
-import ops.DTimeline;
+import ops.AggregationPlan;
 import ops.OpsManager;
+import ops.RLAggregator;
 import sync.AggregationProfileManager;
 import sync.DowntimeManager;
 import sync.EndpointGroupManager;
@@ -44,17 +38,12 @@ public class CreateEndpointTimeline extends RichGroupReduceFunction<MonTimeline,
 
 	static Logger LOG = LoggerFactory.getLogger(ArgoArBatch.class);
 
-	private List<MetricProfile> mps;
-	private List<String> aps;
-	private List<String> ops;
-	private List<GroupEndpoint> egp;
-	private List<GroupGroup> ggp;
-	private List<Downtime> downtime;
 	private MetricProfileManager mpsMgr;
 	private AggregationProfileManager apsMgr;
 	private EndpointGroupManager egpMgr;
 	private GroupGroupManager ggpMgr;
 	private OpsManager opsMgr;
+	private AggregationPlan plan;
 	private DowntimeManager downtimeMgr;
 	private String runDate;
 
@@ -72,34 +61,24 @@ public class CreateEndpointTimeline extends RichGroupReduceFunction<MonTimeline,
 	@Override
 	public void open(Configuration parameters) throws IOException {
 
-		// Get data from broadcast variables
-		this.mps = getRuntimeContext().getBroadcastVariable("mps");
-		this.aps = getRuntimeContext().getBroadcastVariable("aps");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
-		this.egp = getRuntimeContext().getBroadcastVariable("egp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
-		this.downtime = getRuntimeContext().getBroadcastVariable("down");
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize metric profile manager
-		this.mpsMgr = new MetricProfileManager();
-		this.mpsMgr.loadFromList(mps);
+		this.mpsMgr = SyncContext.metricProfiles(getRuntimeContext());
 		// Initialize aggregation profile manager
-		this.apsMgr = new AggregationProfileManager();
-
-		this.apsMgr.loadJsonString(aps);
+		this.apsMgr = SyncContext.aggregationProfiles(getRuntimeContext(), "aps");
 		// Initialize operations manager
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
+
+		// Compile the aggregation plan of the first profile
+		this.plan = SyncContext.aggregationPlan(this.apsMgr, this.opsMgr);
 
 		// Initialize endpoint group manager
-		this.egpMgr = new EndpointGroupManager();
-		this.egpMgr.loadFromList(egp);
+		this.egpMgr = SyncContext.endpointGroups(getRuntimeContext());
 
-		this.ggpMgr = new GroupGroupManager();
-		this.ggpMgr.loadFromList(ggp);
+		this.ggpMgr = SyncContext.groupGroups(getRuntimeContext());
 
 		// Initialize downtime manager
-		this.downtimeMgr = new DowntimeManager();
-		this.downtimeMgr.loadFromList(downtime);
+		this.downtimeMgr = SyncContext.downtimes(getRuntimeContext());
 
 		this.runDate = params.getRequired("run.date");
 
@@ -110,8 +89,8 @@ public class CreateEndpointTimeline extends RichGroupReduceFunction<MonTimeline,
 	 * MetricTimelines to an aggregated endpoint timeline
 	 * <p>
 	 * This runs for each group item (endpointGroup,service,hostname) and contains a
-	 * list of metric timelines sorted by the "metric" field. It uses a Discrete
-	 * Aggregator to aggregate the metric timelines according to the operations
+	 * list of metric timelines sorted by the "metric" field. It uses a run-length
+	 * encoded aggregator to aggregate the metric timelines according to the operations
 	 * profile defined in the Operations Manager as to produce the final Endpoint
 	 * Timeline. The type of metric aggregation is defined in the aggregation
 	 * profile managed by the AggregationManager
@@ -130,7 +109,7 @@ public class CreateEndpointTimeline extends RichGroupReduceFunction<MonTimeline,
 		String endpointGroup = "";
 		String hostname = "";
 
-		DAggregator dAgg = new DAggregator();
+		RLAggregator dAgg = new RLAggregator();
 
 		// For each metric timeline of the input group
 		for (MonTimeline item : in) {
@@ -138,19 +117,14 @@ public class CreateEndpointTimeline extends RichGroupReduceFunction<MonTimeline,
 			service = item.getService();
 			hostname = item.getHostname();
 			endpointGroup = item.getGroup();
-			// Initialize a DTimelineObject
-			DTimeline dtl = new DTimeline();
-			dtl.samples = item.getTimeline();
-			dtl.setStartState(dtl.samples[0]);
-			// Push Discrete Timeline directly to the hashtable of the
-			// aggregator
-			dAgg.timelines.put(item.getMetric(), dtl);
+			// Push the run-length encoded timeline directly to the hashtable of
+			// the aggregator
+			dAgg.timelines.put(item.getMetric(), item.getRuns());
 
 		}
 
-		// Grab metric operation type from aggregation profile
-		String avProf = apsMgr.getAvProfiles().get(0);
-		dAgg.aggregate(apsMgr.getMetricOp(avProf), opsMgr);
+		// Grab metric operation type from aggregation plan
+		dAgg.aggregate(this.plan.getMetricOp(), this.plan);
 
 		// Apply Downtimes if hostname is on downtime list
 		ArrayList<String> downPeriod = this.downtimeMgr.getPeriod(hostname, service);
@@ -161,8 +135,8 @@ public class CreateEndpointTimeline extends RichGroupReduceFunction<MonTimeline,
 
 		// Create a new MonTimeline object for endpoint
 		MonTimeline mtl = new MonTimeline(endpointGroup, service, hostname, "");
-		// Add Discrete Timeline samples int array to the MonTimeline
-		mtl.setTimeline(dAgg.aggregation.samples);
+		// Add the aggregated run-length encoded timeline to the MonTimeline
+		mtl.setRuns(dAgg.aggregation);
 		// Output MonTimeline object
 		out.collect(mtl);
 
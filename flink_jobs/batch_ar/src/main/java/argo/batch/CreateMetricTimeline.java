@@ -2,7 +2,6 @@ package argo.batch;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
 
 import org.apache.flink.api.common.functions.RichGroupReduceFunction;
 
@@ -12,11 +11,7 @@ import org.apache.flink.util.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-
-import argo.avro.GroupEndpoint;
-import argo.avro.GroupGroup;
 import argo.avro.MetricData;
-import argo.avro.MetricProfile;
 import ops.ConfigManager;
 import ops.DTimeline;
 import ops.OpsManager;
@@ -41,12 +36,6 @@ public class CreateMetricTimeline extends RichGroupReduceFunction<MonData, MonTi
 
 	static Logger LOG = LoggerFactory.getLogger(ArgoArBatch.class);
 
-	private List<MetricProfile> mps;
-	private List<String> aps;
-	private List<String> ops;
-	private List<GroupEndpoint> egp;
-	private List<GroupGroup> ggp;
-	private List<String> conf;
 	private MetricProfileManager mpsMgr;
 	private AggregationProfileManager apsMgr;
 	private EndpointGroupManager egpMgr;
@@ -71,33 +60,20 @@ public class CreateMetricTimeline extends RichGroupReduceFunction<MonData, MonTi
 	public void open(Configuration parameters) throws IOException {
 
 		this.runDate = params.getRequired("run.date");
-		// Get data from broadcast variables
-		this.mps = getRuntimeContext().getBroadcastVariable("mps");
-		this.aps = getRuntimeContext().getBroadcastVariable("aps");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
-		this.egp = getRuntimeContext().getBroadcastVariable("egp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
-		this.conf = getRuntimeContext().getBroadcastVariable("conf"); 
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize metric profile manager
-		this.mpsMgr = new MetricProfileManager();
-		this.mpsMgr.loadFromList(mps);
+		this.mpsMgr = SyncContext.metricProfiles(getRuntimeContext());
 		// Initialize aggregation profile manager
-		this.apsMgr = new AggregationProfileManager();
-
-		this.apsMgr.loadJsonString(aps);
+		this.apsMgr = SyncContext.aggregationProfiles(getRuntimeContext(), "aps");
 		// Initialize operations manager
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
 
 		// Initialize endpoint group manager
-		this.egpMgr = new EndpointGroupManager();
-		this.egpMgr.loadFromList(egp);
+		this.egpMgr = SyncContext.endpointGroups(getRuntimeContext());
 
-		this.ggpMgr = new GroupGroupManager();
-		this.ggpMgr.loadFromList(ggp);
+		this.ggpMgr = SyncContext.groupGroups(getRuntimeContext());
 		
-		this.confMgr = new ConfigManager();
-		this.confMgr.loadJsonString(conf);
+		this.confMgr = SyncContext.config(getRuntimeContext());
 
 		this.runDate = params.getRequired("run.date");
 		this.egroupType = confMgr.egroup;
@@ -110,9 +86,8 @@ public class CreateMetricTimeline extends RichGroupReduceFunction<MonData, MonTi
 	 * The main operator buisness logic of transforming a collection of MonData to a metric timeline
 	 * <p>
 	 * This runs for each group item (endpointGroup,service,hostname,metric) and contains a list of MonData objects sorted
-	 * by the "timestamp" field. It uses a Discrete Timeline object to map individual status change points in time to an array of statuses.
-	 * The Discrete timeline automatically fills the gaps between the status changes to produce a full array of status points representing
-	 * the discrete timeline. Notice that status values are mapped from string representations to integer ids ("OK" => 0, "CRITICAL" => 4)
+	 * by the "timestamp" field. It uses a Discrete Timeline object to map individual status change points in time to slots and settles
+	 * them directly to a run-length encoded timeline (one run per status change) instead of a full array of status points. Notice that status values are mapped from string representations to integer ids ("OK" => 0, "CRITICAL" => 4)
 	 * for more efficient processing during aggregation comparisons.
 	 *
 	 * @param	in	An Iterable collection of MonData objects
@@ -151,12 +126,10 @@ public class CreateMetricTimeline extends RichGroupReduceFunction<MonData, MonTi
 
 		}
 		
-		dtl.settle(opsMgr.getDefaultMissingInt());
-		
 		// Create a new MonTimeline object
 		MonTimeline mtl = new MonTimeline(endpointGroup, service, hostname, metric);
-		// Add Discrete Timeline samples int array to the MonTimeline
-		mtl.setTimeline(dtl.samples);
+		// Add the run-length encoded timeline to the MonTimeline
+		mtl.setRuns(dtl.settleRuns(opsMgr.getDefaultMissingInt()));
 		// Output MonTimeline object
 		out.collect(mtl);
 
@@ -1,7 +1,6 @@
 package argo.batch;
 
 import java.io.IOException;
-import java.util.List;
 
 import org.apache.flink.api.common.functions.RichGroupReduceFunction;
 
@@ -12,15 +11,9 @@ import org.apache.flink.util.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-
-
-import argo.avro.GroupEndpoint;
-import argo.avro.GroupGroup;
-
-import argo.avro.MetricProfile;
-import ops.DAggregator;
-import ops.DTimeline;
+import ops.AggregationPlan;
 import ops.OpsManager;
+import ops.RLAggregator;
 import sync.AggregationProfileManager;
 import sync.EndpointGroupManager;
 import sync.GroupGroupManager;
@@ -42,16 +35,12 @@ public class CreateServiceTimeline extends RichGroupReduceFunction<MonTimeline,
 
 	static Logger LOG = LoggerFactory.getLogger(ArgoArBatch.class);
 
-	private List<MetricProfile> mps;
-	private List<String> aps;
-	private List<String> ops;
-	private List<GroupEndpoint> egp;
-	private List<GroupGroup> ggp;
 	private MetricProfileManager mpsMgr;
 	private AggregationProfileManager apsMgr;
 	private EndpointGroupManager egpMgr;
 	private GroupGroupManager ggpMgr;
 	private OpsManager opsMgr;
+	private AggregationPlan plan;
 
 	/**
 	 * Initialization method of the RichGroupReduceFunction operator
@@ -65,29 +54,21 @@ public class CreateServiceTimeline extends RichGroupReduceFunction<MonTimeline,
 	@Override
 	public void open(Configuration parameters) throws IOException {
 
-		// Get data from broadcast variables
-		this.mps = getRuntimeContext().getBroadcastVariable("mps");
-		this.aps = getRuntimeContext().getBroadcastVariable("aps");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
-		this.egp = getRuntimeContext().getBroadcastVariable("egp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize metric profile manager
-		this.mpsMgr = new MetricProfileManager();
-		this.mpsMgr.loadFromList(mps);
+		this.mpsMgr = SyncContext.metricProfiles(getRuntimeContext());
 		// Initialize aggregation profile manager
-		this.apsMgr = new AggregationProfileManager();
-
-		this.apsMgr.loadJsonString(aps);
+		this.apsMgr = SyncContext.aggregationProfiles(getRuntimeContext(), "aps");
 		// Initialize operations manager
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
+
+		// Compile the aggregation plan of the first profile
+		this.plan = SyncContext.aggregationPlan(this.apsMgr, this.opsMgr);
 
 		// Initialize endpoint group manager
-		this.egpMgr = new EndpointGroupManager();
-		this.egpMgr.loadFromList(egp);
+		this.egpMgr = SyncContext.endpointGroups(getRuntimeContext());
 
-		this.ggpMgr = new GroupGroupManager();
-		this.ggpMgr.loadFromList(ggp);
+		this.ggpMgr = SyncContext.groupGroups(getRuntimeContext());
 
 
 	}
@@ -96,7 +77,7 @@ public class CreateServiceTimeline extends RichGroupReduceFunction<MonTimeline,
 	 * The main operator business logic of transforming a collection of EndpointTimelines to an aggregated service timeline
 	 * <p>
 	 * This runs for each group item (endpointGroup,service) and contains a list of metric timelines sorted
-	 * by the "hostname" field. It uses a Discrete Aggregator to aggregate the endpoint timelines according to the operations
+	 * by the "hostname" field. It uses a run-length encoded aggregator to aggregate the endpoint timelines according to the operations
 	 * profile defined in the Operations Manager as to produce the final Service Timeline. The type of metric aggregation is
 	 * defined in the aggregation profile managed by the AggregationManager
 	 *
@@ -111,7 +92,7 @@ public class CreateServiceTimeline extends RichGroupReduceFunction<MonTimeline,
 		String endpointGroup ="";
 
 	
-		DAggregator dAgg = new DAggregator();
+		RLAggregator dAgg = new RLAggregator();
 		
 		
 		// For each endpoint timeline of the input group
@@ -120,24 +101,17 @@ public class CreateServiceTimeline extends RichGroupReduceFunction<MonTimeline,
 
 			service = item.getService();
 			endpointGroup = item.getGroup();
-			// Initialize a DTimelineObject
-			DTimeline dtl = new DTimeline();
-			dtl.samples = item.getTimeline();
-			dtl.setStartState(dtl.samples[0]);
-			// Push Discrete Timeline directly to the hashtable of the aggregator 
-			dAgg.timelines.put(item.getHostname(), dtl);
+			// Push the run-length encoded timeline directly to the hashtable of the aggregator 
+			dAgg.timelines.put(item.getHostname(), item.getRuns());
 
 		}
 		
-		// Grab metric operation type from aggregation profile
-		String avProf = apsMgr.getAvProfiles().get(0);
-		// Get the availability Group in which this service belongs
-		String avGroup = this.apsMgr.getGroupByService(avProf, service);
-		dAgg.aggregate(apsMgr.getProfileGroupServiceOp(avProf, avGroup, service), opsMgr);
+		// Grab the service operation type from aggregation plan
+		dAgg.aggregate(this.plan.getServiceOp(service), this.plan);
 		// Create a new MonTimeline object for endpoint
 		MonTimeline mtl = new MonTimeline(endpointGroup,service,"","");
-		// Add Discrete Timeline samples int array to the MonTimeline 
-		mtl.setTimeline(dAgg.aggregation.samples);
+		// Add the aggregated run-length encoded timeline to the MonTimeline 
+		mtl.setRuns(dAgg.aggregation);
 		// Output MonTimeline object
 		out.collect(mtl);
 
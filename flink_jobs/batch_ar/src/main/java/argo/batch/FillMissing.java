@@ -1,12 +1,9 @@
 package argo.batch;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.Iterator;
 
-import org.apache.flink.api.common.functions.RichGroupReduceFunction;
+import org.apache.flink.api.common.functions.RichCoGroupFunction;
 import org.apache.flink.api.java.tuple.Tuple4;
 import org.apache.flink.api.java.utils.ParameterTool;
 import org.apache.flink.configuration.Configuration;
@@ -14,22 +11,15 @@ import org.apache.flink.util.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import argo.avro.GroupEndpoint;
-import argo.avro.GroupGroup;
-import argo.avro.MetricData;
-import argo.avro.MetricProfile;
-import ops.ConfigManager;
-import ops.DTimeline;
 import ops.OpsManager;
-import sync.AggregationProfileManager;
-import sync.EndpointGroupManager;
-import sync.GroupGroupManager;
-import sync.MetricProfileManager;
 
 /**
- * Accepts a list of metric data objects and produces a list of missing mon data objects
+ * Accepts the expected and the found entries of a service endpoint metric and
+ * produces a missing mon data object if the metric was expected but not found.
+ * The class is used as a RichCoGroup Function (an anti-join of the expected
+ * metrics of the topology with the metrics found in the data) in flink pipeline
  */
-public class FillMissing extends RichGroupReduceFunction<MetricData, MonData> {
+public class FillMissing extends RichCoGroupFunction<Tuple4<String, String, String, String>, Tuple4<String, String, String, String>, MonData> {
 
 	private static final long serialVersionUID = 1L;
 
@@ -41,175 +31,64 @@ public class FillMissing extends RichGroupReduceFunction<MetricData, MonData> {
 
 	static Logger LOG = LoggerFactory.getLogger(ArgoArBatch.class);
 
-	private List<MetricProfile> mps;
-	private List<String> aps;
-	private List<String> ops;
-	private List<GroupEndpoint> egp;
-	private List<GroupGroup> ggp;
-	private List<String> conf;
-	private MetricProfileManager mpsMgr;
-	private AggregationProfileManager apsMgr;
-	private EndpointGroupManager egpMgr;
-	private GroupGroupManager ggpMgr;
 	private OpsManager opsMgr;
-	private ConfigManager confMgr;
 	private String runDate;
-	private String egroupType;
-	private Set<Tuple4<String, String, String, String>> expected;
+	private String timestamp;
+	private String state;
 
 	/**
-	 * Initialization method of the RichGroupReduceFunction operator
+	 * Initialization method of the RichCoGroupFunction operator
 	 * <p>
 	 * This runs at the initialization of the operator and receives a
 	 * configuration parameter object. It initializes all required structures
-	 * used by this operator such as profile managers, operations managers,
-	 * topology managers etc.
+	 * used by this operator such as the operations manager
 	 *
 	 * @param parameters
 	 *            A flink Configuration object
 	 */
 	@Override
 	public void open(Configuration parameters) throws IOException {
-
-		this.runDate = params.getRequired("run.date");
-		// Get data from broadcast variables
-		this.mps = getRuntimeContext().getBroadcastVariable("mps");
-		this.aps = getRuntimeContext().getBroadcastVariable("aps");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
-		this.egp = getRuntimeContext().getBroadcastVariable("egp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
-		this.conf = getRuntimeContext().getBroadcastVariable("conf");
-		
-		// Initialize metric profile manager
-		this.mpsMgr = new MetricProfileManager();
-		this.mpsMgr.loadFromList(mps);
-		// Initialize aggregation profile manager
-		this.apsMgr = new AggregationProfileManager();
-
-		this.apsMgr.loadJsonString(aps);
 		// Initialize operations manager
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
-
-		// Initialize endpoint group manager
-		this.egpMgr = new EndpointGroupManager();
-		this.egpMgr.loadFromList(egp);
-
-		this.ggpMgr = new GroupGroupManager();
-		this.ggpMgr.loadFromList(ggp);
-		
-		this.confMgr = new ConfigManager();
-		this.confMgr.loadJsonString(conf);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
 
 		this.runDate = params.getRequired("run.date");
-		this.egroupType = this.confMgr.egroup;
-		
-		
-
+		// Missing metrics start the day in the missing state
+		this.timestamp = this.runDate + "T00:00:00Z";
+		this.state = this.opsMgr.getDefaultMissing();
 	}
 
-	
 	/**
-	 * Reads the topology in endpoint group list and the metric profile and produces a set of available service endpoint metrics
-	 * that are expected to be found (as tuple objects (endpoint_group,service,hostname,metric)
-	 **/
-	public void initExpected() {
-		this.expected = new HashSet<Tuple4<String, String, String, String>>();
-		String mProfile = this.mpsMgr.getProfiles().get(0);
-		for (GroupEndpoint servPoint: this.egp){
-			
-			
-			ArrayList<String> metrics = this.mpsMgr.getProfileServiceMetrics(mProfile, servPoint.getService());
-			
-			if (metrics==null) continue;
-			for (String metric:metrics){
-				this.expected.add(new Tuple4<String,String,String,String>(servPoint.getGroup(),servPoint.getService(),servPoint.getHostname(),metric));
-			}
-			
-		}
-		
-	
-		
-		
-
-	}
-
-	/**
-	 * Iterates over all metric data and gathers a set of encountered service endpoint metrics. Then subtracts it from 
-	 * a set of expected service endpoint metrics (based on topology) so as the missing service endpoint metrics to be identified. Then based on the 
-	 * list of the missing service endpoint metrics corresponding metric data are created
+	 * Creates a missing metric data entry for a service endpoint metric
+	 * (endpoint_group,service,hostname,metric) that is expected according to the
+	 * topology but not found in the metric data
 	 *
-	 * @param in
-	 *            An Iterable collection of MetricData objects
+	 * @param expected
+	 *            The expected entries of a service endpoint metric (the topology
+	 *            might list it more than once)
+	 * @param found
+	 *            The found entries of a service endpoint metric
 	 * @param out
 	 *            A Collector list of Missing MonData objects
 	 */
 	@Override
-	public void reduce(Iterable<MetricData> in, Collector<MonData> out) throws Exception {
-		
-		initExpected();
-
-		Set<Tuple4<String, String, String, String>> found = new HashSet<Tuple4<String, String, String, String>>();
-
-		String service = "";
-		String endpointGroup = "";
-		String hostname = "";
-		String metric = "";
-		
-		String timestamp = this.runDate + "T00:00:00Z";
-		String state = this.opsMgr.getDefaultMissing();
-
-		DTimeline dtl = new DTimeline();
-
-		for (MetricData item : in) {
-
-			service = item.getService();
-			hostname = item.getHostname();
-			metric = item.getMetric();
-
-			// Filter By endpoint group if belongs to supergroup
-			ArrayList<String> groupnames = egpMgr.getGroup(egroupType, hostname, service);
-
-			for (String groupname : groupnames) {
-				if (ggpMgr.checkSubGroup(groupname) == true) {
-					endpointGroup = groupname;
-					found.add(new Tuple4<String, String, String, String>(endpointGroup, service, hostname, metric));
-				}
-
-			}
-
-			
-
-		}
-
-		
-		// Clone expected set to missing (because missing is going to be mutated after subtraction
-		Set<Tuple4<String,String,String,String>> missing = new HashSet<Tuple4<String,String,String,String>>(this.expected);
-		// The result of the subtraction is in missing set
-		missing.removeAll(found);
-		
-		
-		
-		
-		// For each item in missing create a missing metric data entry
-		for (Tuple4<String, String, String, String> item:missing){
-			MonData mn = new MonData();
-			mn.setGroup(item.f0);
-			mn.setService(item.f1);
-			mn.setHostname(item.f2);
-			mn.setMetric(item.f3);
-			mn.setStatus(state);
-			mn.setMessage("");
-			mn.setSummary("");
-			mn.setTimestamp(timestamp);
-			
-			out.collect(mn);
-			
-			
-		}
-		
-		
-
+	public void coGroup(Iterable<Tuple4<String, String, String, String>> expected,
+			Iterable<Tuple4<String, String, String, String>> found, Collector<MonData> out) throws Exception {
+
+		Iterator<Tuple4<String, String, String, String>> expectedIter = expected.iterator();
+		if (!expectedIter.hasNext() || found.iterator().hasNext()) return;
+
+		Tuple4<String, String, String, String> item = expectedIter.next();
+		MonData mn = new MonData();
+		mn.setGroup(item.f0);
+		mn.setService(item.f1);
+		mn.setHostname(item.f2);
+		mn.setMetric(item.f3);
+		mn.setStatus(this.state);
+		mn.setMessage("");
+		mn.setSummary("");
+		mn.setTimestamp(this.timestamp);
+
+		out.collect(mn);
 	}
 
 }
@@ -1,21 +1,26 @@
 package argo.batch;
 
-import java.util.Arrays;
+import ops.RLTimeline;
 
+/**
+ * MonTimeline holds a run-length encoded status timeline of a monitored entity
+ * (metric, endpoint, service or endpoint group) as it travels between the
+ * timeline operators
+ */
 public class MonTimeline {
 
 	private String group;
 	private String service;
 	private String hostname;
 	private String metric;
-	private int[] timeline;
+	private RLTimeline runs;
 
 	public MonTimeline() {
 		this.group = "";
 		this.service = "";
 		this.hostname = "";
 		this.metric = "";
-		this.timeline = new int[1440];
+		this.runs = new RLTimeline(1440, 1, 0);
 	}
 
 	public MonTimeline(String _group, String _service, String _hostname, String _metric) {
@@ -23,7 +28,7 @@ public class MonTimeline {
 		this.service = _service;
 		this.hostname = _hostname;
 		this.metric = _metric;
-		this.timeline = new int[1440];
+		this.runs = new RLTimeline(1440, 1, 0);
 
 	}
 
@@ -32,7 +37,7 @@ public class MonTimeline {
 		this.service = _service;
 		this.hostname = _hostname;
 		this.metric = _metric;
-		this.timeline = new int[n];
+		this.runs = new RLTimeline(n, Math.max(1440 / n, 1), 0);
 	}
 
 	public String getGroup() {
@@ -67,16 +72,30 @@ public class MonTimeline {
 		this.metric = metric;
 	}
 
+	public RLTimeline getRuns() {
+		return runs;
+	}
+
+	public void setRuns(RLTimeline runs) {
+		this.runs = runs;
+	}
+
+	/**
+	 * Returns the timeline expanded to an array of samples
+	 */
 	public int[] getTimeline() {
-		return timeline;
+		return runs.toSamples();
 	}
 
+	/**
+	 * Sets the timeline from an array of samples
+	 */
 	public void setTimeline(int[] timeline) {
-		this.timeline = timeline;
+		this.runs = RLTimeline.fromSamples(timeline);
 	}
 
 	public String toString() {
-		return "(" + this.group + "," + this.service + "," + this.hostname + "," + this.metric + "," + Arrays.toString(this.timeline) + ")";
+		return "(" + this.group + "," + this.service + "," + this.hostname + "," + this.metric + "," + this.runs.toString() + ")";
 	}
 
 }
@@ -3,7 +3,6 @@ package argo.batch;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.flink.api.common.functions.RichFlatMapFunction;
@@ -14,11 +13,7 @@ import org.apache.flink.util.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-
-import argo.avro.GroupEndpoint;
-import argo.avro.GroupGroup;
 import argo.avro.MetricData;
-import argo.avro.MetricProfile;
 import ops.ConfigManager;
 import ops.OpsManager;
 import ops.ThresholdManager;
@@ -45,14 +40,6 @@ public class PickEndpoints extends RichFlatMapFunction<MetricData,MonData> {
 	
 	static Logger LOG = LoggerFactory.getLogger(ArgoArBatch.class);
 
-	private List<MetricProfile> mps;
-	private List<GroupEndpoint> egp;
-	private List<GroupGroup> ggp;
-	private List<String> apr;
-	private List<String> rec;
-	private List<String> conf;
-	private List<String> thr;
-	private List<String> ops;
 	private MetricProfileManager mpsMgr;
 	private EndpointGroupManager egpMgr;
 	private GroupGroupManager ggpMgr;
@@ -75,50 +62,31 @@ public class PickEndpoints extends RichFlatMapFunction<MetricData,MonData> {
 	 */
 	@Override
 	public void open(Configuration parameters) throws IOException, ParseException {
-		// Get data from broadcast variable
-		this.mps = getRuntimeContext().getBroadcastVariable("mps");
-		this.egp = getRuntimeContext().getBroadcastVariable("egp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
-		this.apr = getRuntimeContext().getBroadcastVariable("apr");
-		this.rec = getRuntimeContext().getBroadcastVariable("rec");
-		this.conf = getRuntimeContext().getBroadcastVariable("conf");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
-		this.thr = getRuntimeContext().getBroadcastVariable("thr");
-		
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize metric profile manager
-		this.mpsMgr = new MetricProfileManager();
-		this.mpsMgr.loadFromList(mps);
+		this.mpsMgr = SyncContext.metricProfiles(getRuntimeContext());
 		// Initialize endpoint group manager
-		this.egpMgr = new EndpointGroupManager();
-		this.egpMgr.loadFromList(egp);
+		this.egpMgr = SyncContext.endpointGroups(getRuntimeContext());
 		
-		this.ggpMgr = new GroupGroupManager();
-		this.ggpMgr.loadFromList(ggp);
+		this.ggpMgr = SyncContext.groupGroups(getRuntimeContext());
 		
 		// Initialize Aggregation Profile Manager ;
-		this.aprMgr = new AggregationProfileManager();
-		this.aprMgr.loadJsonString(apr);
+		this.aprMgr = SyncContext.aggregationProfiles(getRuntimeContext(), "apr");
 		
 		// Initialize Recomputations Manager;
-		this.recMgr = new RecomputationManager();
-		this.recMgr.loadJsonString(rec);
+		this.recMgr = SyncContext.recomputations(getRuntimeContext());
 		
 		// Initialize Configurations Manager;
-		this.confMgr = new ConfigManager();
-		this.confMgr.loadJsonString(conf);
+		this.confMgr = SyncContext.config(getRuntimeContext());
 		
 		// Initialize endpoint group type
 		this.egroupType = this.confMgr.egroup;
 		
 		// Initialize Ops Manager
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
 		
 		// Initialize Threshold manager
-		this.thrMgr = new ThresholdManager();
-		if (!this.thr.get(0).isEmpty()){
-			this.thrMgr.parseJSON(this.thr.get(0));
-		}
+		this.thrMgr = SyncContext.thresholds(getRuntimeContext());
 		
 	}
 
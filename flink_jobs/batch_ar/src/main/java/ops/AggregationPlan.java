@@ -0,0 +1,258 @@
+package ops;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import sync.AggregationProfileManager;
+
+/**
+ * AggregationPlan is an immutable, precompiled form of an aggregation profile
+ * bound to an operations profile. All profile semantics (service to group
+ * mapping, operations per level and the truth table) are resolved once when
+ * the plan is built, so that aggregation loops work only with integer codes
+ */
+public class AggregationPlan {
+
+	private final String profile;
+
+	private final int numStates;
+	private final int numOps;
+	// flattened truth table indexed as [op][a][b]
+	private final int[] truthTable;
+
+	// Evaluation of the operations on packed samples (see PackedSamples): an
+	// operation that picks the max (or min) state code of its operands is
+	// evaluated with bitwise formulas over whole words, any other operation
+	// through a lookup table over pairs of nibbles indexed as [op][a][b]
+	static final int KIND_TABLE = 0;
+	static final int KIND_MAX = 1;
+	static final int KIND_MIN = 2;
+	private final int[] opKinds;
+	private final byte[] nibbleTable;
+
+	private final int metricOp;
+	private final int totalOp;
+
+	// aggregation groups with their operations (indexed by group id)
+	private final String[] groups;
+	private final int[] groupOps;
+
+	// service name to group id and service operation
+	private final HashMap<String, Integer> serviceGroups;
+	private final HashMap<String, Integer> serviceOps;
+
+	/**
+	 * Compiles a new aggregation plan
+	 *
+	 * @param apsMgr
+	 *            Aggregation profile manager holding the profile
+	 * @param avProfile
+	 *            Name of the aggregation profile to compile
+	 * @param opsMgr
+	 *            Operations manager holding states, operations and truth table
+	 */
+	public AggregationPlan(AggregationProfileManager apsMgr, String avProfile, OpsManager opsMgr) {
+		this.profile = avProfile;
+
+		ArrayList<String> states = opsMgr.availableStates();
+		ArrayList<String> ops = opsMgr.availableOps();
+		this.numStates = states.size();
+		this.numOps = ops.size();
+
+		// Flatten the truth table
+		this.truthTable = new int[this.numOps * this.numStates * this.numStates];
+		for (int op = 0; op < this.numOps; op++) {
+			for (int a = 0; a < this.numStates; a++) {
+				for (int b = 0; b < this.numStates; b++) {
+					this.truthTable[(op * this.numStates + a) * this.numStates + b] = opsMgr.opInt(op, a, b);
+				}
+			}
+		}
+
+		// Compile the operations for packed samples (states and the undefined
+		// state must fit in a nibble)
+		this.opKinds = new int[this.numOps];
+		this.nibbleTable = new byte[this.numOps * 256];
+		if (isPackable()) {
+			for (int op = 0; op < this.numOps; op++) {
+				boolean isMax = true;
+				boolean isMin = true;
+				for (int a = -1; a < 15; a++) {
+					for (int b = -1; b < 15; b++) {
+						int x = op(op, a, b);
+						this.nibbleTable[(op << 8) | ((a + 1) << 4) | (b + 1)] = (byte) (x + 1);
+						if (a >= 0 && b >= 0 && a < this.numStates && b < this.numStates) {
+							isMax = isMax && x == Math.max(a, b);
+							isMin = isMin && x == Math.min(a, b);
+						}
+					}
+				}
+				this.opKinds[op] = isMax ? KIND_MAX : isMin ? KIND_MIN : KIND_TABLE;
+			}
+		}
+
+		this.metricOp = ops.indexOf(apsMgr.getMetricOp(avProfile));
+		this.totalOp = ops.indexOf(apsMgr.getTotalOp(avProfile));
+
+		// Index groups and services
+		ArrayList<String> groupList = apsMgr.getProfileGroups(avProfile);
+		if (groupList == null) {
+			groupList = new ArrayList<String>();
+		}
+
+		this.groups = new String[groupList.size()];
+		this.groupOps = new int[groupList.size()];
+		this.serviceGroups = new HashMap<String, Integer>();
+		this.serviceOps = new HashMap<String, Integer>();
+
+		for (int i = 0; i < groupList.size(); i++) {
+			String group = groupList.get(i);
+			this.groups[i] = group;
+			this.groupOps[i] = ops.indexOf(apsMgr.getProfileGroupOp(avProfile, group));
+
+			for (String service : apsMgr.getProfileGroupServices(avProfile, group)) {
+				this.serviceGroups.put(service, i);
+				this.serviceOps.put(service, ops.indexOf(apsMgr.getProfileGroupServiceOp(avProfile, group, service)));
+			}
+		}
+	}
+
+	/**
+	 * Applies an operation on two status values using the flattened truth table
+	 *
+	 * @return the resulting status or -1 if operation or statuses are invalid
+	 */
+	public int op(int op, int a, int b) {
+		if (op < 0 || a < 0 || b < 0 || op >= this.numOps || a >= this.numStates || b >= this.numStates) {
+			return -1;
+		}
+		return this.truthTable[(op * this.numStates + a) * this.numStates + b];
+	}
+
+	/**
+	 * Applies an operation slot by slot on two arrays of status values storing
+	 * the results in the first array
+	 */
+	public void op(int op, int[] acc, int[] other) {
+		OpsManager.fold(this.truthTable, this.numOps, this.numStates, op, acc, other);
+	}
+
+	/**
+	 * Returns true if the states (and the undefined state) fit in a nibble so
+	 * that operations can be applied on packed samples
+	 */
+	public boolean isPackable() {
+		return this.numStates <= 15;
+	}
+
+	// Lanes of the even and odd nibbles of a word spread over bytes
+	private static final long LOW_NIBBLES = 0x0F0F0F0F0F0F0F0FL;
+	private static final long HIGH_BITS = 0x8080808080808080L;
+	private static final long LOW_BITS = 0x0101010101010101L;
+
+	/**
+	 * Returns a mask with all the bits of a byte lane set where the lane of a is
+	 * greater or equal to the lane of b (lanes hold values below 128)
+	 */
+	private static long geMask(long a, long b) {
+		return ((((a | HIGH_BITS) - b) & HIGH_BITS) >>> 7) * 0xFF;
+	}
+
+	/**
+	 * Applies a max or min operation on byte lanes holding packed states.
+	 * Lanes where any of the operands is undefined (0) end up undefined
+	 */
+	private static long minMaxLanes(int kind, long a, long b) {
+		long ge = geMask(a, b);
+		long x = kind == KIND_MAX ? (a & ge) | (b & ~ge) : (b & ge) | (a & ~ge);
+		return x & geMask(a, LOW_BITS) & geMask(b, LOW_BITS);
+	}
+
+	/**
+	 * Applies an operation on two words of packed samples (16 slots at once)
+	 *
+	 * @return the word of resulting packed samples
+	 */
+	public long opPacked(int op, long a, long b) {
+		if (op < 0 || op >= this.numOps) {
+			return 0L;
+		}
+		int kind = this.opKinds[op];
+		if (kind != KIND_TABLE) {
+			// even and odd nibbles are combined separately in byte lanes
+			long even = minMaxLanes(kind, a & LOW_NIBBLES, b & LOW_NIBBLES);
+			long odd = minMaxLanes(kind, (a >>> 4) & LOW_NIBBLES, (b >>> 4) & LOW_NIBBLES);
+			return even | (odd << 4);
+		}
+		long x = 0L;
+		int base = op << 8;
+		for (int shift = 0; shift < 64; shift += 4) {
+			int pair = (int) (((a >>> shift) & 0xF) << 4 | ((b >>> shift) & 0xF));
+			x |= (long) this.nibbleTable[base | pair] << shift;
+		}
+		return x;
+	}
+
+	/**
+	 * Applies an operation on arrays of packed samples storing the result in the
+	 * first array
+	 */
+	public void opPacked(int op, long[] acc, long[] other) {
+		for (int i = 0; i < acc.length; i++) {
+			acc[i] = opPacked(op, acc[i], i < other.length ? other[i] : 0L);
+		}
+	}
+
+	public String getProfile() {
+		return this.profile;
+	}
+
+	public int getNumStates() {
+		return this.numStates;
+	}
+
+	public int getMetricOp() {
+		return this.metricOp;
+	}
+
+	public int getTotalOp() {
+		return this.totalOp;
+	}
+
+	public int getGroupCount() {
+		return this.groups.length;
+	}
+
+	public String getGroupName(int group) {
+		return this.groups[group];
+	}
+
+	public int getGroupOp(int group) {
+		return this.groupOps[group];
+	}
+
+	/**
+	 * Returns the id of the aggregation group a service belongs to or -1 if the
+	 * service is not part of the profile
+	 */
+	public int getServiceGroup(String service) {
+		Integer group = this.serviceGroups.get(service);
+		if (group == null) {
+			return -1;
+		}
+		return group;
+	}
+
+	/**
+	 * Returns the operation used to aggregate the endpoints of a service or -1 if
+	 * the service is not part of the profile
+	 */
+	public int getServiceOp(String service) {
+		Integer op = this.serviceOps.get(service);
+		if (op == null) {
+			return -1;
+		}
+		return op;
+	}
+
+}
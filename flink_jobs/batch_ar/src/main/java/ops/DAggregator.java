@@ -97,22 +97,54 @@ public class DAggregator {
 
 		int opTypeInt = opsMgr.getIntOperation(opType);
 
-		for (int i = 0; i < this.aggregation.samples.length; i++) {
-
-			boolean firstItem = true;
-
-			for (Entry<String, DTimeline> item : timelines.entrySet()) {
+		// Fold the timelines one by one into the aggregation (each timeline is
+		// walked once instead of re-walking the map for every sample)
+		boolean firstItem = true;
+		for (DTimeline item : timelines.values()) {
+			if (firstItem) {
+				copySamples(item);
+				firstItem = false;
+			} else {
+				opsMgr.opInt(opTypeInt, this.aggregation.samples, item.samples);
+			}
+		}
+	}
 
-				if (firstItem) {
-					this.aggregation.samples[i] = item.getValue().samples[i];
-					firstItem = false;
+	/**
+	 * Aggregates the timelines using an already resolved operation of a
+	 * precompiled aggregation plan. When the states fit in nibbles the samples
+	 * are packed and combined 16 slots at a time
+	 */
+	public void aggregate(int opTypeInt, AggregationPlan plan) {
+
+		if (plan.isPackable() && !this.timelines.isEmpty()) {
+			long[] acc = null;
+			for (DTimeline item : timelines.values()) {
+				long[] packed = PackedSamples.pack(item.samples);
+				if (acc == null) {
+					acc = packed;
 				} else {
-					int a = this.aggregation.samples[i];
-					int b = item.getValue().samples[i];
-					this.aggregation.samples[i] = opsMgr.opInt(opTypeInt, a, b);
+					plan.opPacked(opTypeInt, acc, packed);
 				}
 			}
+			PackedSamples.unpack(acc, this.aggregation.samples);
+			return;
 		}
+
+		boolean firstItem = true;
+		for (DTimeline item : timelines.values()) {
+			if (firstItem) {
+				copySamples(item);
+				firstItem = false;
+			} else {
+				plan.op(opTypeInt, this.aggregation.samples, item.samples);
+			}
+		}
+	}
+
+	private void copySamples(DTimeline item) {
+		System.arraycopy(item.samples, 0, this.aggregation.samples, 0,
+				Math.min(item.samples.length, this.aggregation.samples.length));
 	}
 
 }
@@ -1,9 +1,16 @@
 package ops;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 
 public class DIntegrator {
 
+	// Classes of statuses taking part in a/r calculations
+	public static final int CLASS_DOWN = 0;
+	public static final int CLASS_UP = 1;
+	public static final int CLASS_UNKNOWN = 2;
+	public static final int CLASS_DOWNTIME = 3;
+
 	public double availability;
 	public double reliability;
 
@@ -11,6 +18,49 @@ public class DIntegrator {
 	public double unknown_f;
 	public double down_f;
 
+	// status class of each status value (resolved once from the ops profile)
+	private int[] statusClasses;
+
+	public DIntegrator() {
+		this.statusClasses = null;
+	}
+
+	/**
+	 * Creates an integrator with the status classes of an operations profile
+	 * resolved once, to be used with calculateAR(samples) and calculateAR(runs)
+	 */
+	public DIntegrator(OpsManager opsMgr) {
+		this.statusClasses = statusClasses(opsMgr);
+	}
+
+	/**
+	 * Resolves the a/r class of each status of an operations profile. OK and
+	 * WARNING count as up, MISSING and UNKNOWN as unknown, DOWNTIME as scheduled
+	 * downtime and any other status (e.g. CRITICAL) as down
+	 */
+	public static int[] statusClasses(OpsManager opsMgr) {
+		ArrayList<String> states = opsMgr.availableStates();
+		int[] classes = new int[states.size()];
+		for (int i = 0; i < classes.length; i++) {
+			switch (states.get(i)) {
+			case "OK":
+			case "WARNING":
+				classes[i] = CLASS_UP;
+				break;
+			case "MISSING":
+			case "UNKNOWN":
+				classes[i] = CLASS_UNKNOWN;
+				break;
+			case "DOWNTIME":
+				classes[i] = CLASS_DOWNTIME;
+				break;
+			default:
+				classes[i] = CLASS_DOWN;
+			}
+		}
+		return classes;
+	}
+
 	public static double round(double input, int prec, int mode) {
 		try {
 			BigDecimal inputBD = BigDecimal.valueOf(input);
@@ -32,43 +82,89 @@ public class DIntegrator {
 	}
 
 	public void calculateAR(int[] samples, OpsManager opsMgr) {
+		calculateAR(samples, statusClasses(opsMgr));
+	}
 
-		clear();
+	/**
+	 * Calculates availability and reliability of a run-length encoded timeline by
+	 * summing up the lengths of its runs
+	 */
+	public void calculateAR(RLTimeline timeline, OpsManager opsMgr) {
+		calculateAR(timeline, statusClasses(opsMgr));
+	}
+
+	public void calculateAR(int[] samples) {
+		calculateAR(samples, this.statusClasses);
+	}
 
-		double up = 0;
-		double down = 0;
-		double unknown = 0;
+	public void calculateAR(RLTimeline timeline) {
+		calculateAR(timeline, this.statusClasses);
+	}
+
+	private void calculateAR(int[] samples, int[] classes) {
+
+		clear();
 
+		// Histogram of the status classes in one pass
+		long[] counts = new long[4];
 		for (int i = 0; i < samples.length; i++) {
-			if (samples[i] == opsMgr.getIntStatus("OK")) {
-				up++;
-			} else if (samples[i] == opsMgr.getIntStatus("WARNING")) {
-				up++;
-			} else if (samples[i] == opsMgr.getIntStatus("MISSING")) {
-				unknown++;
-			} else if (samples[i] == opsMgr.getIntStatus("UNKNOWN")) {
-				unknown++;
-			} else if (samples[i] == opsMgr.getIntStatus("DOWNTIME")) {
-				down++;
-			} else if (samples[i] == opsMgr.getIntStatus("CRITICAL")) {
+			counts[classOf(classes, samples[i])]++;
+		}
 
-			}
+		calculate(counts, samples.length);
+
+	}
+
+	private void calculateAR(RLTimeline timeline, int[] classes) {
+
+		clear();
+
+		long[] counts = new long[4];
+		int[] starts = timeline.getStarts();
+		int[] states = timeline.getStates();
+		for (int r = 0; r < states.length; r++) {
+			counts[classOf(classes, states[r])] += timeline.runEnd(r) - starts[r];
 		}
 
-		double dt = samples.length;
+		calculate(counts, timeline.getLength());
+
+	}
+
+	private static int classOf(int[] classes, int status) {
+		return status >= 0 && status < classes.length ? classes[status] : CLASS_DOWN;
+	}
+
+	private void calculate(long[] counts, long dt) {
+
+		long up = counts[CLASS_UP];
+		long unknown = counts[CLASS_UNKNOWN];
+		long down = counts[CLASS_DOWNTIME];
 
 		// Availability = UP period / KNOWN period = UP period / (Total period –
 		// UNKNOWN period)
-		this.availability = round(((up / dt) / (1.0 - (unknown / dt))) * 100, 5, BigDecimal.ROUND_HALF_UP);
+		this.availability = ratio(up * 100, dt - unknown);
 
 		// Reliability = UP period / (KNOWN period – Scheduled Downtime)
 		// = UP period / (Total period – UNKNOWN period – ScheduledDowntime)
-		this.reliability = round(((up / dt) / (1.0 - (unknown / dt) - (down / dt))) * 100, 5, BigDecimal.ROUND_HALF_UP);
+		this.reliability = ratio(up * 100, dt - unknown - down);
 
-		this.up_f = round(up / dt, 5, BigDecimal.ROUND_HALF_UP);
-		this.unknown_f = round(unknown / dt, 5, BigDecimal.ROUND_HALF_UP);
-		this.down_f = round(down / dt, 5, BigDecimal.ROUND_HALF_UP);
+		this.up_f = ratio(up, dt);
+		this.unknown_f = ratio(unknown, dt);
+		this.down_f = ratio(down, dt);
 
 	}
 
+	/**
+	 * Divides two slot counts rounding half up to 5 decimals with integer
+	 * arithmetic
+	 *
+	 * @return the rounded ratio or -1 when the ratio is undefined (0/0)
+	 */
+	private static double ratio(long num, long den) {
+		if (den <= 0) {
+			return -1;
+		}
+		return ((2 * num * 100000 + den) / (2 * den)) / 100000.0;
+	}
+
 }
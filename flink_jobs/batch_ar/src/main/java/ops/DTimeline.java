@@ -1,10 +1,8 @@
 package ops;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Arrays;
-import java.util.Calendar;
-import java.util.Date;
+import java.util.Map.Entry;
 import java.util.TreeMap;
 
 public class DTimeline {
@@ -72,18 +70,17 @@ public class DTimeline {
 		int start;
 		int end;
 
-		SimpleDateFormat dmy = new SimpleDateFormat("yyyy-MM-dd");
-		Date startDt = dmy.parse(startTs);
-		Date endDt = dmy.parse(endTs);
-		Date targetDt = dmy.parse(targetDate);
+		long startDt = ZuluTime.parseDate(startTs);
+		long endDt = ZuluTime.parseDate(endTs);
+		long targetDt = ZuluTime.parseDate(targetDate);
 
-		if (startDt.before(targetDt) && !((startTs.substring(0, startTs.indexOf("T")).equals(targetDate)))) {
+		if (startDt < targetDt && !ZuluTime.isOnDate(startTs, targetDate)) {
 			start = 0;
 		} else {
 			start = tsInt(startTs);
 		}
 
-		if (endDt.after(targetDt) && !((endTs.substring(0, endTs.indexOf("T")).equals(targetDate)))) {
+		if (endDt > targetDt && !ZuluTime.isOnDate(endTs, targetDate)) {
 			end = this.samples.length-1;
 		} else {
 			end = tsInt(endTs);
@@ -97,13 +94,7 @@ public class DTimeline {
 
 	public int tsInt(String timestamp) throws ParseException {
 
-		SimpleDateFormat w3c_date = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-		Date parsedDate = w3c_date.parse(timestamp);
-		Calendar cal = Calendar.getInstance();
-		cal.setTime(parsedDate);
-
-		int total_seconds = (cal.get(Calendar.HOUR_OF_DAY) * 3600) + (cal.get(Calendar.MINUTE) * 60)
-				+ cal.get(Calendar.SECOND);
+		int total_seconds = ZuluTime.secondOfDay(timestamp);
 
 		double total_minutes = Math.round(total_seconds / 60.0);
 		double result = Math.round(total_minutes / this.sInterval);
@@ -148,4 +139,26 @@ public class DTimeline {
 
 	}
 
+	/**
+	 * Settles the input states directly to a run-length encoded timeline. The
+	 * result is the same as settle followed by RLTimeline.fromSamples but the
+	 * samples array is never filled
+	 */
+	public RLTimeline settleRuns(int missingStart) {
+		if (this.startState == -1) {
+			this.startState = missingStart;
+		}
+		RLTimeline.Runs runs = new RLTimeline.Runs(this.inputStates.size() + 1);
+		runs.add(0, this.startState);
+		for (Entry<Integer, Integer> item : this.inputStates.entrySet()) {
+			// as in settle, an input state takes effect from the slot before it and
+			// an input state on the first slot gives way to the start state
+			if (item.getKey() == 0) {
+				continue;
+			}
+			runs.add(item.getKey() - 1, item.getValue());
+		}
+		return runs.build(this.samples.length, this.sInterval);
+	}
+
 }
@@ -30,6 +30,8 @@ public class OpsManager {
 	private ArrayList<String> revOps;
 
 	private int[][][] truthTable;
+	// truth table flattened as [op][a][b] for folding whole timelines
+	private int[] flatTruthTable;
 
 	private String defaultDownState;
 	private String defaultMissingState;
@@ -90,6 +92,7 @@ public class OpsManager {
 		this.revOps = new ArrayList<String>();
 
 		this.truthTable = null;
+		this.flatTruthTable = null;
 	}
 
 	public int opInt(int op, int a, int b) {
@@ -104,6 +107,46 @@ public class OpsManager {
 		return result;
 	}
 
+	/**
+	 * Applies an operation slot by slot on two arrays of status values storing
+	 * the results in the first array. Invalid statuses give -1 as in opInt
+	 */
+	public void opInt(int op, int[] acc, int[] other) {
+		fold(this.flatTruthTable, this.revOps.size(), this.revStates.size(), op, acc, other);
+	}
+
+	/**
+	 * Folds an array of status values into another through a flattened truth
+	 * table indexed as [op][a][b]
+	 */
+	static void fold(int[] table, int numOps, int numStates, int op, int[] acc, int[] other) {
+		int len = Math.min(acc.length, other.length);
+		if (table == null || op < 0 || op >= numOps) {
+			Arrays.fill(acc, 0, len, -1);
+			return;
+		}
+		int base = op * numStates * numStates;
+		for (int i = 0; i < len; i++) {
+			int a = acc[i];
+			int b = other[i];
+			if (a < 0 || b < 0 || a >= numStates || b >= numStates) {
+				acc[i] = -1;
+			} else {
+				acc[i] = table[base + a * numStates + b];
+			}
+		}
+	}
+
+	private static int[] flatten(int[][][] truthTable, int numStates) {
+		int[] flat = new int[truthTable.length * numStates * numStates];
+		for (int op = 0; op < truthTable.length; op++) {
+			for (int a = 0; a < numStates; a++) {
+				System.arraycopy(truthTable[op][a], 0, flat, (op * numStates + a) * numStates, numStates);
+			}
+		}
+		return flat;
+	}
+
 	public int opInt(String op, String a, String b) {
 
 		int opInt = this.ops.get(op);
@@ -218,6 +261,7 @@ public class OpsManager {
 					}
 				}
 			}
+			this.flatTruthTable = flatten(this.truthTable, num_states);
 		} catch (FileNotFoundException ex) {
 			LOG.error("Could not open file:" + jsonFile.getName());
 			throw ex;
@@ -300,6 +344,7 @@ public class OpsManager {
 					}
 				}
 			}
+			this.flatTruthTable = flatten(this.truthTable, num_states);
 
 		} catch (JsonParseException ex) {
 			LOG.error("Not valid json contents");
@@ -0,0 +1,101 @@
+package ops;
+
+/**
+ * PackedSamples packs timeline samples as nibbles, 16 slots per long word, so
+ * that aggregation can combine many slots per machine word (see
+ * AggregationPlan.opPacked). Each nibble holds the state plus one, so the
+ * undefined state -1 is packed as 0. States outside -1..14 can not be packed
+ * and are treated as undefined
+ */
+public class PackedSamples {
+
+	public static final int SLOTS_PER_WORD = 16;
+
+	private PackedSamples() {
+	}
+
+	/**
+	 * Number of words needed to pack the given number of slots
+	 */
+	public static int words(int length) {
+		return (length + SLOTS_PER_WORD - 1) / SLOTS_PER_WORD;
+	}
+
+	private static long nibble(int state) {
+		return state < -1 || state > 14 ? 0L : (long) (state + 1);
+	}
+
+	/**
+	 * Packs an array of samples
+	 */
+	public static long[] pack(int[] samples) {
+		long[] packed = new long[words(samples.length)];
+		for (int i = 0; i < samples.length; i++) {
+			packed[i >>> 4] |= nibble(samples[i]) << ((i & 15) << 2);
+		}
+		return packed;
+	}
+
+	/**
+	 * Packs a run-length encoded timeline (whole words are filled at once inside
+	 * long runs)
+	 */
+	public static long[] pack(RLTimeline timeline) {
+		long[] packed = new long[words(timeline.getLength())];
+		int[] starts = timeline.getStarts();
+		int[] states = timeline.getStates();
+		for (int r = 0; r < states.length; r++) {
+			long value = nibble(states[r]);
+			// the value repeated in all the nibbles of a word
+			long word = value * 0x1111111111111111L;
+			int slot = starts[r];
+			int end = timeline.runEnd(r);
+			while (slot < end) {
+				if ((slot & 15) == 0 && end - slot >= SLOTS_PER_WORD) {
+					packed[slot >>> 4] = word;
+					slot += SLOTS_PER_WORD;
+				} else {
+					packed[slot >>> 4] |= value << ((slot & 15) << 2);
+					slot++;
+				}
+			}
+		}
+		return packed;
+	}
+
+	/**
+	 * Unpacks the samples into the given array
+	 */
+	public static void unpack(long[] packed, int[] samples) {
+		for (int i = 0; i < samples.length; i++) {
+			int word = i >>> 4;
+			long value = word < packed.length ? (packed[word] >>> ((i & 15) << 2)) & 0xF : 0;
+			samples[i] = (int) value - 1;
+		}
+	}
+
+	/**
+	 * Encodes packed samples as a run-length encoded timeline
+	 */
+	public static RLTimeline toRuns(long[] packed, int length, int interval) {
+		RLTimeline.Runs runs = new RLTimeline.Runs(8);
+		int prev = Integer.MIN_VALUE;
+		for (int i = 0; i < length; i++) {
+			int word = i >>> 4;
+			// skip words holding a single state that goes on
+			if ((i & 15) == 0 && i + SLOTS_PER_WORD <= length && word < packed.length
+					&& packed[word] == (packed[word] & 0xF) * 0x1111111111111111L
+					&& (int) (packed[word] & 0xF) - 1 == prev) {
+				i += SLOTS_PER_WORD - 1;
+				continue;
+			}
+			int state = (int) (word < packed.length ? (packed[word] >>> ((i & 15) << 2)) & 0xF : 0) - 1;
+			if (state != prev) {
+				runs.add(i, state);
+				prev = state;
+			}
+		}
+		return runs.build(length, interval);
+	}
+
+}
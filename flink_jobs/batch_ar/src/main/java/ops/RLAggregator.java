@@ -0,0 +1,108 @@
+package ops;
+
+import java.util.HashMap;
+
+/**
+ * RLAggregator aggregates run-length encoded timelines. It works like
+ * DAggregator but only evaluates the operation at the slots where at least one
+ * of the timelines changes state
+ */
+public class RLAggregator {
+
+	public HashMap<String, RLTimeline> timelines;
+	public RLTimeline aggregation;
+
+	private int length; // number of slots of the timelines
+	private int interval; // sampling interval of the timelines in minutes
+
+	public RLAggregator() {
+		this(1440 / 5, 5);
+	}
+
+	public RLAggregator(int length, int interval) {
+		this.length = length;
+		this.interval = interval;
+
+		this.timelines = new HashMap<String, RLTimeline>();
+		this.aggregation = new RLTimeline(this.length, this.interval, -1);
+	}
+
+	public void clear() {
+		this.timelines.clear();
+		this.aggregation = new RLTimeline(this.length, this.interval, -1);
+	}
+
+	public void aggregate(String opType, OpsManager opsMgr) {
+		int opTypeInt = opsMgr.getIntOperation(opType);
+		aggregate(opTypeInt, opsMgr, null);
+	}
+
+	/**
+	 * Aggregates the timelines using an already resolved operation of a
+	 * precompiled aggregation plan
+	 */
+	public void aggregate(int opTypeInt, AggregationPlan plan) {
+		aggregate(opTypeInt, null, plan);
+	}
+
+	private void aggregate(int opTypeInt, OpsManager opsMgr, AggregationPlan plan) {
+		if (this.timelines.isEmpty()) {
+			this.aggregation = new RLTimeline(this.length, this.interval, -1);
+			return;
+		}
+
+		// Timelines are combined in the same order as in DAggregator
+		RLTimeline[] items = this.timelines.values().toArray(new RLTimeline[this.timelines.size()]);
+
+		// With dense change points (e.g. flapping metrics) it is cheaper to combine
+		// packed samples 16 slots at a time than to walk the runs
+		if (plan != null && plan.isPackable()) {
+			int totalRuns = 0;
+			for (RLTimeline item : items) {
+				totalRuns += item.getRunCount();
+			}
+			if (totalRuns > this.length) {
+				long[] acc = PackedSamples.pack(items[0]);
+				for (int j = 1; j < items.length; j++) {
+					plan.opPacked(opTypeInt, acc, PackedSamples.pack(items[j]));
+				}
+				this.aggregation = PackedSamples.toRuns(acc, this.length, this.interval);
+				return;
+			}
+		}
+
+		// Current run of each timeline
+		int[] pos = new int[items.length];
+
+		RLTimeline.Runs runs = new RLTimeline.Runs(items[0].getRunCount());
+		int slot = 0;
+		while (slot < this.length) {
+			// Combine the current states and find the next change point
+			int state = 0;
+			int next = this.length;
+			for (int j = 0; j < items.length; j++) {
+				int cur = items[j].getStates()[pos[j]];
+				if (j == 0) {
+					state = cur;
+				} else if (plan != null) {
+					state = plan.op(opTypeInt, state, cur);
+				} else {
+					state = opsMgr.opInt(opTypeInt, state, cur);
+				}
+				next = Math.min(next, items[j].runEnd(pos[j]));
+			}
+			runs.add(slot, state);
+
+			// Move on the timelines that change at the next change point
+			for (int j = 0; j < items.length; j++) {
+				if (items[j].runEnd(pos[j]) == next) {
+					pos[j]++;
+				}
+			}
+			slot = next;
+		}
+
+		this.aggregation = runs.build(this.length, this.interval);
+	}
+
+}
@@ -0,0 +1,397 @@
+package ops;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Arrays;
+
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+
+/**
+ * RLTimeline is a run-length encoded discrete timeline. Instead of one sample
+ * per slot it keeps the slots where the state changes (sorted, the first one is
+ * always slot 0) along with the state of each run. Most timelines have only a
+ * handful of state changes per day, so filling and integration work directly on
+ * the runs and never materialize the full sample array. Between operators the
+ * timeline travels in a packed binary form (see write) through its dedicated
+ * Flink serializer
+ */
+@TypeInfo(RLTimelineTypeInfo.Factory.class)
+public class RLTimeline {
+
+	// Packed forms of the states
+	static final byte PACK_NIBBLE = 0;
+	static final byte PACK_INT = 1;
+
+	private int length; // number of slots covered by the timeline
+	private int interval; // sampling interval measured in minutes
+	private int[] starts; // starting slot of each run
+	private int[] states; // state of each run
+
+	public RLTimeline() {
+		this(1440 / 5, 5, -1);
+	}
+
+	/**
+	 * Creates a timeline with a single run
+	 *
+	 * @param length
+	 *            Number of slots
+	 * @param interval
+	 *            Sampling interval in minutes
+	 * @param state
+	 *            State of the whole timeline
+	 */
+	public RLTimeline(int length, int interval, int state) {
+		this.length = length;
+		this.interval = interval;
+		this.starts = new int[] { 0 };
+		this.states = new int[] { state };
+	}
+
+	/**
+	 * Creates a timeline from already built runs
+	 */
+	public RLTimeline(int length, int interval, int[] starts, int[] states) {
+		this.length = length;
+		this.interval = interval;
+		this.starts = starts;
+		this.states = states;
+	}
+
+	/**
+	 * Encodes an array of samples (5 minute sampling interval is assumed for
+	 * 288 samples)
+	 */
+	public static RLTimeline fromSamples(int[] samples) {
+		return fromSamples(samples, 1440 / Math.max(samples.length, 1));
+	}
+
+	/**
+	 * Encodes an array of samples taken on the given interval (in minutes)
+	 */
+	public static RLTimeline fromSamples(int[] samples, int interval) {
+		Runs runs = new Runs(samples.length);
+		for (int i = 0; i < samples.length; i++) {
+			runs.add(i, samples[i]);
+		}
+		return runs.build(samples.length, interval);
+	}
+
+	/**
+	 * Expands the runs to an array of samples
+	 */
+	public int[] toSamples() {
+		int[] samples = new int[this.length];
+		for (int r = 0; r < this.states.length; r++) {
+			Arrays.fill(samples, this.starts[r], runEnd(r), this.states[r]);
+		}
+		return samples;
+	}
+
+	/**
+	 * Returns the state of a slot
+	 */
+	public int get(int slot) {
+		int r = Arrays.binarySearch(this.starts, slot);
+		if (r < 0) {
+			r = -r - 2;
+		}
+		return this.states[r];
+	}
+
+	/**
+	 * Returns the slot after the last slot of a run
+	 */
+	public int runEnd(int run) {
+		return run + 1 < this.starts.length ? this.starts[run + 1] : this.length;
+	}
+
+	public int getRunCount() {
+		return this.states.length;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public void setLength(int length) {
+		this.length = length;
+	}
+
+	public int getInterval() {
+		return interval;
+	}
+
+	public void setInterval(int interval) {
+		this.interval = interval;
+	}
+
+	public int[] getStarts() {
+		return starts;
+	}
+
+	public void setStarts(int[] starts) {
+		this.starts = starts;
+	}
+
+	public int[] getStates() {
+		return states;
+	}
+
+	public void setStates(int[] states) {
+		this.states = states;
+	}
+
+	/**
+	 * Sets the state of all the slots between start and end (inclusive)
+	 */
+	public void fill(int state, int start, int end) {
+		if (start > end || start >= this.length || end < 0) {
+			return;
+		}
+		start = Math.max(start, 0);
+		end = Math.min(end, this.length - 1);
+
+		Runs runs = new Runs(this.states.length + 2);
+		for (int r = 0; r < this.states.length; r++) {
+			int from = this.starts[r];
+			int to = runEnd(r);
+			// part of the run before the filled range
+			if (from < start) {
+				runs.add(from, this.states[r]);
+			}
+			// the filled range itself
+			if (from <= start && start < to) {
+				runs.add(start, state);
+			}
+			// part of the run after the filled range
+			if (to - 1 > end) {
+				runs.add(Math.max(from, end + 1), this.states[r]);
+			}
+		}
+		Runs.copy(runs, this);
+	}
+
+	/**
+	 * Sets the state of a period given in timestamps, in the same way as
+	 * DTimeline.fill (periods extending beyond the target date are cut at the
+	 * day boundaries)
+	 */
+	public void fill(int stateInt, String startTs, String endTs, String targetDate) throws ParseException {
+		int start;
+		int end;
+
+		long startDt = ZuluTime.parseDate(startTs);
+		long endDt = ZuluTime.parseDate(endTs);
+		long targetDt = ZuluTime.parseDate(targetDate);
+
+		if (startDt < targetDt && !ZuluTime.isOnDate(startTs, targetDate)) {
+			start = 0;
+		} else {
+			start = tsInt(startTs);
+		}
+
+		if (endDt > targetDt && !ZuluTime.isOnDate(endTs, targetDate)) {
+			end = this.length - 1;
+		} else {
+			end = tsInt(endTs);
+		}
+
+		fill(stateInt, start, end);
+	}
+
+	/**
+	 * Converts a timestamp to a slot (same rounding as DTimeline.tsInt)
+	 */
+	public int tsInt(String timestamp) throws ParseException {
+
+		int total_seconds = ZuluTime.secondOfDay(timestamp);
+
+		double total_minutes = Math.round(total_seconds / 60.0);
+		double result = Math.round(total_minutes / this.interval);
+
+		if ((int) result == this.length) {
+			return (int) result - 1;
+		} else {
+			return (int) result;
+		}
+	}
+
+	/**
+	 * Writes the timeline in packed form. Slot counts and run starts (as deltas
+	 * from the previous start) are written as variable length integers, so a
+	 * start takes one or two bytes. States are written as nibbles when all of
+	 * them fit in 4 bits (operations profiles have less than 16 states, the
+	 * undefined state -1 included) and as ints otherwise
+	 */
+	public void write(DataOutput out) throws IOException {
+		writeVarInt(out, this.length);
+		writeVarInt(out, this.interval);
+		writeVarInt(out, this.states.length);
+
+		int prev = 0;
+		for (int r = 0; r < this.starts.length; r++) {
+			writeVarInt(out, this.starts[r] - prev);
+			prev = this.starts[r];
+		}
+
+		boolean nibbles = true;
+		for (int state : this.states) {
+			if (state < -1 || state > 14) {
+				nibbles = false;
+				break;
+			}
+		}
+
+		if (nibbles) {
+			out.writeByte(PACK_NIBBLE);
+			// two states per byte (shifted by one so that -1 fits)
+			for (int r = 0; r < this.states.length; r += 2) {
+				int hi = this.states[r] + 1;
+				int lo = r + 1 < this.states.length ? this.states[r + 1] + 1 : 0;
+				out.writeByte((hi << 4) | lo);
+			}
+		} else {
+			out.writeByte(PACK_INT);
+			for (int state : this.states) {
+				out.writeInt(state);
+			}
+		}
+	}
+
+	/**
+	 * Reads a timeline written in packed form
+	 */
+	public static RLTimeline read(DataInput in) throws IOException {
+		RLTimeline timeline = new RLTimeline(0, 0, null, null);
+		timeline.readFields(in);
+		return timeline;
+	}
+
+	/**
+	 * Reads a timeline written in packed form into this timeline
+	 */
+	public void readFields(DataInput in) throws IOException {
+		this.length = readVarInt(in);
+		this.interval = readVarInt(in);
+		int runs = readVarInt(in);
+
+		this.starts = new int[runs];
+		int prev = 0;
+		for (int r = 0; r < runs; r++) {
+			prev += readVarInt(in);
+			this.starts[r] = prev;
+		}
+
+		this.states = new int[runs];
+		byte pack = in.readByte();
+		if (pack == PACK_NIBBLE) {
+			for (int r = 0; r < runs; r += 2) {
+				int b = in.readUnsignedByte();
+				this.states[r] = (b >>> 4) - 1;
+				if (r + 1 < runs) {
+					this.states[r + 1] = (b & 0x0F) - 1;
+				}
+			}
+		} else if (pack == PACK_INT) {
+			for (int r = 0; r < runs; r++) {
+				this.states[r] = in.readInt();
+			}
+		} else {
+			throw new IOException("Unknown timeline packing: " + pack);
+		}
+	}
+
+	private static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof RLTimeline)) {
+			return false;
+		}
+		RLTimeline other = (RLTimeline) obj;
+		return this.length == other.length && Arrays.equals(this.starts, other.starts)
+				&& Arrays.equals(this.states, other.states);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * this.length + Arrays.hashCode(this.starts)) + Arrays.hashCode(this.states);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int r = 0; r < this.states.length; r++) {
+			if (r > 0) {
+				sb.append(", ");
+			}
+			sb.append(this.starts[r]).append(":").append(this.states[r]);
+		}
+		return sb.append("]").toString();
+	}
+
+	/**
+	 * Runs accumulates runs in slot order, merging consecutive runs of the same
+	 * state
+	 */
+	static class Runs {
+		int[] starts;
+		int[] states;
+		int size;
+
+		Runs(int capacity) {
+			this.starts = new int[Math.max(capacity, 1)];
+			this.states = new int[Math.max(capacity, 1)];
+		}
+
+		void add(int start, int state) {
+			// a run starting at the same slot replaces the previous one
+			if (this.size > 0 && this.starts[this.size - 1] == start) {
+				this.size--;
+			}
+			// same state as the previous run - the run just goes on
+			if (this.size > 0 && this.states[this.size - 1] == state) {
+				return;
+			}
+			if (this.size == this.starts.length) {
+				this.starts = Arrays.copyOf(this.starts, this.size * 2);
+				this.states = Arrays.copyOf(this.states, this.size * 2);
+			}
+			this.starts[this.size] = start;
+			this.states[this.size] = state;
+			this.size++;
+		}
+
+		RLTimeline build(int length, int interval) {
+			return new RLTimeline(length, interval, Arrays.copyOf(this.starts, this.size),
+					Arrays.copyOf(this.states, this.size));
+		}
+
+		static void copy(Runs runs, RLTimeline target) {
+			target.starts = Arrays.copyOf(runs.starts, runs.size);
+			target.states = Arrays.copyOf(runs.states, runs.size);
+		}
+	}
+
+}
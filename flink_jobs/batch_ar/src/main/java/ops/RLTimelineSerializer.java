@@ -0,0 +1,71 @@
+package ops;
+
+import java.io.IOException;
+
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+/**
+ * Flink serializer of run-length encoded timelines. Timelines are exchanged
+ * between operators in their packed binary form (see RLTimeline.write)
+ */
+public class RLTimelineSerializer extends TypeSerializerSingleton<RLTimeline> {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final RLTimelineSerializer INSTANCE = new RLTimelineSerializer();
+
+	@Override
+	public boolean isImmutableType() {
+		return false;
+	}
+
+	@Override
+	public RLTimeline createInstance() {
+		return new RLTimeline();
+	}
+
+	@Override
+	public RLTimeline copy(RLTimeline from) {
+		return new RLTimeline(from.getLength(), from.getInterval(), from.getStarts().clone(),
+				from.getStates().clone());
+	}
+
+	@Override
+	public RLTimeline copy(RLTimeline from, RLTimeline reuse) {
+		return copy(from);
+	}
+
+	@Override
+	public int getLength() {
+		return -1;
+	}
+
+	@Override
+	public void serialize(RLTimeline record, DataOutputView target) throws IOException {
+		record.write(target);
+	}
+
+	@Override
+	public RLTimeline deserialize(DataInputView source) throws IOException {
+		return RLTimeline.read(source);
+	}
+
+	@Override
+	public RLTimeline deserialize(RLTimeline reuse, DataInputView source) throws IOException {
+		reuse.readFields(source);
+		return reuse;
+	}
+
+	@Override
+	public void copy(DataInputView source, DataOutputView target) throws IOException {
+		RLTimeline.read(source).write(target);
+	}
+
+	@Override
+	public boolean canEqual(Object obj) {
+		return obj instanceof RLTimelineSerializer;
+	}
+
+}
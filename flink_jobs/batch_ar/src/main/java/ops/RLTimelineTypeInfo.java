@@ -0,0 +1,85 @@
+package ops;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInfoFactory;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+
+/**
+ * Flink type information of run-length encoded timelines. It makes Flink use
+ * the packed RLTimelineSerializer wherever a timeline is part of an exchanged
+ * type (e.g. as a field of MonTimeline)
+ */
+public class RLTimelineTypeInfo extends TypeInformation<RLTimeline> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Factory registered on RLTimeline through the TypeInfo annotation
+	 */
+	public static class Factory extends TypeInfoFactory<RLTimeline> {
+		@Override
+		public TypeInformation<RLTimeline> createTypeInfo(Type t, Map<String, TypeInformation<?>> genericParameters) {
+			return new RLTimelineTypeInfo();
+		}
+	}
+
+	@Override
+	public boolean isBasicType() {
+		return false;
+	}
+
+	@Override
+	public boolean isTupleType() {
+		return false;
+	}
+
+	@Override
+	public int getArity() {
+		return 1;
+	}
+
+	@Override
+	public int getTotalFields() {
+		return 1;
+	}
+
+	@Override
+	public Class<RLTimeline> getTypeClass() {
+		return RLTimeline.class;
+	}
+
+	@Override
+	public boolean isKeyType() {
+		return false;
+	}
+
+	@Override
+	public TypeSerializer<RLTimeline> createSerializer(ExecutionConfig config) {
+		return RLTimelineSerializer.INSTANCE;
+	}
+
+	@Override
+	public String toString() {
+		return "RLTimeline";
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof RLTimelineTypeInfo;
+	}
+
+	@Override
+	public int hashCode() {
+		return RLTimelineTypeInfo.class.hashCode();
+	}
+
+	@Override
+	public boolean canEqual(Object obj) {
+		return obj instanceof RLTimelineTypeInfo;
+	}
+
+}
@@ -6,7 +6,6 @@ import argo.avro.Weight;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -28,9 +27,9 @@ public class WeightManager {
 
 
 	/**
-	 * Hashmap that holds information to weight lists by type. 
+	 * Hashmap that holds weight items by type and group name. 
 	 */
-	private HashMap<String, ArrayList<WeightItem>> list;
+	private HashMap<String, HashMap<String, WeightItem>> list;
 	
 	private static final Logger LOG = Logger.getLogger(WeightManager.class.getName());
 
@@ -49,19 +48,22 @@ public class WeightManager {
 	}
 
 	public WeightManager() {
-		list = new HashMap<String, ArrayList<WeightItem>>();
+		list = new HashMap<String, HashMap<String, WeightItem>>();
 	}
 
 	/**
-	 * Inserts new weight information (type,group_name,weight_value) to the Weight manager
+	 * Inserts new weight information (type,group_name,weight_value) to the Weight manager.
+	 * The first weight inserted for a (type,group_name) is kept
 	 */
 	public int insert(String type, String group, String weight) {
 		WeightItem tmpItem = new WeightItem(group, weight);
-		if (this.list.containsKey(type)) {
-			this.list.get(type).add(tmpItem);
-		} else {
-			this.list.put(type, new ArrayList<WeightItem>());
-			this.list.get(type).add(tmpItem);
+		HashMap<String, WeightItem> groups = this.list.get(type);
+		if (groups == null) {
+			groups = new HashMap<String, WeightItem>();
+			this.list.put(type, groups);
+		}
+		if (!groups.containsKey(group)) {
+			groups.put(group, tmpItem);
 		}
 
 		return 0; // All good
@@ -71,11 +73,11 @@ public class WeightManager {
 	 * Returns weight information by (type,group_name)
 	 */
 	public int getWeight(String type, String group) {
-		if (list.containsKey(type)) {
-			for (WeightItem item : list.get(type)) {
-				if (item.group.equals(group)) {
-					return Integer.parseInt(item.weight);
-				}
+		HashMap<String, WeightItem> groups = list.get(type);
+		if (groups != null) {
+			WeightItem item = groups.get(group);
+			if (item != null) {
+				return Integer.parseInt(item.weight);
 			}
 		}
 
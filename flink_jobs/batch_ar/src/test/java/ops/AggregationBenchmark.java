@@ -0,0 +1,128 @@
+package ops;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import sync.AggregationProfileManager;
+
+/**
+ * Compares combining timelines sample by sample through OpsManager.opInt with
+ * the packed (16 slots per word) aggregation of AggregationPlan.opPacked. Not
+ * part of the unit tests, run it with the main method from the test classpath
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AggregationBenchmark {
+
+	@Param({ "288", "1440" })
+	public int length;
+
+	@Param({ "AND", "OR" })
+	public String op;
+
+	private static final int TIMELINES = 20;
+
+	private OpsManager opsMgr;
+	private AggregationPlan plan;
+	private int opInt;
+
+	private int[][] samples;
+	private long[][] packed;
+
+	@Setup
+	public void setUp() throws Exception {
+		opsMgr = new OpsManager();
+		opsMgr.loadJson(new File(AggregationBenchmark.class.getResource("/ops/EGI-algorithm.json").toURI()));
+		AggregationProfileManager apsMgr = new AggregationProfileManager();
+		apsMgr.loadJson(new File(AggregationBenchmark.class.getResource("/ops/ap1.json").toURI()));
+		plan = new AggregationPlan(apsMgr, "ap1", opsMgr);
+		opInt = opsMgr.getIntOperation(op);
+
+		// Flapping timelines (a state change every few slots) of all the states
+		Random rnd = new Random(42);
+		samples = new int[TIMELINES][length];
+		packed = new long[TIMELINES][];
+		for (int t = 0; t < TIMELINES; t++) {
+			int state = 0;
+			for (int i = 0; i < length; i++) {
+				if (rnd.nextInt(4) == 0) {
+					state = rnd.nextInt(plan.getNumStates());
+				}
+				samples[t][i] = state;
+			}
+			packed[t] = PackedSamples.pack(samples[t]);
+		}
+	}
+
+	@Benchmark
+	public int[] sampleLoop() {
+		int[] acc = samples[0].clone();
+		for (int t = 1; t < TIMELINES; t++) {
+			int[] other = samples[t];
+			for (int i = 0; i < length; i++) {
+				acc[i] = opsMgr.opInt(opInt, acc[i], other[i]);
+			}
+		}
+		return acc;
+	}
+
+	@Benchmark
+	public int[] planLoop() {
+		int[] acc = samples[0].clone();
+		for (int t = 1; t < TIMELINES; t++) {
+			int[] other = samples[t];
+			for (int i = 0; i < length; i++) {
+				acc[i] = plan.op(opInt, acc[i], other[i]);
+			}
+		}
+		return acc;
+	}
+
+	@Benchmark
+	public long[] packedWords() {
+		long[] acc = packed[0].clone();
+		for (int t = 1; t < TIMELINES; t++) {
+			plan.opPacked(opInt, acc, packed[t]);
+		}
+		return acc;
+	}
+
+	@Benchmark
+	public int[] packedSamples() {
+		// Packing and unpacking included
+		long[] acc = PackedSamples.pack(samples[0]);
+		for (int t = 1; t < TIMELINES; t++) {
+			plan.opPacked(opInt, acc, PackedSamples.pack(samples[t]));
+		}
+		int[] result = new int[length];
+		PackedSamples.unpack(acc, result);
+		return result;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(AggregationBenchmark.class.getSimpleName()).build();
+		new Runner(opt).run();
+	}
+
+}
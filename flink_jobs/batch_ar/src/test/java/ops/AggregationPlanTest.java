@@ -0,0 +1,163 @@
+package ops;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import sync.AggregationProfileManager;
+
+public class AggregationPlanTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Assert that files are present
+		assertNotNull("Test file missing", AggregationPlanTest.class.getResource("/ops/ap1.json"));
+		assertNotNull("Test file missing", AggregationPlanTest.class.getResource("/ops/EGI-algorithm.json"));
+	}
+
+	@Test
+	public void test() throws URISyntaxException, IOException {
+		// Prepare Resource Files
+		URL resAPSJsonFile = AggregationPlanTest.class.getResource("/ops/ap1.json");
+		File jsonAPSFile = new File(resAPSJsonFile.toURI());
+		URL resOPSJsonFile = AggregationPlanTest.class.getResource("/ops/EGI-algorithm.json");
+		File jsonOPSFile = new File(resOPSJsonFile.toURI());
+
+		AggregationProfileManager apsMgr = new AggregationProfileManager();
+		apsMgr.loadJson(jsonAPSFile);
+		OpsManager opsMgr = new OpsManager();
+		opsMgr.loadJson(jsonOPSFile);
+
+		AggregationPlan plan = new AggregationPlan(apsMgr, "ap1", opsMgr);
+
+		// Check the resolved operations
+		assertEquals("Metric operation", opsMgr.getIntOperation("AND"), plan.getMetricOp());
+		assertEquals("Total operation", opsMgr.getIntOperation("AND"), plan.getTotalOp());
+		assertEquals("Group count", 3, plan.getGroupCount());
+
+		// Check the service to group index
+		int compute = plan.getServiceGroup("CREAM-CE");
+		assertEquals("Group name", "compute", plan.getGroupName(compute));
+		assertEquals("Same group", compute, plan.getServiceGroup("ARC-CE"));
+		assertEquals("Group operation", opsMgr.getIntOperation("OR"), plan.getGroupOp(compute));
+		assertEquals("Service operation", opsMgr.getIntOperation("OR"), plan.getServiceOp("SRMv2"));
+		assertEquals("Unknown service group", -1, plan.getServiceGroup("unknown.service"));
+		assertEquals("Unknown service operation", -1, plan.getServiceOp("unknown.service"));
+
+		// Check that the flattened truth table agrees with the operations manager
+		for (String op : opsMgr.availableOps()) {
+			for (String a : opsMgr.availableStates()) {
+				for (String b : opsMgr.availableStates()) {
+					int opInt = opsMgr.getIntOperation(op);
+					int aInt = opsMgr.getIntStatus(a);
+					int bInt = opsMgr.getIntStatus(b);
+					assertEquals(op + "(" + a + "," + b + ")", opsMgr.opInt(opInt, aInt, bInt),
+							plan.op(opInt, aInt, bInt));
+				}
+			}
+		}
+
+		// Invalid input results in -1
+		assertEquals("Invalid status", -1, plan.op(0, -1, 0));
+		assertEquals("Invalid operation", -1, plan.op(-1, 0, 0));
+	}
+
+	@Test
+	public void testFold() throws URISyntaxException, IOException {
+		URL resOPSJsonFile = AggregationPlanTest.class.getResource("/ops/EGI-algorithm.json");
+		File jsonOPSFile = new File(resOPSJsonFile.toURI());
+		URL resAPSJsonFile = AggregationPlanTest.class.getResource("/ops/ap1.json");
+		File jsonAPSFile = new File(resAPSJsonFile.toURI());
+
+		OpsManager opsMgr = new OpsManager();
+		opsMgr.loadJson(jsonOPSFile);
+		AggregationProfileManager apsMgr = new AggregationProfileManager();
+		apsMgr.loadJson(jsonAPSFile);
+		AggregationPlan plan = new AggregationPlan(apsMgr, "ap1", opsMgr);
+
+		// Folding whole arrays gives the same results as combining each slot
+		// (invalid states included)
+		int n = plan.getNumStates();
+		int[] a = new int[(n + 2) * (n + 2)];
+		int[] b = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = i / (n + 2) - 1;
+			b[i] = i % (n + 2) - 1;
+		}
+
+		for (String op : opsMgr.availableOps()) {
+			int opInt = opsMgr.getIntOperation(op);
+			int[] expected = new int[a.length];
+			for (int i = 0; i < a.length; i++) {
+				expected[i] = plan.op(opInt, a[i], b[i]);
+			}
+
+			int[] acc = a.clone();
+			plan.op(opInt, acc, b);
+			assertArrayEquals(op + " plan fold", expected, acc);
+
+			acc = a.clone();
+			opsMgr.opInt(opInt, acc, b);
+			assertArrayEquals(op + " ops fold", expected, acc);
+		}
+
+		int[] acc = a.clone();
+		plan.op(-1, acc, b);
+		assertEquals("Invalid operation", -1, acc[0]);
+	}
+
+	@Test
+	public void testPacked() throws URISyntaxException, IOException {
+		// Prepare Resource Files
+		URL resAPSJsonFile = AggregationPlanTest.class.getResource("/ops/ap1.json");
+		File jsonAPSFile = new File(resAPSJsonFile.toURI());
+		URL resOPSJsonFile = AggregationPlanTest.class.getResource("/ops/EGI-algorithm.json");
+		File jsonOPSFile = new File(resOPSJsonFile.toURI());
+
+		AggregationProfileManager apsMgr = new AggregationProfileManager();
+		apsMgr.loadJson(jsonAPSFile);
+		OpsManager opsMgr = new OpsManager();
+		opsMgr.loadJson(jsonOPSFile);
+
+		AggregationPlan plan = new AggregationPlan(apsMgr, "ap1", opsMgr);
+		assertTrue(plan.isPackable());
+
+		// Random samples (undefined state included) combined slot by slot and
+		// packed agree for every operation
+		Random rnd = new Random(42);
+		int[] a = new int[288];
+		int[] b = new int[288];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = rnd.nextInt(plan.getNumStates() + 1) - 1;
+			b[i] = rnd.nextInt(plan.getNumStates() + 1) - 1;
+		}
+
+		for (String op : opsMgr.availableOps()) {
+			int opInt = opsMgr.getIntOperation(op);
+			long[] packed = PackedSamples.pack(a);
+			plan.opPacked(opInt, packed, PackedSamples.pack(b));
+
+			int[] expected = new int[a.length];
+			for (int i = 0; i < a.length; i++) {
+				expected[i] = plan.op(opInt, a[i], b[i]);
+			}
+			int[] result = new int[a.length];
+			PackedSamples.unpack(packed, result);
+			assertArrayEquals(op + " packed", expected, result);
+		}
+
+		// Packing runs gives the same words as packing their samples
+		RLTimeline runs = RLTimeline.fromSamples(new int[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 4,
+				4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 1, -1 }, 5);
+		assertArrayEquals(PackedSamples.pack(runs.toSamples()), PackedSamples.pack(runs));
+		assertEquals(runs, PackedSamples.toRuns(PackedSamples.pack(runs), runs.getLength(), runs.getInterval()));
+	}
+
+}
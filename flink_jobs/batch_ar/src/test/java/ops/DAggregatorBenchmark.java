@@ -0,0 +1,106 @@
+package ops;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import sync.AggregationProfileManager;
+
+/**
+ * Compares the sample by sample aggregation loop (the map of timelines walked
+ * once per sample) with the timeline by timeline folding of DAggregator, for
+ * 10, 100 and 1000 input timelines. Run it with the main method from the test
+ * classpath
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DAggregatorBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int inputs;
+
+	private OpsManager opsMgr;
+	private AggregationPlan plan;
+	private int opInt;
+	private DAggregator dAgg;
+
+	@Setup
+	public void setUp() throws Exception {
+		opsMgr = new OpsManager();
+		opsMgr.loadJson(new File(DAggregatorBenchmark.class.getResource("/ops/EGI-algorithm.json").toURI()));
+		AggregationProfileManager apsMgr = new AggregationProfileManager();
+		apsMgr.loadJson(new File(DAggregatorBenchmark.class.getResource("/ops/ap1.json").toURI()));
+		plan = new AggregationPlan(apsMgr, "ap1", opsMgr);
+		opInt = opsMgr.getIntOperation("AND");
+
+		// Timelines with a few state changes per day
+		Random rnd = new Random(42);
+		dAgg = new DAggregator();
+		for (int t = 0; t < inputs; t++) {
+			DTimeline timeline = new DTimeline();
+			int state = 0;
+			for (int i = 0; i < timeline.samples.length; i++) {
+				if (rnd.nextInt(50) == 0) {
+					state = rnd.nextInt(plan.getNumStates());
+				}
+				timeline.samples[i] = state;
+			}
+			dAgg.timelines.put("timeline" + t, timeline);
+		}
+	}
+
+	@Benchmark
+	public int[] sampleMajor() {
+		int[] result = dAgg.aggregation.samples;
+		for (int i = 0; i < result.length; i++) {
+			boolean firstItem = true;
+			for (DTimeline item : dAgg.timelines.values()) {
+				if (firstItem) {
+					result[i] = item.samples[i];
+					firstItem = false;
+				} else {
+					result[i] = opsMgr.opInt(opInt, result[i], item.samples[i]);
+				}
+			}
+		}
+		return result;
+	}
+
+	@Benchmark
+	public int[] timelineMajor() {
+		dAgg.aggregate("AND", opsMgr);
+		return dAgg.aggregation.samples;
+	}
+
+	@Benchmark
+	public int[] planPacked() {
+		dAgg.aggregate(opInt, plan);
+		return dAgg.aggregation.samples;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(DAggregatorBenchmark.class.getSimpleName()).build();
+		new Runner(opt).run();
+	}
+
+}
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.text.ParseException;
+import java.util.Arrays;
 
 
 import org.junit.Test;
@@ -43,4 +44,49 @@ public class DIntergatorTest {
 
 	}
 
+	@Test
+	public void testStatusClasses() throws URISyntaxException, IOException {
+		URL resJsonFile = DIntergatorTest.class.getResource("/ops/EGI-algorithm.json");
+		File JsonFile = new File(resJsonFile.toURI());
+
+		OpsManager opsMgr = new OpsManager();
+		opsMgr.loadJson(JsonFile);
+
+		int ok = opsMgr.getIntStatus("OK");
+		int unknown = opsMgr.getIntStatus("UNKNOWN");
+		int downtime = opsMgr.getIntStatus("DOWNTIME");
+		int critical = opsMgr.getIntStatus("CRITICAL");
+
+		// 100 up, 2 unknown, 30 downtime and 156 down slots out of 288
+		int[] samples = new int[288];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = i < 100 ? ok : i < 102 ? unknown : i < 132 ? downtime : critical;
+		}
+
+		DIntegrator inter = new DIntegrator(opsMgr);
+		inter.calculateAR(samples);
+		assertEquals(34.96503, inter.availability, 0.0);
+		// 100 / 256 = 0.390625 is rounded half up
+		assertEquals(39.0625, inter.reliability, 0.0);
+		assertEquals(0.34722, inter.up_f, 0.0);
+		assertEquals(0.00694, inter.unknown_f, 0.0);
+		assertEquals(0.10417, inter.down_f, 0.0);
+
+		// Runs and undefined slots give the same results as the samples
+		DIntegrator rlInter = new DIntegrator();
+		rlInter.calculateAR(RLTimeline.fromSamples(samples), opsMgr);
+		assertEquals(inter.availability, rlInter.availability, 0.0);
+		assertEquals(inter.reliability, rlInter.reliability, 0.0);
+
+		samples[200] = -1;
+		inter.calculateAR(samples);
+		assertEquals(34.96503, inter.availability, 0.0);
+
+		// Nothing known gives undefined a/r
+		Arrays.fill(samples, unknown);
+		inter.calculateAR(samples);
+		assertEquals(-1, inter.availability, 0.0);
+		assertEquals(0.0, inter.up_f, 0.0);
+	}
+
 }
@@ -0,0 +1,157 @@
+package ops;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.text.ParseException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RLTimelineTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Assert that files are present
+		assertNotNull("Test file missing", RLTimelineTest.class.getResource("/ops/EGI-algorithm.json"));
+	}
+
+	private DTimeline createTimeline(OpsManager opsMgr, String startState, String[] ts, String[] states)
+			throws ParseException {
+		DTimeline dtl = new DTimeline();
+		dtl.setStartState(opsMgr.getIntStatus(startState));
+		for (int i = 0; i < ts.length; i++) {
+			dtl.insert(ts[i], opsMgr.getIntStatus(states[i]));
+		}
+		return dtl;
+	}
+
+	@Test
+	public void testEncoding() {
+		int[] samples = { 0, 0, 0, 4, 4, 1, 1, 1, 0, 0 };
+		RLTimeline rl = RLTimeline.fromSamples(samples, 144);
+
+		assertEquals(4, rl.getRunCount());
+		assertArrayEquals(new int[] { 0, 3, 5, 8 }, rl.getStarts());
+		assertArrayEquals(new int[] { 0, 4, 1, 0 }, rl.getStates());
+		assertArrayEquals(samples, rl.toSamples());
+		assertEquals(4, rl.get(4));
+		assertEquals(0, rl.get(9));
+
+		// filling inside, across and at the edges of runs
+		rl.fill(2, 4, 6);
+		assertArrayEquals(new int[] { 0, 0, 0, 4, 2, 2, 2, 1, 0, 0 }, rl.toSamples());
+		rl.fill(1, 0, 1);
+		assertArrayEquals(new int[] { 1, 1, 0, 4, 2, 2, 2, 1, 0, 0 }, rl.toSamples());
+		rl.fill(0, 2, 9);
+		assertArrayEquals(new int[] { 1, 1, 0, 0, 0, 0, 0, 0, 0, 0 }, rl.toSamples());
+		assertEquals(2, rl.getRunCount());
+	}
+
+	private byte[] pack(RLTimeline timeline) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		timeline.write(out);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void testPacking() throws IOException {
+		// a whole day in one state takes a few bytes
+		RLTimeline single = new RLTimeline(288, 5, 0);
+		byte[] packed = pack(single);
+		assertEquals(7, packed.length);
+		assertEquals(single, RLTimeline.read(new DataInputStream(new ByteArrayInputStream(packed))));
+
+		// states are packed as nibbles (undefined state included)
+		int[] samples = new int[1440];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = (i / 100) % 16 - 1;
+		}
+		RLTimeline nibbles = RLTimeline.fromSamples(samples, 1);
+		packed = pack(nibbles);
+		// (after 4 bytes of slot and run counts and 15 one byte run starts)
+		assertEquals(RLTimeline.PACK_NIBBLE, packed[4 + 15]);
+		RLTimeline unpacked = RLTimeline.read(new DataInputStream(new ByteArrayInputStream(packed)));
+		assertEquals(nibbles, unpacked);
+		assertArrayEquals(samples, unpacked.toSamples());
+
+		// states that do not fit in a nibble are kept as ints
+		RLTimeline wide = RLTimeline.fromSamples(new int[] { 0, 0, 20, 20, 3, -1 }, 240);
+		RLTimeline reused = new RLTimeline();
+		reused.readFields(new DataInputStream(new ByteArrayInputStream(pack(wide))));
+		assertEquals(wide, reused);
+		assertEquals(240, reused.getInterval());
+	}
+
+	@Test
+	public void testSettleAndAggregate() throws URISyntaxException, ParseException, IOException {
+
+		URL resJsonFile = RLTimelineTest.class.getResource("/ops/EGI-algorithm.json");
+		File jsonFile = new File(resJsonFile.toURI());
+
+		OpsManager opsMgr = new OpsManager();
+		opsMgr.loadJson(jsonFile);
+
+		String[][] ts = {
+				{ "2014-01-15T00:00:00Z", "2014-01-15T01:33:44Z", "2014-01-15T05:33:01Z", "2014-01-15T12:50:42Z",
+						"2014-01-15T15:33:44Z" },
+				{ "2014-01-15T00:04:00Z", "2014-01-15T00:08:00Z", "2014-01-15T08:33:01Z", "2014-01-15T12:50:42Z",
+						"2014-01-15T23:59:59Z" },
+				{ "2014-01-15T04:00:44Z", "2014-01-15T09:33:01Z", "2014-01-15T09:35:01Z", "2014-01-15T16:33:44Z",
+						"2014-01-15T16:38:44Z" } };
+		String[][] states = { { "CRITICAL", "CRITICAL", "OK", "WARNING", "OK" },
+				{ "OK", "MISSING", "CRITICAL", "UNKNOWN", "CRITICAL" },
+				{ "WARNING", "CRITICAL", "OK", "WARNING", "DOWNTIME" } };
+		String[] startStates = { "OK", "UNKNOWN", "OK" };
+
+		DAggregator dAgg = new DAggregator();
+		RLAggregator rlAgg = new RLAggregator();
+
+		for (int i = 0; i < ts.length; i++) {
+			// settling directly to runs gives the same timeline as settling the samples
+			DTimeline dtl = createTimeline(opsMgr, startStates[i], ts[i], states[i]);
+			dtl.settle(opsMgr.getIntStatus("MISSING"));
+			RLTimeline rl = createTimeline(opsMgr, startStates[i], ts[i], states[i])
+					.settleRuns(opsMgr.getIntStatus("MISSING"));
+			assertArrayEquals("settle check " + i, dtl.samples, rl.toSamples());
+			assertEquals(RLTimeline.fromSamples(dtl.samples), rl);
+
+			dAgg.timelines.put("timeline" + i, dtl);
+			rlAgg.timelines.put("timeline" + i, rl);
+		}
+
+		for (String op : new String[] { "AND", "OR" }) {
+			dAgg.aggregate(op, opsMgr);
+			rlAgg.aggregate(op, opsMgr);
+			assertArrayEquals("aggregation check " + op, dAgg.aggregation.samples, rlAgg.aggregation.toSamples());
+		}
+
+		// Downtime filling gives the same timeline
+		dAgg.aggregation.fill(opsMgr.getDefaultDownInt(), "2014-01-15T10:00:00Z", "2014-01-16T03:00:00Z",
+				"2014-01-15");
+		rlAgg.aggregation.fill(opsMgr.getDefaultDownInt(), "2014-01-15T10:00:00Z", "2014-01-16T03:00:00Z",
+				"2014-01-15");
+		assertArrayEquals("fill check", dAgg.aggregation.samples, rlAgg.aggregation.toSamples());
+
+		// Integration on runs gives the same a/r results
+		DIntegrator dAR = new DIntegrator();
+		dAR.calculateAR(dAgg.aggregation.samples, opsMgr);
+		DIntegrator rlAR = new DIntegrator();
+		rlAR.calculateAR(rlAgg.aggregation, opsMgr);
+		assertEquals(dAR.availability, rlAR.availability, 0.0);
+		assertEquals(dAR.reliability, rlAR.reliability, 0.0);
+		assertEquals(dAR.up_f, rlAR.up_f, 0.0);
+		assertEquals(dAR.unknown_f, rlAR.unknown_f, 0.0);
+		assertEquals(dAR.down_f, rlAR.down_f, 0.0);
+	}
+
+}
@@ -0,0 +1,83 @@
+package ops;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares parsing and formatting zulu timestamps with a SimpleDateFormat
+ * created per call (as the jobs used to do) with ZuluTime. Run it with the main
+ * method from the test classpath
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZuluTimeBenchmark {
+
+	public String timestamp = "2017-07-01T12:50:42Z";
+	public long millis = 1498913442000L;
+
+	@Benchmark
+	public int secondOfDayFormatter() throws ParseException {
+		SimpleDateFormat w3c_date = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+		Date parsedDate = w3c_date.parse(timestamp);
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(parsedDate);
+		return (cal.get(Calendar.HOUR_OF_DAY) * 3600) + (cal.get(Calendar.MINUTE) * 60) + cal.get(Calendar.SECOND);
+	}
+
+	@Benchmark
+	public int secondOfDayCodec() throws ParseException {
+		return ZuluTime.secondOfDay(timestamp);
+	}
+
+	@Benchmark
+	public long parseFormatter() throws ParseException {
+		SimpleDateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+		utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return utcFormat.parse(timestamp).getTime();
+	}
+
+	@Benchmark
+	public long parseCodec() throws ParseException {
+		return ZuluTime.parse(timestamp);
+	}
+
+	@Benchmark
+	public String formatFormatter() {
+		SimpleDateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+		utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return utcFormat.format(new Date(millis));
+	}
+
+	@Benchmark
+	public String formatCodec() {
+		return ZuluTime.format(millis);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(ZuluTimeBenchmark.class.getSimpleName()).build();
+		new Runner(opt).run();
+	}
+
+}
@@ -0,0 +1,78 @@
+package ops;
+
+import static org.junit.Assert.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class ZuluTimeTest {
+
+	private static SimpleDateFormat utcFormat(String pattern) {
+		SimpleDateFormat format = new SimpleDateFormat(pattern);
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return format;
+	}
+
+	@Test
+	public void testParse() throws ParseException {
+		assertEquals(0L, ZuluTime.parse("1970-01-01T00:00:00Z"));
+		assertEquals(1389744000000L, ZuluTime.parse("2014-01-15T00:00:00Z"));
+		assertEquals(1456790399000L, ZuluTime.parse("2016-02-29T23:59:59Z"));
+		assertEquals(1389744000L + 3599, ZuluTime.parseSeconds("2014-01-15T00:59:59Z"));
+
+		// Overflowing fields roll over as with a lenient format
+		assertEquals(ZuluTime.parse("2014-01-16T00:59:59Z"), ZuluTime.parse("2014-01-15T24:59:59Z"));
+		assertEquals(ZuluTime.parse("2015-01-01T00:00:00Z"), ZuluTime.parse("2014-13-01T00:00:00Z"));
+		assertEquals(3599, ZuluTime.secondOfDay("2014-01-15T24:59:59Z"));
+		assertEquals(59, ZuluTime.minuteOfDay("2014-01-15T24:59:59Z"));
+
+		// Non canonical input is parsed as with SimpleDateFormat
+		assertEquals(ZuluTime.parse("2014-01-05T01:02:03Z"), ZuluTime.parse("2014-1-5T1:2:3Z"));
+
+		assertEquals(1389744000000L, ZuluTime.parseDate("2014-01-15"));
+		assertEquals(1389744000000L, ZuluTime.parseDate("2014-01-15T12:50:42Z"));
+
+		try {
+			ZuluTime.parse("2014-01-15 12:50:42");
+			fail("Malformed timestamp parsed");
+		} catch (ParseException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testFields() {
+		assertEquals(20140115, ZuluTime.dateInt("2014-01-15T12:50:42Z"));
+		assertEquals(125042, ZuluTime.timeInt("2014-01-15T12:50:42Z"));
+		assertEquals(5, ZuluTime.timeInt("2014-01-15T00:00:05Z"));
+		assertEquals("2014-01-15", ZuluTime.datePart("2014-01-15T12:50:42Z"));
+		assertTrue(ZuluTime.isOnDate("2014-01-15T12:50:42Z", "2014-01-15"));
+		assertFalse(ZuluTime.isOnDate("2014-01-15T12:50:42Z", "2014-01-1"));
+		assertFalse(ZuluTime.isOnDate("2014-01-16T00:00:00Z", "2014-01-15"));
+	}
+
+	@Test
+	public void testAgainstSimpleDateFormat() throws ParseException {
+		SimpleDateFormat zulu = utcFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+		SimpleDateFormat date = utcFormat("yyyy-MM-dd");
+
+		Random rnd = new Random(42);
+		char[] buf = new char[20];
+		for (int i = 0; i < 10000; i++) {
+			long millis = (rnd.nextLong() % 4000000000000L) / 1000 * 1000;
+			String expected = zulu.format(new Date(millis));
+			assertEquals(expected, ZuluTime.format(millis));
+			assertTrue(ZuluTime.format(millis, buf, 0));
+			assertEquals(expected, new String(buf));
+			assertEquals(date.format(new Date(millis)), ZuluTime.formatDate(millis));
+			assertEquals(millis, ZuluTime.parse(expected));
+			assertEquals(date.parse(expected).getTime(), ZuluTime.parseDate(expected));
+		}
+	}
+
+}
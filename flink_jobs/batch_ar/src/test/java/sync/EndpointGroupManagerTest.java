@@ -7,6 +7,10 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeMap;
 
 import ops.ConfigManager;
 
@@ -58,4 +62,50 @@ public class EndpointGroupManagerTest {
 
 	}
 
+	private HashMap<String, String> tags(String production, String monitored) {
+		HashMap<String, String> tags = new HashMap<String, String>();
+		tags.put("production", production);
+		tags.put("monitored", monitored);
+		return tags;
+	}
+
+	@Test
+	public void testIndex() {
+		EndpointGroupManager ge = new EndpointGroupManager();
+		ge.insert("SITES", "SITE-A", "CREAM-CE", "ce.a.org", tags("1", "1"));
+		ge.insert("SITES", "SITE-B", "CREAM-CE", "ce.a.org", tags("0", "1"));
+		ge.insert("NGI", "NGI-A", "CREAM-CE", "ce.a.org", tags("1", "1"));
+		ge.insert("SITES", "SITE-A", "SRMv2", "se.a.org", tags("1", "0"));
+		ge.unfilter();
+
+		// Lookups keep the insertion order of the groups
+		assertEquals(4, ge.count());
+		assertTrue(ge.checkEndpoint("ce.a.org", "CREAM-CE"));
+		assertFalse(ge.checkEndpoint("ce.a.org", "SRMv2"));
+		assertEquals(Arrays.asList("SITE-A", "SITE-B"), ge.getGroup("SITES", "ce.a.org", "CREAM-CE"));
+		assertEquals(Arrays.asList("NGI-A"), ge.getGroup("NGI", "ce.a.org", "CREAM-CE"));
+		assertTrue(ge.getGroup("NGI", "se.a.org", "SRMv2").isEmpty());
+		assertEquals("1", ge.getGroupTags("SITES", "ce.a.org", "CREAM-CE").get("production"));
+		assertNull(ge.getGroupTags("SITES", "se.a.org", "CREAM-CE"));
+
+		Iterator<EndpointGroupManager.EndpointItem> items = ge.getGroupIter("SITE-A");
+		assertEquals("ce.a.org", items.next().getHostname());
+		assertEquals("se.a.org", items.next().getHostname());
+		assertFalse(items.hasNext());
+		assertNull(ge.getGroupIter("SITE-C"));
+
+		// Filtering (binary tags given as Y/N) rebuilds the indexes
+		TreeMap<String, String> fTags = new TreeMap<String, String>();
+		fTags.put("production", "Y");
+		fTags.put("monitored", "Y");
+		ge.filter(fTags);
+		assertEquals(2, ge.count());
+		assertEquals(Arrays.asList("SITE-A"), ge.getGroup("SITES", "ce.a.org", "CREAM-CE"));
+		assertFalse(ge.checkEndpoint("se.a.org", "SRMv2"));
+		assertNull(ge.getGroupIter("SITE-B"));
+
+		ge.unfilter();
+		assertTrue(ge.checkEndpoint("se.a.org", "SRMv2"));
+	}
+
 }
@@ -6,6 +6,8 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.TreeMap;
 
 
 import ops.ConfigManager;
@@ -61,4 +63,38 @@ public class GroupsOfGroupsTest {
 
 	}
 
+	@Test
+	public void testIndex() {
+		HashMap<String, String> production = new HashMap<String, String>();
+		production.put("infrastructure", "Production");
+		HashMap<String, String> testbed = new HashMap<String, String>();
+		testbed.put("infrastructure", "Testbed");
+
+		GroupGroupManager gg = new GroupGroupManager();
+		gg.insert("NGI", "NGI_DE", "UNI-BONN", production);
+		gg.insert("NGI", "NGI_FRANCE", "UNI-BONN", production);
+		gg.insert("PROJECT", "EGI", "UNI-BONN", production);
+		gg.insert("NGI", "NGI_FRANCE", "FR-TESTBED", testbed);
+		gg.unfilter();
+
+		// The first group of a subgroup wins
+		assertEquals("NGI_DE", gg.getGroup("NGI", "UNI-BONN"));
+		assertEquals("EGI", gg.getGroup("PROJECT", "UNI-BONN"));
+		assertNull(gg.getGroup("PROJECT", "FR-TESTBED"));
+		assertEquals("Testbed", gg.getGroupTags("NGI", "FR-TESTBED").get("infrastructure"));
+		assertTrue(gg.checkSubGroup("FR-TESTBED"));
+
+		// Filtering rebuilds the indexes
+		TreeMap<String, String> fTags = new TreeMap<String, String>();
+		fTags.put("infrastructure", "production");
+		gg.filter(fTags);
+		assertEquals(3, gg.count());
+		assertFalse(gg.checkSubGroup("FR-TESTBED"));
+		assertNull(gg.getGroupTags("NGI", "FR-TESTBED"));
+		assertEquals("NGI_DE", gg.getGroup("NGI", "UNI-BONN"));
+
+		gg.unfilter();
+		assertTrue(gg.checkSubGroup("FR-TESTBED"));
+	}
+
 }
@@ -55,4 +55,19 @@ public class WeightManagerTest {
 
 	}
 
+	@Test
+	public void testIndex() {
+		WeightManager wg = new WeightManager();
+		wg.insert("hepspec", "UNI-BONN", "100");
+		wg.insert("hepspec", "UNI-BONN", "200");
+		wg.insert("cores", "UNI-BONN", "8");
+
+		// The first weight of a group is kept
+		assertEquals(100, wg.getWeight("hepspec", "UNI-BONN"));
+		assertEquals(8, wg.getWeight("cores", "UNI-BONN"));
+		// Unlisted groups and types have zero weight
+		assertEquals(0, wg.getWeight("hepspec", "FOO"));
+		assertEquals(0, wg.getWeight("slots", "UNI-BONN"));
+	}
+
 }
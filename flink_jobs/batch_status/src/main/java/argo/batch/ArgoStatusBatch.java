@@ -20,6 +20,7 @@ import org.apache.flink.api.java.DataSet;
 import org.apache.flink.api.java.ExecutionEnvironment;
 import org.apache.flink.api.java.io.AvroInputFormat;
 import org.apache.flink.api.java.operators.DataSource;
+import org.apache.flink.api.java.tuple.Tuple4;
 
 import org.apache.flink.api.java.utils.ParameterTool;
 
@@ -113,10 +114,16 @@ public class ArgoStatusBatch {
 		// Union todays data with the latest statuses from previous day 
 		DataSet<MetricData> mdataPrevTotalDS = mdataDS.union(pdataMin);
 		
-		// Use yesterday's latest statuses and todays data to find the missing ones and add them to the mix
-		DataSet<StatusMetric> fillMissDS = mdataPrevTotalDS.reduceGroup(new FillMissing(params))
-				.withBroadcastSet(mpsDS, "mps").withBroadcastSet(egpDS, "egp").withBroadcastSet(ggpDS, "ggp")
-				.withBroadcastSet(opsDS, "ops").withBroadcastSet(cfgDS, "conf");
+		// List the metrics expected by the topology and the (distinct) metrics found in
+		// yesterday's latest statuses and todays data
+		DataSet<Tuple4<String, String, String, String>> expectedDS = egpDS.flatMap(new ListExpectedMetrics(params))
+				.withBroadcastSet(mpsDS, "mps");
+		DataSet<Tuple4<String, String, String, String>> foundDS = mdataPrevTotalDS
+				.flatMap(new ListFoundMetrics(params)).withBroadcastSet(egpDS, "egp")
+				.withBroadcastSet(ggpDS, "ggp").withBroadcastSet(cfgDS, "conf").distinct();
+		// Use the expected metrics that were not found to add the missing ones to the mix
+		DataSet<StatusMetric> fillMissDS = expectedDS.coGroup(foundDS).where(0, 1, 2, 3).equalTo(0, 1, 2, 3)
+				.with(new FillMissing(params)).withBroadcastSet(opsDS, "ops");
 		
 
 		// Discard unused data and attach endpoint group as information
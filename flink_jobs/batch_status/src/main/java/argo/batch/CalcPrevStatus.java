@@ -1,7 +1,5 @@
 package argo.batch;
 
-import java.util.List;
-
 import org.apache.flink.api.common.functions.RichGroupReduceFunction;
 
 import org.apache.flink.api.java.utils.ParameterTool;
@@ -10,10 +8,7 @@ import org.apache.flink.util.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import argo.avro.GroupEndpoint;
-import argo.avro.GroupGroup;
-
-import argo.avro.MetricProfile;
+import ops.ZuluTime;
 import sync.EndpointGroupManager;
 import sync.GroupGroupManager;
 import sync.MetricProfileManager;
@@ -31,9 +26,6 @@ public class CalcPrevStatus extends RichGroupReduceFunction<StatusMetric,StatusM
 	
 	static Logger LOG = LoggerFactory.getLogger(ArgoStatusBatch.class);
 
-	private List<MetricProfile> mps;
-	private List<GroupEndpoint> egp;
-	private List<GroupGroup> ggp;
 	private MetricProfileManager mpsMgr;
 	private EndpointGroupManager egpMgr;
 	private GroupGroupManager ggpMgr;
@@ -41,23 +33,17 @@ public class CalcPrevStatus extends RichGroupReduceFunction<StatusMetric,StatusM
 
 	@Override
 	public void open(Configuration parameters) {
-		// Get data from broadcast variable
 		this.runDate = params.getRequired("run.date");
 		
-		this.mps = getRuntimeContext().getBroadcastVariable("mps");
-		this.egp = getRuntimeContext().getBroadcastVariable("egp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize metric profile manager
-		this.mpsMgr = new MetricProfileManager();
-		this.mpsMgr.loadFromList(mps);
+		this.mpsMgr = SyncContext.metricProfiles(getRuntimeContext());
 		// Initialize endpoint group manager
-		this.egpMgr = new EndpointGroupManager();
-		this.egpMgr.loadFromList(egp);
+		this.egpMgr = SyncContext.endpointGroups(getRuntimeContext());
 
 		
 		// Initialize group group manager
-		this.ggpMgr = new GroupGroupManager();
-		this.ggpMgr.loadFromList(ggp);
+		this.ggpMgr = SyncContext.groupGroups(getRuntimeContext());
 		
 	}
 
@@ -70,7 +56,7 @@ public class CalcPrevStatus extends RichGroupReduceFunction<StatusMetric,StatusM
 		for (StatusMetric item : in){
 			// If haven't captured yet previous timestamp
 			if (!gotPrev){
-				if (item.getTimestamp().split("T")[0].compareToIgnoreCase(this.runDate) != 0) {
+				if (!ZuluTime.isOnDate(item.getTimestamp(), this.runDate)) {
 					// set prevTimestamp to this
 					prevTimestamp = item.getTimestamp();
 					prevStatus = item.getStatus();
@@ -82,7 +68,7 @@ public class CalcPrevStatus extends RichGroupReduceFunction<StatusMetric,StatusM
 			item.setPrevState(prevStatus);
 			item.setPrevTs(prevTimestamp);
 			
-			if (item.getTimestamp().split("T")[0].compareToIgnoreCase(this.runDate) == 0){
+			if (ZuluTime.isOnDate(item.getTimestamp(), this.runDate)){
 				out.collect(item);
 			}
 			
@@ -1,8 +1,6 @@
 package argo.batch;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map.Entry;
 
 import org.apache.flink.api.common.functions.RichGroupReduceFunction;
@@ -10,12 +8,13 @@ import org.apache.flink.api.java.utils.ParameterTool;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.util.Collector;
 import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ops.AggregationPlan;
 import ops.CAggregator;
 import ops.OpsManager;
+import ops.ZuluTime;
 import sync.AggregationProfileManager;
 
 /**
@@ -37,15 +36,14 @@ public class CalcStatusEndGroup extends RichGroupReduceFunction<StatusMetric, St
 
 	
 	
-	private List<String> aps;
-	private List<String> ops;
 	
 	private AggregationProfileManager apsMgr;
 	private OpsManager opsMgr;
+	private AggregationPlan plan;
 	
 
 	private String runDate;
-	public HashMap<String, CAggregator> groupEndpointAggr;
+	public CAggregator[] groupEndpointAggr;
 
 	private boolean getGroup;
 	
@@ -53,21 +51,20 @@ public class CalcStatusEndGroup extends RichGroupReduceFunction<StatusMetric, St
 	public void open(Configuration parameters) throws IOException {
 		
 		this.runDate = params.getRequired("run.date");
-		// Get data from broadcast variables
-		this.aps = getRuntimeContext().getBroadcastVariable("aps");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
 		
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize aggregation profile manager
-		this.apsMgr = new AggregationProfileManager();
-		this.apsMgr.loadJsonString(aps);
+		this.apsMgr = SyncContext.aggregationProfiles(getRuntimeContext());
 		// Initialize operations manager
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
+		
+		// Compile the aggregation plan of the first profile
+		this.plan = SyncContext.aggregationPlan(this.apsMgr, this.opsMgr);
 	
 		// Initialize endpoint group type
 		this.runDate = params.getRequired("run.date");
 		// set the Structures
-		this.groupEndpointAggr = new HashMap<String, CAggregator>();
+		this.groupEndpointAggr = new CAggregator[this.plan.getGroupCount()];
 
 		this.getGroup = true;
 	}
@@ -75,11 +72,12 @@ public class CalcStatusEndGroup extends RichGroupReduceFunction<StatusMetric, St
 	@Override
 	public void reduce(Iterable<StatusMetric> in, Collector<StatusMetric> out) throws Exception {
 
-		this.groupEndpointAggr.clear();
+		for (int i = 0; i < this.groupEndpointAggr.length; i++) {
+			this.groupEndpointAggr[i] = null;
+		}
 
 	
 		
-		String aProfile = this.apsMgr.getAvProfiles().get(0);
 		String service ="";
 		String endpointGroup ="";
 		int dateInt = Integer.parseInt(this.runDate.replace("-", ""));
@@ -100,43 +98,38 @@ public class CalcStatusEndGroup extends RichGroupReduceFunction<StatusMetric, St
 			String status = item.getStatus();
 		
 			
-			// Get the availability group
-			String group = apsMgr.getGroupByService(aProfile, service);
+			// Get the availability group id
+			int group = this.plan.getServiceGroup(service);
+			if (group < 0) continue;
 			
 			// if group doesn't exist yet create it
-			if (this.groupEndpointAggr.containsKey(group) == false) {
-				this.groupEndpointAggr.put(group, new CAggregator());
+			if (this.groupEndpointAggr[group] == null) {
+				this.groupEndpointAggr[group] = new CAggregator();
 			}
 			
-			this.groupEndpointAggr.get(group).insert(service, ts, this.opsMgr.getIntStatus(status));
+			this.groupEndpointAggr[group].insert(service, ts, this.opsMgr.getIntStatus(status));
 
 			
 
 		}
 
-		// Aggregate each group
-		for (String group : this.groupEndpointAggr.keySet()) {
-			// Get group Operation
-
-			String gop = this.apsMgr.getProfileGroupOp(aProfile, group);
-
-			this.groupEndpointAggr.get(group).aggregate(this.opsMgr, gop);
-
-		}
-		
 		// Aggregate all sites
 		CAggregator totalSite = new CAggregator();
 
-		// Aggregate each group
-		for (String group : this.groupEndpointAggr.keySet()) {
-			for (Entry<DateTime,Integer> item : this.groupEndpointAggr.get(group).getSamples()) {
-				String ts = item.getKey().toString(DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'"));
-				totalSite.insert(group,ts, item.getValue());
+		// Aggregate each group with its operation and feed it to the total
+		for (int group = 0; group < this.groupEndpointAggr.length; group++) {
+			if (this.groupEndpointAggr[group] == null) continue;
+
+			this.groupEndpointAggr[group].aggregate(this.plan, this.plan.getGroupOp(group));
+
+			for (Entry<DateTime,Integer> item : this.groupEndpointAggr[group].getSamples()) {
+				String ts = ZuluTime.format(item.getKey().getMillis());
+				totalSite.insert(this.plan.getGroupName(group),ts, item.getValue());
 			}
 
 		}
 
-		totalSite.aggregate( this.opsMgr,apsMgr.getTotalOp(aProfile));
+		totalSite.aggregate(this.plan, this.plan.getTotalOp());
 
 		// Append the timeline	
 		for (Entry<DateTime, Integer> item : totalSite.getSamples()) {
@@ -146,7 +139,7 @@ public class CalcStatusEndGroup extends RichGroupReduceFunction<StatusMetric, St
 			cur.setGroup(endpointGroup);
 			
 			
-			cur.setTimestamp(item.getKey().toString(DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")));
+			cur.setTimestamp(ZuluTime.format(item.getKey().getMillis()));
 			cur.setStatus(opsMgr.getStrStatus(item.getValue()));
 			out.collect(cur);
 		}
@@ -1,7 +1,6 @@
 package argo.batch;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.Map.Entry;
 
 import org.apache.flink.api.common.functions.RichGroupReduceFunction;
@@ -10,7 +9,6 @@ import org.apache.flink.api.java.utils.ParameterTool;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.util.Collector;
 import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,9 +16,10 @@ import com.esotericsoftware.minlog.Log;
 
 import argo.avro.GroupGroup;
 
-import argo.avro.MetricProfile;
+import ops.AggregationPlan;
 import ops.CAggregator;
 import ops.OpsManager;
+import ops.ZuluTime;
 import sync.AggregationProfileManager;
 import sync.GroupGroupManager;
 import sync.MetricProfileManager;
@@ -43,12 +42,10 @@ public class CalcStatusEndpoint extends RichGroupReduceFunction<StatusMetric, St
 
 	static Logger LOG = LoggerFactory.getLogger(ArgoStatusBatch.class);
 
-	private List<MetricProfile> mps;
-	private List<String> aps;
-	private List<String> ops;
 	private MetricProfileManager mpsMgr;
 	private AggregationProfileManager apsMgr;
 	private OpsManager opsMgr;
+	private AggregationPlan plan;
 	private String runDate;
 	private CAggregator endpointAggr;
 
@@ -58,20 +55,16 @@ public class CalcStatusEndpoint extends RichGroupReduceFunction<StatusMetric, St
 	public void open(Configuration parameters) throws IOException {
 		
 		this.runDate = params.getRequired("run.date");
-		// Get data from broadcast variables
-		this.mps = getRuntimeContext().getBroadcastVariable("mps");
-		this.aps = getRuntimeContext().getBroadcastVariable("aps");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize metric profile manager
-		this.mpsMgr = new MetricProfileManager();
-		this.mpsMgr.loadFromList(mps);
+		this.mpsMgr = SyncContext.metricProfiles(getRuntimeContext());
 		// Initialize aggregation profile manager
-		this.apsMgr = new AggregationProfileManager();
-		
-		this.apsMgr.loadJsonString(aps);
+		this.apsMgr = SyncContext.aggregationProfiles(getRuntimeContext());
 		// Initialize operations manager
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
+		
+		// Compile the aggregation plan of the first profile
+		this.plan = SyncContext.aggregationPlan(this.apsMgr, this.opsMgr);
 		
 		this.runDate = params.getRequired("run.date");
 		this.endpointAggr = new CAggregator(); // Create aggregator
@@ -93,8 +86,6 @@ public class CalcStatusEndpoint extends RichGroupReduceFunction<StatusMetric, St
 		int defMissing = this.opsMgr.getDefaultMissingInt();
 		// Iterate all metric names of profile and initiate timelines
 
-		String aprofile = this.apsMgr.getAvProfiles().get(0);
-
 		String service ="";
 		String endpointGroup ="";
 		String hostname ="";
@@ -143,7 +134,7 @@ public class CalcStatusEndpoint extends RichGroupReduceFunction<StatusMetric, St
 
 		}
 
-		this.endpointAggr.aggregate(this.opsMgr, this.apsMgr.getMetricOp(aprofile));
+		this.endpointAggr.aggregate(this.plan, this.plan.getMetricOp());
 
 		// Append the timeline
 		
@@ -158,7 +149,7 @@ public class CalcStatusEndpoint extends RichGroupReduceFunction<StatusMetric, St
 			cur.setService(service);
 			
 			
-			cur.setTimestamp(item.getKey().toString(DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")));
+			cur.setTimestamp(ZuluTime.format(item.getKey().getMillis()));
 			cur.setStatus(opsMgr.getStrStatus(item.getValue()));
 			out.collect(cur);
 		}
@@ -2,7 +2,6 @@ package argo.batch;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Map.Entry;
 
 import org.apache.flink.api.common.functions.RichGroupReduceFunction;
@@ -11,7 +10,6 @@ import org.apache.flink.api.java.utils.ParameterTool;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.util.Collector;
 import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormat;
 import org.mortbay.log.Log;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,8 +18,10 @@ import argo.avro.GroupEndpoint;
 import argo.avro.GroupGroup;
 
 import argo.avro.MetricProfile;
+import ops.AggregationPlan;
 import ops.CAggregator;
 import ops.OpsManager;
+import ops.ZuluTime;
 import sync.AggregationProfileManager;
 import sync.GroupGroupManager;
 import sync.MetricProfileManager;
@@ -46,38 +46,32 @@ public class CalcStatusService extends RichGroupReduceFunction<StatusMetric, Sta
 
 	
 	
-	private List<String> aps;
-	private List<String> ops;
 	
 	private AggregationProfileManager apsMgr;
 	private OpsManager opsMgr;
+	private AggregationPlan plan;
 	
 
 	private String runDate;
 	private CAggregator serviceAggr;
-
-	private boolean getService;
 	
 	@Override
 	public void open(Configuration parameters) throws IOException {
 		
 		this.runDate = params.getRequired("run.date");
-		// Get data from broadcast variables
-		this.aps = getRuntimeContext().getBroadcastVariable("aps");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
 		
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize aggregation profile manager
-		this.apsMgr = new AggregationProfileManager();
-		this.apsMgr.loadJsonString(aps);
+		this.apsMgr = SyncContext.aggregationProfiles(getRuntimeContext());
 		// Initialize operations manager
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
+		
+		// Compile the aggregation plan of the first profile
+		this.plan = SyncContext.aggregationPlan(this.apsMgr, this.opsMgr);
 	
 		// Initialize endpoint group type
 		this.runDate = params.getRequired("run.date");
 		this.serviceAggr = new CAggregator(); // Create aggregator
-
-		this.getService = true;
 	}
 
 	@Override
@@ -85,26 +79,12 @@ public class CalcStatusService extends RichGroupReduceFunction<StatusMetric, Sta
 
 		this.serviceAggr.clear();
 
-		String aProfile = this.apsMgr.getAvProfiles().get(0);
-		String avGroup = "";
 		String service ="";
 		String endpointGroup ="";
 		int dateInt = Integer.parseInt(this.runDate.replace("-", ""));
 
 		
 		for (StatusMetric item : in) {
-						
-			if (getService){
-				
-				service = item.getService();
-
-				// Get the availability Group in which this service belongs
-				avGroup = this.apsMgr.getGroupByService(aProfile, service);			
-				
-				getService =false;
-					
-			}
-	
 			
 			service = item.getService();
 			endpointGroup = item.getGroup();
@@ -117,11 +97,8 @@ public class CalcStatusService extends RichGroupReduceFunction<StatusMetric, Sta
 			
 		}
 
-		
-		avGroup = this.apsMgr.getGroupByService(aProfile, service);
-		String avOp = this.apsMgr.getProfileGroupServiceOp(aProfile, avGroup, service);
-		
-		this.serviceAggr.aggregate(this.opsMgr, avOp);
+		// Get the service operation from the aggregation plan
+		this.serviceAggr.aggregate(this.plan, this.plan.getServiceOp(service));
 
 		// Append the timeline	
 		for (Entry<DateTime, Integer> item : this.serviceAggr.getSamples()) {
@@ -132,7 +109,7 @@ public class CalcStatusService extends RichGroupReduceFunction<StatusMetric, Sta
 			cur.setService(service);
 			
 			
-			cur.setTimestamp(item.getKey().toString(DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")));
+			cur.setTimestamp(ZuluTime.format(item.getKey().getMillis()));
 			cur.setStatus(opsMgr.getStrStatus(item.getValue()));
 			out.collect(cur);
 		}
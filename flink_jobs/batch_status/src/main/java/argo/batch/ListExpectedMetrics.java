@@ -0,0 +1,76 @@
+package argo.batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.apache.flink.api.common.functions.RichFlatMapFunction;
+import org.apache.flink.api.java.tuple.Tuple4;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.util.Collector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import argo.avro.GroupEndpoint;
+import sync.MetricProfileManager;
+
+/**
+ * Accepts an endpoint group topology entry and produces the service endpoint
+ * metrics that are expected to be found for it according to the metric profile
+ * (as tuple objects (endpoint_group,service,hostname,metric))
+ */
+public class ListExpectedMetrics extends RichFlatMapFunction<GroupEndpoint, Tuple4<String, String, String, String>> {
+
+	private static final long serialVersionUID = 1L;
+
+	final ParameterTool params;
+
+	public ListExpectedMetrics(ParameterTool params) {
+		this.params = params;
+	}
+
+	static Logger LOG = LoggerFactory.getLogger(ArgoStatusBatch.class);
+
+	private MetricProfileManager mpsMgr;
+	private String mProfile;
+
+	/**
+	 * Initialization method of the RichFlatMapFunction operator
+	 * <p>
+	 * This runs at the initialization of the operator and receives a
+	 * configuration parameter object. It initializes the metric profile
+	 * manager used by this operator
+	 *
+	 * @param parameters
+	 *            A flink Configuration object
+	 */
+	@Override
+	public void open(Configuration parameters) throws IOException {
+		// Initialize metric profile manager
+		this.mpsMgr = SyncContext.metricProfiles(getRuntimeContext());
+		this.mProfile = this.mpsMgr.getProfiles().get(0);
+	}
+
+	/**
+	 * Produces a tuple for each metric of the profile that belongs to the
+	 * service of the topology entry
+	 *
+	 * @param servPoint
+	 *            An endpoint group topology entry
+	 * @param out
+	 *            A Collector list of expected (endpoint_group,service,hostname,metric) tuples
+	 */
+	@Override
+	public void flatMap(GroupEndpoint servPoint, Collector<Tuple4<String, String, String, String>> out)
+			throws Exception {
+
+		ArrayList<String> metrics = this.mpsMgr.getProfileServiceMetrics(this.mProfile, servPoint.getService());
+
+		if (metrics == null) return;
+		for (String metric : metrics) {
+			out.collect(new Tuple4<String, String, String, String>(servPoint.getGroup(), servPoint.getService(),
+					servPoint.getHostname(), metric));
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package argo.batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.apache.flink.api.common.functions.RichFlatMapFunction;
+import org.apache.flink.api.java.tuple.Tuple4;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.util.Collector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import argo.avro.MetricData;
+import ops.ConfigManager;
+import sync.EndpointGroupManager;
+import sync.GroupGroupManager;
+
+/**
+ * Accepts a metric data entry and produces the service endpoint metrics it was
+ * encountered as, one for each endpoint group of the endpoint that belongs to
+ * a valid upper group (as tuple objects (endpoint_group,service,hostname,metric))
+ */
+public class ListFoundMetrics extends RichFlatMapFunction<MetricData, Tuple4<String, String, String, String>> {
+
+	private static final long serialVersionUID = 1L;
+
+	final ParameterTool params;
+
+	public ListFoundMetrics(ParameterTool params) {
+		this.params = params;
+	}
+
+	static Logger LOG = LoggerFactory.getLogger(ArgoStatusBatch.class);
+
+	private EndpointGroupManager egpMgr;
+	private GroupGroupManager ggpMgr;
+	private ConfigManager confMgr;
+	private String egroupType;
+
+	/**
+	 * Initialization method of the RichFlatMapFunction operator
+	 * <p>
+	 * This runs at the initialization of the operator and receives a
+	 * configuration parameter object. It initializes the topology managers used
+	 * by this operator
+	 *
+	 * @param parameters
+	 *            A flink Configuration object
+	 */
+	@Override
+	public void open(Configuration parameters) throws IOException {
+		// Initialize endpoint group manager
+		this.egpMgr = SyncContext.endpointGroups(getRuntimeContext());
+
+		this.ggpMgr = SyncContext.groupGroups(getRuntimeContext());
+
+		this.confMgr = SyncContext.config(getRuntimeContext());
+		this.egroupType = this.confMgr.egroup;
+	}
+
+	/**
+	 * Produces a tuple for each endpoint group of the metric data entry
+	 *
+	 * @param item
+	 *            A metric data entry
+	 * @param out
+	 *            A Collector list of found (endpoint_group,service,hostname,metric) tuples
+	 */
+	@Override
+	public void flatMap(MetricData item, Collector<Tuple4<String, String, String, String>> out) throws Exception {
+
+		String service = item.getService();
+		String hostname = item.getHostname();
+		String metric = item.getMetric();
+
+		// Filter By endpoint group if belongs to supergroup
+		ArrayList<String> groupnames = egpMgr.getGroup(egroupType, hostname, service);
+
+		for (String groupname : groupnames) {
+			if (ggpMgr.checkSubGroup(groupname) == true) {
+				out.collect(new Tuple4<String, String, String, String>(groupname, service, hostname, metric));
+			}
+		}
+	}
+
+}
@@ -3,7 +3,6 @@ package argo.batch;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.flink.api.common.functions.RichFilterFunction;
@@ -17,13 +16,11 @@ import org.slf4j.LoggerFactory;
 
 import com.esotericsoftware.minlog.Log;
 
-import argo.avro.GroupEndpoint;
-import argo.avro.GroupGroup;
 import argo.avro.MetricData;
-import argo.avro.MetricProfile;
 import ops.ConfigManager;
 import ops.OpsManager;
 import ops.ThresholdManager;
+import ops.ZuluTime;
 import sync.AggregationProfileManager;
 import sync.EndpointGroupManager;
 import sync.GroupGroupManager;
@@ -47,14 +44,6 @@ public class PickEndpoints extends RichFlatMapFunction<MetricData,StatusMetric>
 	
 	static Logger LOG = LoggerFactory.getLogger(ArgoStatusBatch.class);
 
-	private List<MetricProfile> mps;
-	private List<GroupEndpoint> egp;
-	private List<GroupGroup> ggp;
-	private List<String> rec;
-	private List<String> cfg;
-	private List<String> thr;
-	private List<String> ops;
-	private List<String> aps;
 	private OpsManager opsMgr;
 	private MetricProfileManager mpsMgr;
 	private EndpointGroupManager egpMgr;
@@ -68,51 +57,30 @@ public class PickEndpoints extends RichFlatMapFunction<MetricData,StatusMetric>
 
 	@Override
 	public void open(Configuration parameters) throws IOException, ParseException {
-		// Get data from broadcast variable
-		this.mps = getRuntimeContext().getBroadcastVariable("mps");
-		this.egp = getRuntimeContext().getBroadcastVariable("egp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
-		this.ggp = getRuntimeContext().getBroadcastVariable("ggp");
-		this.rec = getRuntimeContext().getBroadcastVariable("rec");
-		this.cfg = getRuntimeContext().getBroadcastVariable("conf");
-		this.thr = getRuntimeContext().getBroadcastVariable("thr");
-		this.ops = getRuntimeContext().getBroadcastVariable("ops");
-		this.aps = getRuntimeContext().getBroadcastVariable("aps");
-		
-		
+		// Managers are built once per task manager and shared (read only) between operators
 		// Initialize Recomputation manager
-		this.recMgr = new RecomputationsManager();
-		this.recMgr.loadJsonString(rec);
+		this.recMgr = SyncContext.recomputations(getRuntimeContext());
 		
 		// Initialize metric profile manager
-		this.mpsMgr = new MetricProfileManager();
-		this.mpsMgr.loadFromList(mps);
+		this.mpsMgr = SyncContext.metricProfiles(getRuntimeContext());
 		// Initialize endpoint group manager
-		this.egpMgr = new EndpointGroupManager();
-		this.egpMgr.loadFromList(egp);
+		this.egpMgr = SyncContext.endpointGroups(getRuntimeContext());
 		
-		this.ggpMgr = new GroupGroupManager();
-		this.ggpMgr.loadFromList(ggp);
+		this.ggpMgr = SyncContext.groupGroups(getRuntimeContext());
 		
 		// Initialize report configuration manager
-		this.cfgMgr = new ConfigManager();
-		this.cfgMgr.loadJsonString(cfg);
+		this.cfgMgr = SyncContext.config(getRuntimeContext());
 		
 		// Initialize Ops Manager
-		this.opsMgr = new OpsManager();
-		this.opsMgr.loadJsonString(ops);
+		this.opsMgr = SyncContext.operations(getRuntimeContext());
 		
 		// Initialize Aggregation Profile manager
-		this.apsMgr = new AggregationProfileManager();
-		this.apsMgr.loadJsonString(aps);
+		this.apsMgr = SyncContext.aggregationProfiles(getRuntimeContext());
 		
 		this.egroupType = cfgMgr.egroup;
 		
 		// Initialize Threshold manager
-		this.thrMgr = new ThresholdManager();
-		if (!this.thr.get(0).isEmpty()){
-			this.thrMgr.parseJSON(this.thr.get(0));
-		}
+		this.thrMgr = SyncContext.thresholds(getRuntimeContext());
 		
 		
 	}
@@ -148,10 +116,8 @@ public class PickEndpoints extends RichFlatMapFunction<MetricData,StatusMetric>
 		for (String groupname : groupnames) {
 			if (ggpMgr.checkSubGroup(groupname) == true){
 				// Create a StatusMetric output
-				String timestamp2 = md.getTimestamp().split("Z")[0];
-				String[] tsToken = timestamp2.split("T");
-				int dateInt = Integer.parseInt(tsToken[0].replace("-", ""));
-				int timeInt = Integer.parseInt(tsToken[1].replace(":",""));
+				int dateInt = ZuluTime.dateInt(md.getTimestamp());
+				int timeInt = ZuluTime.timeInt(md.getTimestamp());
 				String status = md.getStatus();
 				String actualData = md.getActualData();
 				String ogStatus = "";
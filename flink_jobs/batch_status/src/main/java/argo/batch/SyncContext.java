@@ -0,0 +1,247 @@
+package argo.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.flink.api.common.functions.BroadcastVariableInitializer;
+import org.apache.flink.api.common.functions.RuntimeContext;
+
+import argo.avro.GroupEndpoint;
+import argo.avro.GroupGroup;
+import argo.avro.MetricProfile;
+import ops.AggregationPlan;
+import ops.ConfigManager;
+import ops.OpsManager;
+import ops.ThresholdManager;
+import sync.AggregationProfileManager;
+import sync.EndpointGroupManager;
+import sync.GroupGroupManager;
+import sync.MetricProfileManager;
+import sync.RecomputationsManager;
+
+/**
+ * SyncContext builds the sync data managers of the job out of their broadcast
+ * variables and shares them between the operators of a task manager.
+ * <p>
+ * Each manager is built by a broadcast variable initializer, so it is built
+ * once for all the parallel instances of an operator. Built managers are also
+ * kept in a cache keyed by the contents of the broadcast variable, so the other
+ * operators that receive the same data get the same manager instead of building
+ * their own. Shared managers must be treated as read only.
+ */
+public class SyncContext {
+
+	/**
+	 * Builds a manager out of the items of a broadcast variable
+	 */
+	private interface Loader<T> {
+		Object load(List<T> items) throws Exception;
+	}
+
+	/**
+	 * The items of a broadcast variable and the manager built out of them
+	 */
+	private static class Synced {
+		final int hash;
+		final List<?> items;
+		final Object manager;
+
+		Synced(int hash, List<?> items, Object manager) {
+			this.hash = hash;
+			this.items = items;
+			this.manager = manager;
+		}
+	}
+
+	// Last manager built of each kind (a new content replaces the old one)
+	private static final HashMap<String, Synced> CACHE = new HashMap<String, Synced>();
+
+	// Last aggregation plan compiled and the managers it was compiled from
+	private static AggregationProfileManager planAps;
+	private static OpsManager planOps;
+	private static AggregationPlan plan;
+
+	private static final Loader<MetricProfile> MPS = new Loader<MetricProfile>() {
+		@Override
+		public Object load(List<MetricProfile> items) {
+			MetricProfileManager mgr = new MetricProfileManager();
+			mgr.loadFromList(items);
+			return mgr;
+		}
+	};
+
+	private static final Loader<GroupEndpoint> EGP = new Loader<GroupEndpoint>() {
+		@Override
+		public Object load(List<GroupEndpoint> items) {
+			EndpointGroupManager mgr = new EndpointGroupManager();
+			mgr.loadFromList(items);
+			return mgr;
+		}
+	};
+
+	private static final Loader<GroupGroup> GGP = new Loader<GroupGroup>() {
+		@Override
+		public Object load(List<GroupGroup> items) {
+			GroupGroupManager mgr = new GroupGroupManager();
+			mgr.loadFromList(items);
+			return mgr;
+		}
+	};
+
+	private static final Loader<String> APS = new Loader<String>() {
+		@Override
+		public Object load(List<String> items) throws Exception {
+			AggregationProfileManager mgr = new AggregationProfileManager();
+			mgr.loadJsonString(items);
+			return mgr;
+		}
+	};
+
+	private static final Loader<String> OPS = new Loader<String>() {
+		@Override
+		public Object load(List<String> items) {
+			OpsManager mgr = new OpsManager();
+			mgr.loadJsonString(items);
+			return mgr;
+		}
+	};
+
+	private static final Loader<String> REC = new Loader<String>() {
+		@Override
+		public Object load(List<String> items) throws Exception {
+			RecomputationsManager mgr = new RecomputationsManager();
+			mgr.loadJsonString(items);
+			return mgr;
+		}
+	};
+
+	private static final Loader<String> CONF = new Loader<String>() {
+		@Override
+		public Object load(List<String> items) {
+			ConfigManager mgr = new ConfigManager();
+			mgr.loadJsonString(items);
+			return mgr;
+		}
+	};
+
+	private static final Loader<String> THR = new Loader<String>() {
+		@Override
+		public Object load(List<String> items) {
+			ThresholdManager mgr = new ThresholdManager();
+			if (!items.get(0).isEmpty()) {
+				mgr.parseJSON(items.get(0));
+			}
+			return mgr;
+		}
+	};
+
+	private SyncContext() {
+	}
+
+	/**
+	 * Returns the metric profile manager of the "mps" broadcast variable
+	 */
+	public static MetricProfileManager metricProfiles(RuntimeContext ctx) {
+		return (MetricProfileManager) sync(ctx, "mps", "mps", MPS).manager;
+	}
+
+	/**
+	 * Returns the endpoint group manager of the "egp" broadcast variable
+	 */
+	public static EndpointGroupManager endpointGroups(RuntimeContext ctx) {
+		return (EndpointGroupManager) sync(ctx, "egp", "egp", EGP).manager;
+	}
+
+	/**
+	 * Returns the group of groups manager of the "ggp" broadcast variable
+	 */
+	public static GroupGroupManager groupGroups(RuntimeContext ctx) {
+		return (GroupGroupManager) sync(ctx, "ggp", "ggp", GGP).manager;
+	}
+
+	/**
+	 * Returns the aggregation profile manager of the "aps" broadcast variable
+	 */
+	public static AggregationProfileManager aggregationProfiles(RuntimeContext ctx) {
+		return (AggregationProfileManager) sync(ctx, "aps", "aps", APS).manager;
+	}
+
+	/**
+	 * Returns the operations manager of the "ops" broadcast variable
+	 */
+	public static OpsManager operations(RuntimeContext ctx) {
+		return (OpsManager) sync(ctx, "ops", "ops", OPS).manager;
+	}
+
+	/**
+	 * Returns the recomputation manager of the "rec" broadcast variable
+	 */
+	public static RecomputationsManager recomputations(RuntimeContext ctx) {
+		return (RecomputationsManager) sync(ctx, "rec", "rec", REC).manager;
+	}
+
+	/**
+	 * Returns the configuration manager of the "conf" broadcast variable
+	 */
+	public static ConfigManager config(RuntimeContext ctx) {
+		return (ConfigManager) sync(ctx, "conf", "conf", CONF).manager;
+	}
+
+	/**
+	 * Returns the threshold manager of the "thr" broadcast variable
+	 */
+	public static ThresholdManager thresholds(RuntimeContext ctx) {
+		return (ThresholdManager) sync(ctx, "thr", "thr", THR).manager;
+	}
+
+	/**
+	 * Returns the aggregation plan of the first aggregation profile, compiled
+	 * once for each pair of shared managers
+	 */
+	public static synchronized AggregationPlan aggregationPlan(AggregationProfileManager apsMgr, OpsManager opsMgr) {
+		if (plan == null || planAps != apsMgr || planOps != opsMgr) {
+			plan = new AggregationPlan(apsMgr, apsMgr.getAvProfiles().get(0), opsMgr);
+			planAps = apsMgr;
+			planOps = opsMgr;
+		}
+		return plan;
+	}
+
+	/**
+	 * Gets a broadcast variable through an initializer that looks up (or builds)
+	 * its manager in the cache. Flink runs the initializer once per operator and
+	 * hands the result to all of its parallel instances
+	 */
+	private static <T> Synced sync(RuntimeContext ctx, String name, final String kind, final Loader<T> loader) {
+		return ctx.getBroadcastVariableWithInitializer(name, new BroadcastVariableInitializer<T, Synced>() {
+			@Override
+			public Synced initializeBroadcastVariable(Iterable<T> data) {
+				ArrayList<T> items = new ArrayList<T>();
+				for (T item : data) {
+					items.add(item);
+				}
+				return cached(kind, items, loader);
+			}
+		});
+	}
+
+	private static synchronized <T> Synced cached(String kind, List<T> items, Loader<T> loader) {
+		// Reuse the last manager of this kind if it was built out of the same items
+		int hash = items.hashCode();
+		Synced synced = CACHE.get(kind);
+		if (synced != null && synced.hash == hash && synced.items.equals(items)) {
+			return synced;
+		}
+
+		try {
+			synced = new Synced(hash, Collections.unmodifiableList(items), loader.load(items));
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to load broadcast variable of " + kind, e);
+		}
+		CACHE.put(kind, synced);
+		return synced;
+	}
+
+}
@@ -8,8 +8,6 @@ import java.util.Set;
 
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
 
 public class CAggregator {
 	
@@ -34,11 +32,7 @@ public class CAggregator {
 	}
 	
 	public String tsFromDate(String date){
-		DateTime tmp_date = new DateTime();
-		DateTimeFormatter fmt = DateTimeFormat.forPattern("yyyy-MM-dd");
-		tmp_date = fmt.parseDateTime(date);
-        tmp_date = tmp_date.withTime(0, 0, 0, 0);
-        return tmp_date.toString(DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'"));
+		return ZuluTime.format(CTimeline.toMidnight(date).getMillis());
 	}
 	
 	public void createTimeline(String name, String timestamp, int prevState){
@@ -95,4 +89,14 @@ public class CAggregator {
 		}
 		
 	}
+	
+	public void aggregate(AggregationPlan plan, int op){
+		this.output.clear();
+		
+		//Iterate through all available input timelines and aggregate using the precompiled plan
+		for (CTimeline item : this.inputs.values()) {
+			this.output.aggregate(item, plan, op);
+		}
+		
+	}
 }
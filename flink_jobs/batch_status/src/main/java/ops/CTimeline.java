@@ -1,14 +1,14 @@
 package ops;
 
 
+import java.text.ParseException;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,30 +32,42 @@ public class CTimeline {
 	}
 	
 	CTimeline(String timestamp){
-		DateTime tmp_date = new DateTime();
-		DateTimeFormatter fmt = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
-		tmp_date = fmt.parseDateTime(timestamp);
-		tmp_date.withTime(0, 0, 0, 0);
-		this.date = tmp_date.toLocalDate();
+		this.date = new LocalDate(toDateTime(timestamp).getMillis(), DateTimeZone.UTC);
 		this.samples = new TreeMap<DateTime,Integer>();
 	}
 	
 	CTimeline(String timestamp, int state){
-		DateTime tmp_date = new DateTime();
-		DateTimeFormatter fmt = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
-		tmp_date = fmt.parseDateTime(timestamp);
-		tmp_date = tmp_date.withTime(0, 0, 0, 0);
-		this.date = tmp_date.toLocalDate();
+		DateTime tmp_date = toMidnight(timestamp);
+		this.date = new LocalDate(tmp_date.getMillis(), DateTimeZone.UTC);
 		this.samples = new TreeMap<DateTime,Integer>();
 		this.samples.put(tmp_date, state);
 		
 	}
 	
+	/**
+	 * Parses a zulu timestamp to a point of the timeline (points are in UTC)
+	 */
+	static DateTime toDateTime(String timestamp) {
+		try {
+			return new DateTime(ZuluTime.parse(timestamp), DateTimeZone.UTC);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException("Invalid timestamp: " + timestamp, e);
+		}
+	}
+
+	/**
+	 * Returns the point at the beginning of the day of a zulu timestamp
+	 */
+	static DateTime toMidnight(String timestamp) {
+		try {
+			return new DateTime(ZuluTime.parseDate(timestamp), DateTimeZone.UTC);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException("Invalid timestamp: " + timestamp, e);
+		}
+	}
+
 	public int get(String timestamp) {
-		DateTime tmp_date = new DateTime();
-		DateTimeFormatter fmt = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
-		tmp_date = fmt.parseDateTime(timestamp);
-		return this.samples.floorEntry(tmp_date).getValue();
+		return this.samples.floorEntry(toDateTime(timestamp)).getValue();
 	}
 	
 	public int get(DateTime point) {
@@ -69,10 +81,7 @@ public class CTimeline {
 	public void insert(String timestamp, int status) 
 	{
 
-		DateTime tmp_date = new DateTime();
-		DateTimeFormatter fmt = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
-		tmp_date = fmt.parseDateTime(timestamp);
-		this.samples.put(tmp_date, status);
+		this.samples.put(toDateTime(timestamp), status);
 	}
 	
 	public void insert(DateTime date, int status) 
@@ -83,12 +92,8 @@ public class CTimeline {
 	
 	public void setFirst(String timestamp, int state)
 	{
-		DateTime tmp_date = new DateTime();
-		DateTimeFormatter fmt = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
-		tmp_date = fmt.parseDateTime(timestamp);
 		this.samples = new TreeMap<DateTime,Integer>();
-		tmp_date = tmp_date.withTime(0, 0, 0, 0);
-		this.samples.put(tmp_date, state);
+		this.samples.put(toMidnight(timestamp), state);
 	}
 	
 	public void clear(){
@@ -144,6 +149,18 @@ public class CTimeline {
 	}
 	
 	public void aggregate(CTimeline second, OpsManager opsMgr, int op){
+		aggregate(second, op, opsMgr, null);
+	}
+	
+	/**
+	 * Aggregates with an already resolved operation of a precompiled aggregation
+	 * plan (the plan's truth table is used instead of the operations manager)
+	 */
+	public void aggregate(CTimeline second, AggregationPlan plan, int op){
+		aggregate(second, op, null, plan);
+	}
+	
+	private void aggregate(CTimeline second, int op, OpsManager opsMgr, AggregationPlan plan){
 		if (this.isEmpty()){
 			this.bulkInsert(second.getSamples());
 			// Optimize even when we have a single timeline for aggregation
@@ -162,11 +179,11 @@ public class CTimeline {
 			result.insert(point, -1);
 		}
 		
-		// Iterate over result and ask
+		// Iterate over result and ask (the plan's truth table if given)
 		for (DateTime point : result.getPoints()){
 			int a = this.get(point);
 			int b = second.get(point);
-			int x = opsMgr.opInt(op, a, b);
+			int x = plan != null ? plan.op(op, a, b) : opsMgr.opInt(op, a, b);
 			result.insert(point, x);
 		}
 		
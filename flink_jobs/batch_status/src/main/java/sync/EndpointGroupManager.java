@@ -4,6 +4,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -30,7 +32,12 @@ public class EndpointGroupManager {
 	private ArrayList<EndpointItem> list;
 	private ArrayList<EndpointItem> fList;
 
-	private class EndpointItem {
+	// Indexes of the filtered items, rebuilt on every filter/unfilter
+	private HashMap<String, ArrayList<EndpointItem>> endpointIndex; // type|hostname|service
+	private HashMap<String, ArrayList<EndpointItem>> groupIndex; // group
+	private HashSet<String> endpoints; // hostname|service
+
+	public class EndpointItem {
 		String type; // type of group
 		String group; // name of the group
 		String service; // type of the service
@@ -55,11 +62,19 @@ public class EndpointGroupManager {
 
 		}
 
+		public String getType() { return type; }
+		public String getGroup() { return group; }
+		public String getService() { return service; }
+		public String getHostname() { return hostname; }
+
 	}
 
 	public EndpointGroupManager() {
 		this.list = new ArrayList<EndpointItem>();
 		this.fList = new ArrayList<EndpointItem>();
+		this.endpointIndex = new HashMap<String, ArrayList<EndpointItem>>();
+		this.groupIndex = new HashMap<String, ArrayList<EndpointItem>>();
+		this.endpoints = new HashSet<String>();
 
 	}
 
@@ -70,22 +85,16 @@ public class EndpointGroupManager {
 	}
 
 	public boolean checkEndpoint(String hostname, String service) {
-
-		for (EndpointItem item : fList) {
-			if (item.hostname.equals(hostname) && item.service.equals(service)) {
-				return true;
-			}
-		}
-
-		return false;
+		return this.endpoints.contains(hostname + "|" + service);
 	}
 
 	public ArrayList<String> getGroup(String type, String hostname, String service) {
 		
 		ArrayList<String> results = new ArrayList<String>();
 		
-		for (EndpointItem item : fList) {
-			if (item.type.equals(type) && item.hostname.equals(hostname) && item.service.equals(service)) {
+		ArrayList<EndpointItem> items = this.endpointIndex.get(type + "|" + hostname + "|" + service);
+		if (items != null) {
+			for (EndpointItem item : items) {
 				results.add(item.group);
 			}
 		}
@@ -95,10 +104,22 @@ public class EndpointGroupManager {
 
 	public HashMap<String, String> getGroupTags(String type, String hostname, String service) {
 
-		for (EndpointItem item : fList) {
-			if (item.type.equals(type) && item.hostname.equals(hostname) && item.service.equals(service)) {
-				return item.tags;
-			}
+		ArrayList<EndpointItem> items = this.endpointIndex.get(type + "|" + hostname + "|" + service);
+		if (items != null) {
+			return items.get(0).tags;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns an iterator over the (filtered) endpoints of a group or null if the
+	 * group has no endpoints
+	 */
+	public Iterator<EndpointItem> getGroupIter(String group) {
+		ArrayList<EndpointItem> items = this.groupIndex.get(group);
+		if (items != null) {
+			return items.iterator();
 		}
 
 		return null;
@@ -113,33 +134,32 @@ public class EndpointGroupManager {
 		for (EndpointItem item : this.list) {
 			this.fList.add(item);
 		}
+		this.index();
 	}
 
 	public void filter(TreeMap<String, String> fTags) {
 		this.fList.clear();
-		boolean trim;
+
+		// Binary tag values (Y/N) are matched as 1/0
+		HashMap<String, String> fValues = new HashMap<String, String>();
+		for (Entry<String, String> fTagItem : fTags.entrySet()) {
+			String value = fTagItem.getValue();
+			if (value.equalsIgnoreCase("y")) {
+				value = "1";
+			} else if (value.equalsIgnoreCase("n")) {
+				value = "0";
+			}
+			fValues.put(fTagItem.getKey(), value);
+		}
+
 		for (EndpointItem item : this.list) {
-			trim = false;
+			boolean trim = false;
 			HashMap<String, String> itemTags = item.tags;
-			for (Entry<String, String> fTagItem : fTags.entrySet()) {
-
-				if (itemTags.containsKey(fTagItem.getKey())) {
-					// First Check binary tags as Y/N 0/1
-
-					if (fTagItem.getValue().equalsIgnoreCase("y") || fTagItem.getValue().equalsIgnoreCase("n")) {
-						String binValue = "";
-						if (fTagItem.getValue().equalsIgnoreCase("y"))
-							binValue = "1";
-						if (fTagItem.getValue().equalsIgnoreCase("n"))
-							binValue = "0";
-
-						if (itemTags.get(fTagItem.getKey()).equalsIgnoreCase(binValue) == false) {
-							trim = true;
-						}
-					} else if (itemTags.get(fTagItem.getKey()).equalsIgnoreCase(fTagItem.getValue()) == false) {
-						trim = true;
-					}
-
+			for (Entry<String, String> fValue : fValues.entrySet()) {
+				String itemValue = itemTags.get(fValue.getKey());
+				if (itemValue != null && itemValue.equalsIgnoreCase(fValue.getValue()) == false) {
+					trim = true;
+					break;
 				}
 			}
 
@@ -147,6 +167,36 @@ public class EndpointGroupManager {
 				fList.add(item);
 			}
 		}
+		this.index();
+	}
+
+	/**
+	 * Rebuilds the lookup indexes out of the filtered items (items keep their
+	 * list order inside each index entry)
+	 */
+	private void index() {
+		this.endpointIndex.clear();
+		this.groupIndex.clear();
+		this.endpoints.clear();
+		for (EndpointItem item : this.fList) {
+			String key = item.type + "|" + item.hostname + "|" + item.service;
+			ArrayList<EndpointItem> items = this.endpointIndex.get(key);
+			if (items == null) {
+				items = new ArrayList<EndpointItem>();
+				this.endpointIndex.put(key, items);
+			}
+			items.add(item);
+
+			// Add item to the secondary group index
+			items = this.groupIndex.get(item.group);
+			if (items == null) {
+				items = new ArrayList<EndpointItem>();
+				this.groupIndex.put(item.group, items);
+			}
+			items.add(item);
+
+			this.endpoints.add(item.hostname + "|" + item.service);
+		}
 	}
 
 	/**
@@ -9,7 +9,6 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -22,6 +21,8 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
+import ops.ZuluTime;
+
 public class RecomputationsManager {
 
 	private static final Logger LOG = Logger.getLogger(RecomputationsManager.class.getName());
@@ -60,10 +61,9 @@ public class RecomputationsManager {
 	public void insertMon(String monHost, String start, String end) throws ParseException {
 		
 		Map<String,Date>temp = new HashMap<String,Date>();
-		SimpleDateFormat tsW3C = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
 		
-		temp.put("s", tsW3C.parse(start));
-		temp.put("e",tsW3C.parse(end));
+		temp.put("s", new Date(ZuluTime.parse(start)));
+		temp.put("e", new Date(ZuluTime.parse(end)));
 		
 		if (this.monEngines.containsKey(monHost) == false){
 			this.monEngines.put(monHost, new ArrayList<Map<String,Date>>());
@@ -83,12 +83,11 @@ public class RecomputationsManager {
 	// Check if a recomputation period is valid for target date
 	public boolean validPeriod(String target, String start, String end) throws ParseException {
 
-		SimpleDateFormat dmy = new SimpleDateFormat("yyyy-MM-dd");
-		Date tDate = dmy.parse(target);
-		Date sDate = dmy.parse(start);
-		Date eDate = dmy.parse(end);
+		long tDate = ZuluTime.parseDate(target);
+		long sDate = ZuluTime.parseDate(start);
+		long eDate = ZuluTime.parseDate(end);
 
-		return (tDate.compareTo(sDate) >= 0 && tDate.compareTo(eDate) <= 0);
+		return (tDate >= sDate && tDate <= eDate);
 
 	}
 
@@ -114,12 +113,11 @@ public class RecomputationsManager {
 		{
 			return false;
 		}
-		SimpleDateFormat tsW3C = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-		Date targetDate = tsW3C.parse(inputTs);
+		long targetDate = ZuluTime.parse(inputTs);
 		for (Map<String, Date> item : this.monEngines.get(monHost))
 		{
 		
-			if  (!(targetDate.before(item.get("s")) || targetDate.after(item.get("e")))) {
+			if  (!(targetDate < item.get("s").getTime() || targetDate > item.get("e").getTime())) {
 				return true;
 			}
 		}
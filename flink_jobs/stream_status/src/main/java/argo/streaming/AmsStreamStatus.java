@@ -6,8 +6,13 @@ import java.net.URISyntaxException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 
 import org.apache.avro.io.DatumReader;
@@ -17,15 +22,24 @@ import org.apache.avro.specific.SpecificData;
 import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.commons.codec.binary.Base64;
 
+import org.apache.flink.api.common.functions.FilterFunction;
+import org.apache.flink.api.common.functions.MapFunction;
 import org.apache.flink.api.common.io.OutputFormat;
+import org.apache.flink.api.common.typeinfo.TypeHint;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.tuple.Tuple3;
 import org.apache.flink.api.java.utils.ParameterTool;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.TimeCharacteristic;
 import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
-import org.apache.flink.streaming.api.functions.co.RichCoFlatMapFunction;
+import org.apache.flink.streaming.api.functions.co.CoProcessFunction;
 import org.apache.flink.streaming.connectors.kafka.FlinkKafkaProducer09;
 import org.apache.flink.streaming.util.serialization.SimpleStringSchema;
+import org.apache.flink.types.Either;
 import org.apache.flink.util.Collector;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.TableName;
@@ -46,8 +60,11 @@ import argo.avro.GroupEndpoint;
 import argo.avro.MetricData;
 import argo.avro.MetricDataOld;
 import argo.avro.MetricProfile;
+import ops.ZuluTime;
 import status.StatusManager;
+import sync.DowntimeCache;
 import sync.EndpointGroupManagerV2;
+import sync.EndpointGroupManagerV2.EndpointItem;
 import sync.MetricProfileManager;
 
 
@@ -65,8 +82,9 @@ import sync.MetricProfileManager;
  * --sync.aps          : availability profile used 
  * --sync.ops          : operations profile used
  * --sync.downtimes    : initial downtime file (same for run date)
- * --report			   : report name
- * --report.uuid	   : report uuid
+ * --report			   : report name (or comma separated list of report names computed by the same job)
+ * --report.uuid	   : report uuid (--report.uuid.{report} per report when computing several reports)
+ * Sync files can be given per report by suffixing the parameter with the report name (e.g. --sync.mps.{report})
  * Job optional cli parameters:
  * --ams.batch         : num of messages to be retrieved per request to AMS service
  * --ams.interval      : interval (in ms) between AMS service requests
@@ -83,6 +101,17 @@ import sync.MetricProfileManager;
  * --ams.proxy		   : http proxy url 
  * --timeout           : time in ms - Optional timeout parameter (used in notifications)
  * --daily             : true/false - Optional daily event generation parameter (not needed in notifications)
+ * --daily.chunk       : number of groups - Optional number of groups emitted by the daily snapshot per metric data (default: 10)
+ * --event.time        : true/false - Optional event time processing with per group reordering of metric data
+ * --event.delay       : time in ms - Optional reordering window used in event time processing (default: 60000)
+ * --late.output       : filesystem output path (local or hdfs) for metric data that arrived too late to be reordered
+ * --snapshot.path     : directory (local or hdfs) of the status snapshots used to warm start the job
+ * --snapshot.interval : time in ms - Optional interval between status snapshots (default: 300000)
+ * --query.port        : base port of the embedded read-only status lookup endpoints (one per status operator instance on base port + instance index).
+ *                       An instance answers only for the groups routed to it and replies 421 with the instance and port to ask for the others
+ * --coalesce.window   : time in ms - Optional window for coalescing the endpoint, service and group events of a group (default: 0 - disabled).
+ *                       Windows close in metric time, when metric data of the report reach the status operator instance of the group
+ * --dropped.output    : filesystem output path (local or hdfs) for discarded metric data along with the reason they were discarded
  */
 public class AmsStreamStatus {
 	// setup logger
@@ -100,6 +129,10 @@ public class AmsStreamStatus {
 		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
 		env.getConfig().setGlobalJobParameters(config.getParameters());
 
+		if (config.eventTime) {
+			env.setStreamTimeCharacteristic(TimeCharacteristic.EventTime);
+		}
+
 		return env;
 	}
 
@@ -153,8 +186,8 @@ public class AmsStreamStatus {
 
 		final StatusConfig conf = new StatusConfig(parameterTool);
 		
+		// Enrichment and status computation run at the job's parallelism (flink run -p)
 		StreamExecutionEnvironment see = setupEnvironment(conf);
-		see.setParallelism(1);
 		
 		// Initialize Input Source : ARGO Messaging Source
 		String endpoint = parameterTool.getRequired("ams.endpoint");
@@ -198,19 +231,61 @@ public class AmsStreamStatus {
 		// Establish the sync data AMS stream
 		DataStream<String> syncAMS = see.addSource(amsSync).setParallelism(1);
 
-		// Forward syncAMS data to two paths
-		// - one with parallelism 1 to connect in the first processing step and
-		// - one with max parallelism for status event generation step
-		// (scalable)
-		DataStream<String> syncA = syncAMS.forward();
-		DataStream<String> syncB = syncAMS.broadcast();
+		// Decode sync data once before distributing them
+		DataStream<SyncUpdate> syncUpdates = syncAMS.flatMap(new SyncDecoder(conf)).setParallelism(1);
+
+		// Broadcast decoded sync updates to both parallel processing steps
+		// - the enrichment step that keeps a copy of the topology index and
+		// - the status event generation step
+		DataStream<SyncUpdate> syncA = syncUpdates.broadcast();
+		DataStream<SyncUpdate> syncB = syncUpdates.broadcast();
+
+		// Metric data are spread over the enrichment instances, decoded once and
+		// fanned out to every report as (report, group, metric data). Dropped
+		// metric data are split to their side outputs right after
+		SingleOutputStreamOperator<Tuple3<String, String, MetricData>> enrichedMdata = metricAMS.rebalance()
+				.connect(syncA).process(new MetricDataWithGroup(conf))
+				.process(new DroppedMetricSplitter<Tuple3<String, String, MetricData>>(
+						TypeInformation.of(new TypeHint<Tuple3<String, String, MetricData>>() {
+						})));
+		DataStream<Tuple3<String, String, MetricData>> groupMdata = enrichedMdata;
+
+		// In event time mode reorder metric data per report and group before status computation
+		if (conf.eventTime) {
+			SingleOutputStreamOperator<Tuple3<String, String, MetricData>> orderedMdata = groupMdata
+					.assignTimestampsAndWatermarks(new MetricDataTimestamps(conf.eventDelay)).keyBy(0, 1)
+					.process(new MetricReorderBuffer());
+
+			if (parameterTool.has("late.output")) {
+				orderedMdata.getSideOutput(MetricReorderBuffer.LATE_TAG).writeAsText(parameterTool.get("late.output"))
+						.setParallelism(1);
+			}
 
-		DataStream<Tuple2<String, MetricData>> groupMdata = metricAMS.connect(syncA)
-				.flatMap(new MetricDataWithGroup(conf)).setParallelism(1);
+			groupMdata = orderedMdata;
+		}
 
-		DataStream<String> events = groupMdata.connect(syncB).flatMap(new StatusMap(conf));
+		// Status computation is keyed by report and group so that each group is
+		// always handled by the same status manager instance. Status events are
+		// emitted along with their report as (report, event)
+		SingleOutputStreamOperator<Tuple2<String, String>> statusEvents = groupMdata.keyBy(0, 1).connect(syncB)
+				.process(new StatusMap(conf))
+				.process(new DroppedMetricSplitter<Tuple2<String, String>>(
+						TypeInformation.of(new TypeHint<Tuple2<String, String>>() {
+						})));
+		DataStream<String> events = statusEvents.map(new EventJson());
+
+		// Metric data discarded by enrichment or status computation are routed to
+		// a side output per drop reason
+		if (parameterTool.has("dropped.output")) {
+			DataStream<DroppedMetric> dropped = null;
+			for (String reason : DroppedMetric.REASONS) {
+				DataStream<DroppedMetric> reasonDropped = enrichedMdata.getSideOutput(DroppedMetric.tag(reason))
+						.union(statusEvents.getSideOutput(DroppedMetric.tag(reason)));
+				dropped = dropped == null ? reasonDropped : dropped.union(reasonDropped);
+			}
+			dropped.writeAsText(parameterTool.get("dropped.output")).setParallelism(1);
+		}
 
-		
 
 		if (hasKafkaArgs(parameterTool)) {
 			// Initialize kafka parameters
@@ -233,20 +308,27 @@ public class AmsStreamStatus {
 			hbf.setZkPort(parameterTool.get("hbase.zk.port"));
 			hbf.setNamespace(parameterTool.get("hbase.namespace"));
 			hbf.setTableName(parameterTool.get("hbase.table"));
-			hbf.setReport(parameterTool.get("report"));
+			hbf.setReport(conf.report);
 			events.writeUsingOutputFormat(hbf);
 		}
 		
 		if (hasMongoArgs(parameterTool)) {
 
-			MongoStatusOutput mongoOut = new MongoStatusOutput(parameterTool.get("mongo.uri"), "status_metrics",
-					"status_endpoints", "status_services", "status_endpoint_groups", parameterTool.get("mongo.method"),
-					parameterTool.get("report.uuid"));
-			events.writeUsingOutputFormat(mongoOut);
+			// Mongo documents are stored under the report uuid so each report gets its own output
+			for (String report : conf.reports) {
+				MongoStatusOutput mongoOut = new MongoStatusOutput(parameterTool.get("mongo.uri"), "status_metrics",
+						"status_endpoints", "status_services", "status_endpoint_groups", parameterTool.get("mongo.method"),
+						conf.getReportUuid(report));
+				if (conf.reports.size() > 1) {
+					statusEvents.filter(new ReportFilter(report)).map(new EventJson()).writeUsingOutputFormat(mongoOut);
+				} else {
+					events.writeUsingOutputFormat(mongoOut);
+				}
+			}
 		}
 
 		if (hasFsOutArgs(parameterTool)) {
-            events.writeAsText(parameterTool.get("fs.output"));
+            events.writeAsText(parameterTool.get("fs.output")).setParallelism(1);
 			//events.print();
 		}
 
@@ -270,15 +352,26 @@ public class AmsStreamStatus {
 	}
 
 	/**
-	 * MetricDataWithGroup implements a map function that adds group information to
-	 * the metric data message
+	 * MetricDataWithGroup implements a co-process function that adds report and
+	 * group information to the metric data message. Each metric data message is
+	 * decoded once and emitted for every report and group it belongs to. Metric
+	 * data in downtime or of endpoints outside the topology are counted and
+	 * emitted as dropped metric data (see DroppedMetricSplitter)
 	 */
-	private static class MetricDataWithGroup extends RichCoFlatMapFunction<String, String, Tuple2<String, MetricData>> {
+	private static class MetricDataWithGroup
+			extends CoProcessFunction<String, SyncUpdate, Either<Tuple3<String, String, MetricData>, DroppedMetric>> {
 
 		private static final long serialVersionUID = 1L;
 
-		public EndpointGroupManagerV2 egp;
-		public MetricProfileManager mps;
+		// Enrichment structures per report
+		public HashMap<String, EndpointGroupManagerV2> egp;
+		public HashMap<String, MetricProfileManager> mps;
+		public HashMap<String, DowntimeCache> dc;
+		// Version of the latest applied sync update
+		private long syncVersion = 0;
+
+		// Counters of dropped metric data per drop reason
+		private transient HashMap<String, Counter> dropCounters;
 
 		public StatusConfig config;
 
@@ -299,38 +392,81 @@ public class AmsStreamStatus {
 
 			SyncData sd = new SyncData();
 
-			ArrayList<MetricProfile> mpsList = sd.readMetricProfile(config.mps);
-			ArrayList<GroupEndpoint> egpList = sd.readGroupEndpoint(config.egp);
+			egp = new HashMap<String, EndpointGroupManagerV2>();
+			mps = new HashMap<String, MetricProfileManager>();
+			dc = new HashMap<String, DowntimeCache>();
+
+			for (String report : config.reports) {
+				ArrayList<MetricProfile> mpsList = sd.readMetricProfile(config.getSyncFile("sync.mps", report));
+				ArrayList<GroupEndpoint> egpList = sd.readGroupEndpoint(config.getSyncFile("sync.egp", report));
+				ArrayList<Downtime> downList = sd.readDowntime(config.getSyncFile("sync.downtime", report));
+
+				// Downtimes are evaluated here so that suppressed results never reach the status stage
+				DowntimeCache reportDc = new DowntimeCache(5);
+				reportDc.addFeed(config.runDate, downList);
+				dc.put(report, reportDc);
+
+				MetricProfileManager reportMps = new MetricProfileManager();
+				reportMps.loadFromList(mpsList);
+				mps.put(report, reportMps);
+
+				// Use optimized Endpoint Group Manager
+				EndpointGroupManagerV2 reportEgp = new EndpointGroupManagerV2();
+				reportEgp.loadFromList(trimEndpoints(egpList, reportMps));
+				egp.put(report, reportEgp);
+			}
+
+			dropCounters = new HashMap<String, Counter>();
+			for (String reason : DroppedMetric.REASONS) {
+				dropCounters.put(reason,
+						getRuntimeContext().getMetricGroup().addGroup("droppedMetricData").counter(reason));
+			}
+
+		}
+
+		/**
+		 * Counts a dropped metric data item and emits it along with the reason it
+		 * was dropped
+		 */
+		private void drop(Collector<Either<Tuple3<String, String, MetricData>, DroppedMetric>> out, String reason,
+				String report, MetricData item) {
+			dropCounters.get(reason).inc();
+			out.collect(Either.<Tuple3<String, String, MetricData>, DroppedMetric>Right(
+					new DroppedMetric(reason, report, "", item)));
+		}
 
-			mps = new MetricProfileManager();
-			mps.loadFromList(mpsList);
-			String validMetricProfile = mps.getProfiles().get(0);
-			ArrayList<String> validServices = mps.getProfileServices(validMetricProfile);
+		/**
+		 * Keeps only the endpoints of services included in the metric profile
+		 */
+		private ArrayList<GroupEndpoint> trimEndpoints(ArrayList<GroupEndpoint> egpList, MetricProfileManager reportMps) {
+			String validMetricProfile = reportMps.getProfiles().get(0);
+			ArrayList<String> validServices = reportMps.getProfileServices(validMetricProfile);
 
 			// Trim profile services
 			ArrayList<GroupEndpoint> egpTrim = new ArrayList<GroupEndpoint>();
-			// Use optimized Endpoint Group Manager
 			for (GroupEndpoint egpItem : egpList) {
 				if (validServices.contains(egpItem.getService())) {
 					egpTrim.add(egpItem);
 				}
 			}
-			egp = new EndpointGroupManagerV2();
-			egp.loadFromList(egpTrim);
-
+			return egpTrim;
 		}
 
 		/**
-		 * The main flat map function that accepts metric data and generates metric data
+		 * The main process function that accepts metric data and generates metric data
 		 * with group information
 		 * 
 		 * @param value
 		 *            Input metric data in base64 encoded format from AMS service
+		 * @param ctx
+		 *            Context of the operation
 		 * @param out
-		 *            Collection of generated Tuple2<MetricData,String> objects
+		 *            Collection of generated Tuple3<String,String,MetricData> objects (report, group, metric data)
+		 *            and dropped metric data
 		 */
 		@Override
-		public void flatMap1(String value, Collector<Tuple2<String, MetricData>> out)
+		public void processElement1(String value, Context ctx,
+				Collector<Either<Tuple3<String, String, MetricData>, DroppedMetric>> out)
 				throws IOException, ParseException {
 
 			JsonParser jsonParser = new JsonParser();
@@ -366,56 +502,63 @@ public class AmsStreamStatus {
 			String service = item.getService();
 			String hostname = item.getHostname();
 
-			ArrayList<String> groups = egp.getGroup(hostname, service);
-			//System.out.println(egp.getList());
+			String tsStr = item.getTimestamp();
+			String dayStamp = ZuluTime.datePart(tsStr);
+			long ts = ZuluTime.parse(tsStr);
 
-			for (String groupItem : groups) {
-				Tuple2<String, MetricData> curItem = new Tuple2<String, MetricData>();
-				curItem.f0 = groupItem;
-				curItem.f1 = item;
-				out.collect(curItem);
-				//System.out.println("item enriched: " + curItem.toString());
+			// Fan out the decoded metric data to every report
+			for (String report : config.reports) {
+				// Drop results of endpoints in downtime before any further processing
+				if (dc.get(report).inDowntime(dayStamp, hostname, service, ts)) {
+					drop(out, DroppedMetric.DOWNTIME, report, item);
+					continue;
+				}
+
+				ArrayList<String> groups = egp.get(report).getGroup(hostname, service);
+				if (groups.isEmpty()) {
+					drop(out, DroppedMetric.UNKNOWN_ENDPOINT, report, item);
+					continue;
+				}
+				for (String groupItem : groups) {
+					out.collect(Either.<Tuple3<String, String, MetricData>, DroppedMetric>Left(
+							new Tuple3<String, String, MetricData>(report, groupItem, item)));
+				}
 			}
 
 		}
 
-		public void flatMap2(String value, Collector<Tuple2<String, MetricData>> out)
+		@Override
+		public void processElement2(SyncUpdate value, Context ctx,
+				Collector<Either<Tuple3<String, String, MetricData>, DroppedMetric>> out)
 				throws IOException, ParseException {
 
-			JsonParser jsonParser = new JsonParser();
-			// parse the json root object
-			JsonElement jRoot = jsonParser.parse(value);
-			// parse the json field "data" and read it as string
-			// this is the base64 string payload
-			String data = jRoot.getAsJsonObject().get("data").getAsString();
-			// Decode from base64
-			byte[] decoded64 = Base64.decodeBase64(data.getBytes("UTF-8"));
-			JsonElement jAttr = jRoot.getAsJsonObject().get("attributes");
-			Map<String, String> attr = SyncParse.parseAttributes(jAttr);
-			if (attr.containsKey("type")) {
+			// skip stale or already applied updates
+			if (value.version <= syncVersion) {
+				return;
+			}
+			syncVersion = value.version;
 
-				String sType = attr.get("type");
-				if (sType.equalsIgnoreCase("metric_profile")) {
-					// Update mps
-					ArrayList<MetricProfile> mpsList = SyncParse.parseMetricProfile(decoded64);
-					mps = new MetricProfileManager();
-					mps.loadFromList(mpsList);
-				} else if (sType.equals("group_endpoint")) {
-					// Update egp
-					ArrayList<GroupEndpoint> egpList = SyncParse.parseGroupEndpoint(decoded64);
-					egp = new EndpointGroupManagerV2();
-
-					String validMetricProfile = mps.getProfiles().get(0);
-					ArrayList<String> validServices = mps.getProfileServices(validMetricProfile);
-					// Trim profile services
-					ArrayList<GroupEndpoint> egpTrim = new ArrayList<GroupEndpoint>();
-					// Use optimized Endpoint Group Manager
-					for (GroupEndpoint egpItem : egpList) {
-						if (validServices.contains(egpItem.getService())) {
-							egpTrim.add(egpItem);
-						}
-					}
-				}
+			if (!egp.containsKey(value.report)) {
+				return;
+			}
+
+			if (value.type.equals(SyncUpdate.METRIC_PROFILE)) {
+				// Update mps
+				MetricProfileManager reportMps = new MetricProfileManager();
+				reportMps.loadFromList(value.metricProfile);
+				mps.put(value.report, reportMps);
+			} else if (value.type.equals(SyncUpdate.GROUP_ENDPOINTS)) {
+				// Update egp
+				ArrayList<GroupEndpoint> egpTrim = trimEndpoints(value.groupEndpoints, mps.get(value.report));
+				// Patch the enrichment index in place
+				ArrayList<EndpointItem> added = new ArrayList<EndpointItem>();
+				ArrayList<EndpointItem> removed = new ArrayList<EndpointItem>();
+				egp.get(value.report).applyDiff(egpTrim, added, removed);
+				LOG.info("Updated enrichment topology of report " + value.report + " (added:" + added.size()
+						+ ", removed:" + removed.size() + ")");
+			} else if (value.type.equals(SyncUpdate.DOWNTIMES)) {
+				// Update downtime cache
+				dc.get(value.report).addFeed(value.partitionDate, value.downtimes);
 			}
 
 		}
@@ -423,25 +566,45 @@ public class AmsStreamStatus {
 	}
 
 	/**
-	 * StatusMap implements a rich flat map function which holds status information
-	 * for all entities in topology and for each received metric generates the
-	 * appropriate status events
+	 * StatusMap implements a co-process function which holds status information
+	 * for the entities of the groups routed to it (keyed by report and group) and
+	 * for each received metric generates the appropriate status events. Metric
+	 * data discarded by the status manager are counted and emitted as dropped
+	 * metric data (see DroppedMetricSplitter)
 	 */
-	private static class StatusMap extends RichCoFlatMapFunction<Tuple2<String, MetricData>, String, String> {
+	private static class StatusMap
+			extends CoProcessFunction<Tuple3<String, String, MetricData>, SyncUpdate, Either<Tuple2<String, String>, DroppedMetric>> {
 
 		private static final long serialVersionUID = 1L;
 
 		private String pID;
 
-		public StatusManager sm;
+		// Status managers per report
+		public HashMap<String, StatusManager> sms;
 
 		public StatusConfig config;
 
-		public int initStatus;
-		
-	
-		
-		
+		// Version of the latest applied sync update
+		private long syncVersion = 0;
+
+		// Status snapshot store (if enabled), time (ms) this instance started and
+		// time (ms) of the latest snapshot
+		private transient StatusSnapshotStore snapshots;
+		private long started;
+		private long lastSnapshot;
+		// Writes the status snapshots off the processing path and the write in
+		// progress (if any)
+		private transient ExecutorService snapshotWriter;
+		private transient Future<?> snapshotWrite;
+
+		// Operator instance that handles each (report, group)
+		private transient GroupRouting routing;
+
+		// Embedded read-only status lookup endpoint (if enabled)
+		private transient StatusQueryServer queryServer;
+
+		// Counters of dropped metric data per drop reason
+		private transient HashMap<String, Counter> dropCounters;
 
 		public StatusMap(StatusConfig config) {
 			LOG.info("Created new Status map");
@@ -459,43 +622,174 @@ public class AmsStreamStatus {
 		public void open(Configuration parameters) throws IOException, ParseException, URISyntaxException {
 
 			pID = Integer.toString(getRuntimeContext().getIndexOfThisSubtask());
+			started = System.currentTimeMillis();
+			routing = new GroupRouting(getRuntimeContext().getMaxNumberOfParallelSubtasks(),
+					getRuntimeContext().getNumberOfParallelSubtasks(), getRuntimeContext().getIndexOfThisSubtask());
 			
 			SyncData sd = new SyncData();
-			
-			String opsJSON = sd.readText(config.ops);
-			String apsJSON = sd.readText(config.aps);
-			ArrayList<Downtime> downList = sd.readDowntime(config.downtime);
-			ArrayList<MetricProfile> mpsList = sd.readMetricProfile(config.mps);
-			ArrayList<GroupEndpoint> egpListFull = sd.readGroupEndpoint(config.egp);
+			sms = new HashMap<String, StatusManager>();
+
+			for (String report : config.reports) {
+				String opsJSON = sd.readText(config.getSyncFile("sync.ops", report));
+				String apsJSON = sd.readText(config.getSyncFile("sync.apr", report));
+				ArrayList<Downtime> downList = sd.readDowntime(config.getSyncFile("sync.downtime", report));
+				ArrayList<MetricProfile> mpsList = sd.readMetricProfile(config.getSyncFile("sync.mps", report));
+				ArrayList<GroupEndpoint> egpListFull = sd.readGroupEndpoint(config.getSyncFile("sync.egp", report));
+
+				// create a new status manager
+				StatusManager sm = new StatusManager();
+				sm.setTimeout(config.timeout);
+				sm.setCoalesceWindow(config.coalesceWindow);
+				sm.setReport(report);
+				// keep only the snapshot groups routed to this instance
+				sm.setGroupOwner(routing);
+				// load all the connector data
+				sm.loadAll(config.runDate, downList, egpListFull, mpsList, apsJSON, opsJSON);
+				sms.put(report, sm);
+				LOG.info("Initialized status manager:" + pID + " for report " + report + " (with timeout:"
+						+ sm.getTimeout() + ")");
+			}
+
+			// Warm start from the latest status snapshots
+			if (config.snapshotPath != null) {
+				snapshots = new StatusSnapshotStore(config.snapshotPath);
+				snapshotWriter = Executors.newSingleThreadExecutor();
+				for (Map.Entry<String, StatusManager> entry : sms.entrySet()) {
+					int restored = snapshots.restore(entry.getValue(), entry.getKey());
+					LOG.info("sm-" + pID + ": read status snapshot of report " + entry.getKey() + " with " + restored
+							+ " groups");
+				}
+			}
+			lastSnapshot = System.currentTimeMillis();
+
+			// Serve status lookups from operator memory (each instance on its own port)
+			if (config.queryPort >= 0) {
+				queryServer = new StatusQueryServer(sms, this, routing, config.queryPort);
+				queryServer.start();
+			}
+
+			dropCounters = new HashMap<String, Counter>();
+			for (String reason : DroppedMetric.REASONS) {
+				dropCounters.put(reason,
+						getRuntimeContext().getMetricGroup().addGroup("droppedMetricData").counter(reason));
+			}
+
+		}
+
+		/**
+		 * Stops the status lookup endpoint and writes a last status snapshot when
+		 * the operation is closed (once the snapshot write in progress is done).
+		 * Events of coalescing windows still open are kept in the snapshot
+		 */
+		@Override
+		public void close() throws IOException {
+			if (queryServer != null) {
+				queryServer.stop();
+			}
+			if (snapshots != null && sms != null) {
+				snapshotWriter.shutdown();
+				try {
+					if (!snapshotWriter.awaitTermination(config.snapshotInterval, TimeUnit.MILLISECONDS)) {
+						LOG.warn("sm-" + pID + ": status snapshot write still in progress - last snapshot skipped");
+						return;
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				storeSnapshots(serializeSnapshots());
+			}
+		}
 
-			// create a new status manager
-			sm = new StatusManager();
-			sm.setTimeout(config.timeout);
-			sm.setReport(config.report);
-			// load all the connector data
-			sm.loadAll(config.runDate, downList, egpListFull, mpsList, apsJSON, opsJSON);
+		/**
+		 * Takes the status snapshots of this operator instance (one per report) in
+		 * memory and hands them to the snapshot writer, so that the file system is
+		 * accessed off the processing path. No snapshot is taken while the previous
+		 * one is still being written
+		 */
+		private void writeSnapshots() {
+			if (snapshotWrite != null && !snapshotWrite.isDone()) {
+				return;
+			}
 
-			// Set the default status as integer
-			initStatus = sm.getOps().getIntStatus(config.initStatus);
-			LOG.info("Initialized status manager:" + pID + " (with timeout:" + sm.getTimeout() + ")");
+			final HashMap<String, byte[]> buffers = serializeSnapshots();
+			snapshotWrite = snapshotWriter.submit(new Runnable() {
+				@Override
+				public void run() {
+					storeSnapshots(buffers);
+				}
+			});
+			lastSnapshot = System.currentTimeMillis();
+		}
 
+		/**
+		 * Serializes the status snapshots of this operator instance per report
+		 */
+		private HashMap<String, byte[]> serializeSnapshots() {
+			HashMap<String, byte[]> buffers = new HashMap<String, byte[]>();
+			for (Map.Entry<String, StatusManager> entry : sms.entrySet()) {
+				try {
+					buffers.put(entry.getKey(), StatusSnapshotStore.serialize(entry.getValue()));
+				} catch (IOException e) {
+					LOG.warn("sm-" + pID + ": unable to take status snapshot of report " + entry.getKey() + ": "
+							+ e.getMessage());
+				}
+			}
+			return buffers;
+		}
+
+		/**
+		 * Writes serialized status snapshots and deletes the stale ones. Failures
+		 * are logged and do not stop processing
+		 */
+		private void storeSnapshots(Map<String, byte[]> buffers) {
+			for (Map.Entry<String, byte[]> entry : buffers.entrySet()) {
+				try {
+					snapshots.write(entry.getValue(), entry.getKey(), pID);
+					LOG.info("sm-" + pID + ": wrote status snapshot of report " + entry.getKey() + " ("
+							+ entry.getValue().length + " bytes)");
+					// snapshots of instances of an earlier run with a higher parallelism
+					int deleted = snapshots.cleanup(entry.getKey(), routing.getParallelism(), started);
+					if (deleted > 0) {
+						LOG.info("sm-" + pID + ": deleted " + deleted + " stale status snapshots of report "
+								+ entry.getKey());
+					}
+				} catch (IOException e) {
+					LOG.warn("sm-" + pID + ": unable to write status snapshot of report " + entry.getKey() + ": "
+							+ e.getMessage());
+				}
+			}
+		}
+
+		/**
+		 * Emits a status event along with the report it belongs to
+		 */
+		private void emit(Collector<Either<Tuple2<String, String>, DroppedMetric>> out, String report, String event) {
+			out.collect(Either.<Tuple2<String, String>, DroppedMetric>Left(new Tuple2<String, String>(report, event)));
 		}
 
 		/**
-		 * The main flat map function that accepts metric data and generates status
+		 * The main process function that accepts metric data and generates status
 		 * events
 		 * 
 		 * @param value
 		 *            Input metric data in base64 encoded format from AMS service
+		 * @param ctx
+		 *            Context of the operation
 		 * @param out
-		 *            Collection of generated status events as json strings
+		 *            Collection of generated status events as (report, json string)
+		 *            and dropped metric data
 		 */
 		@Override
-		public void flatMap1(Tuple2<String, MetricData> value, Collector<String> out)
-				throws IOException, ParseException {
+		public synchronized void processElement1(Tuple3<String, String, MetricData> value, Context ctx,
+				Collector<Either<Tuple2<String, String>, DroppedMetric>> out) throws IOException, ParseException {
 
-			MetricData item = value.f1;
-			String group = value.f0;
+			StatusManager sm = sms.get(value.f0);
+			if (sm == null) {
+				return;
+			}
+			MetricData item = value.f2;
+			String group = value.f1;
 
 			String service = item.getService();
 			String hostname = item.getHostname();
@@ -505,14 +799,43 @@ public class AmsStreamStatus {
 			String monHost = item.getMonitoringHost();
 			String message = item.getMessage();
 			String summary = item.getSummary();
+
+			// advance the downtime clock and emit events for downtimes that started or ended
+			ArrayList<String> eventsDowntime = sm.fireDowntimes(tsMon);
+			for (String event : eventsDowntime) {
+				emit(out, value.f0, event);
+				LOG.info("sm-" + pID + ": downtime event produced: " + event);
+			}
+
+			// advance the notification clock and emit repeat events for expired entities
+			ArrayList<String> eventsRepeat = sm.fireTimeouts(tsMon);
+			for (String event : eventsRepeat) {
+				emit(out, value.f0, event);
+				LOG.info("sm-" + pID + ": repeat event produced: " + event);
+			}
+
+			// advance the coalescing clock and emit the net transitions of closed windows
+			ArrayList<String> eventsCoalesced = sm.fireCoalesced(tsMon);
+			for (String event : eventsCoalesced) {
+				emit(out, value.f0, event);
+				LOG.info("sm-" + pID + ": coalesced event produced: " + event);
+			}
 			
 			// if daily generation is enable check if has day changed?
-			if (config.daily && sm.hasDayChanged(sm.getTsLatest(), tsMon)) {
-				ArrayList<String> eventsDaily = sm.dumpStatus(tsMon);
-				sm.setTsLatest(tsMon);
+			if (config.daily) {
+				ArrayList<String> eventsDaily = new ArrayList<String>();
+				if (sm.hasDayChanged(sm.getTsLatest(), tsMon)) {
+					// start a new daily snapshot that is emitted in chunks
+					eventsDaily.addAll(sm.startDailySnapshot(tsMon));
+					LOG.info("sm-" + pID + ": daily snapshot started for " + sm.getDailyPending() + " groups");
+				}
+				if (sm.getTsLatest() == null || tsMon.compareTo(sm.getTsLatest()) > 0) {
+					sm.setTsLatest(tsMon);
+				}
+				eventsDaily.addAll(sm.dumpDailyChunk(config.dailyChunk));
 				for (String event : eventsDaily) {
-					out.collect(event);
-					LOG.info("sm-" + pID + ": daily event produced: " + event);
+					emit(out, value.f0, event);
+					LOG.debug("sm-" + pID + ": daily event produced: " + event);
 				}
 			}
 
@@ -521,72 +844,107 @@ public class AmsStreamStatus {
 			if (!sm.hasGroup(group)) {
 				// Get start of the day to create new entries
 				Date dateTS = sm.setDate(tsMon);
-				sm.addNewGroup(group, initStatus, dateTS);
+				int initStatus = sm.getOps().getIntStatus(config.initStatus);
+				// Prefer the statuses of the snapshot (if any) to the default ones
+				if (!sm.restoreGroup(group, initStatus, dateTS)) {
+					sm.addNewGroup(group, initStatus, dateTS);
+				}
 			}
 
 			ArrayList<String> events = sm.setStatus(group, service, hostname, metric, status, monHost, tsMon, summary, message);
 
-			
-			
+			// Count and emit the result as dropped if it was discarded
+			String dropReason = sm.getDropReason();
+			if (dropReason != null) {
+				dropCounters.get(dropReason).inc();
+				out.collect(Either.<Tuple2<String, String>, DroppedMetric>Right(new DroppedMetric(dropReason, value.f0, group, item)));
+			}
+
 			for (String event : events) {
-				out.collect(event);
+				emit(out, value.f0, event);
 				LOG.info("sm-" + pID + ": event produced: " + item);
 			}
+
+			// Periodically persist the status trees
+			if (snapshots != null && System.currentTimeMillis() - lastSnapshot >= config.snapshotInterval) {
+				writeSnapshots();
+			}
 		}
 
-		public void flatMap2(String value, Collector<String> out) throws IOException, ParseException {
+		@Override
+		public synchronized void processElement2(SyncUpdate value, Context ctx,
+				Collector<Either<Tuple2<String, String>, DroppedMetric>> out)
+				throws IOException, ParseException {
 
-			JsonParser jsonParser = new JsonParser();
-			// parse the json root object
-			JsonElement jRoot = jsonParser.parse(value);
-			// parse the json field "data" and read it as string
-			// this is the base64 string payload
-			String data = jRoot.getAsJsonObject().get("data").getAsString();
-			// Decode from base64
-			byte[] decoded64 = Base64.decodeBase64(data.getBytes("UTF-8"));
-			JsonElement jAttr = jRoot.getAsJsonObject().get("attributes");
-			
-			Map<String, String> attr = SyncParse.parseAttributes(jAttr);
-			// The sync dataset should have a type and report attribute and report should be the job's report
-			if (attr.containsKey("type") && attr.containsKey("report") && attr.get("report") == config.report ) {
-				
-				String sType = attr.get("type");
-				LOG.info("Accepted " + sType + " for report: " + attr.get("report"));
-				if (sType.equalsIgnoreCase("metric_profile")) {
+			// Sync updates arrive already decoded and filtered by report
+			StatusManager sm = sms.get(value.report);
+			if (sm != null && value.version > syncVersion) {
+				syncVersion = value.version;
+
+				LOG.info("sm-" + pID + ": applying sync update " + value);
+				if (value.type.equals(SyncUpdate.METRIC_PROFILE)) {
 					// Update mps
-					ArrayList<MetricProfile> mpsList = SyncParse.parseMetricProfile(decoded64);
 					sm.mps = new MetricProfileManager();
-					sm.mps.loadFromList(mpsList);
-				} else if (sType.equals("group_endpoints")) {
+					sm.mps.loadFromList(value.metricProfile);
+				} else if (value.type.equals(SyncUpdate.GROUP_ENDPOINTS)) {
 					// Update egp
-					ArrayList<GroupEndpoint> egpList = SyncParse.parseGroupEndpoint(decoded64);
-
-					String validMetricProfile = sm.mps.getProfiles().get(0);
-					ArrayList<String> validServices = sm.mps.getProfileServices(validMetricProfile);
-					// Trim profile services
-					ArrayList<GroupEndpoint> egpTrim = new ArrayList<GroupEndpoint>();
-					// Use optimized Endpoint Group Manager
-					for (GroupEndpoint egpItem : egpList) {
-						if (validServices.contains(egpItem.getService())) {
-							egpTrim.add(egpItem);
-						}
+					ArrayList<GroupEndpoint> egpList = value.groupEndpoints;
+
+					// New entities start at the beginning of the current day
+					Date defTs;
+					if (sm.getTsLatest() != null) {
+						defTs = sm.setDate(sm.getTsLatest());
+					} else {
+						defTs = sm.setDate(config.runDate + "T00:00:00Z");
 					}
-					sm.egp = new EndpointGroupManagerV2();
-					sm.egp.loadFromList(egpTrim);
-				} else if (sType.equals("downtimes") && attr.containsKey("partition_date")) {
-					String pDate = attr.get("partition_date");
-					ArrayList<Downtime> downList = SyncParse.parseDowntimes(decoded64);
+					// Patch topology index and status trees in place
+					int initStatus = sm.getOps().getIntStatus(config.initStatus);
+					int changes = sm.updateTopology(egpList, initStatus, defTs);
+					LOG.info("sm-" + pID + ": updated topology with " + changes + " changes");
+				} else if (value.type.equals(SyncUpdate.DOWNTIMES)) {
 					// Update downtime cache in status manager
-					sm.addDowntimeSet(pDate, downList);
+					sm.addDowntimeSet(value.partitionDate, value.downtimes);
 				}
-			} else {
-				LOG.info("Declined " + attr.get("type") + "for report: " + attr.get("report"));
 			}
 
 		}
 
 	}
 
+	/**
+	 * ReportFilter keeps only the status events of a specific report
+	 */
+	private static class ReportFilter implements FilterFunction<Tuple2<String, String>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String report;
+
+		public ReportFilter(String report) {
+			this.report = report;
+		}
+
+		@Override
+		public boolean filter(Tuple2<String, String> value) {
+			return this.report.equals(value.f0);
+		}
+
+	}
+
+	/**
+	 * EventJson keeps the json string of a (report, event) status event
+	 */
+	private static class EventJson implements MapFunction<Tuple2<String, String>, String> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public String map(Tuple2<String, String> value) {
+			return value.f1;
+		}
+
+	}
+
 	/**
 	 * HbaseOutputFormat implements a custom output format for storing results in
 	 * hbase
@@ -692,7 +1050,11 @@ public class AmsStreamStatus {
 			JsonObject jRoot = jsonParser.parse(record).getAsJsonObject();
 			// Get fields
 
-			String rep = this.report;
+			// Events carry their own report (the job may compute several reports)
+			String rep = extractJson("report", jRoot);
+			if (rep.isEmpty()) {
+				rep = this.report;
+			}
 			String tp = extractJson("type", jRoot);
 			String dt = extractJson("date", jRoot);
 			String eGroup = extractJson("endpoint_group", jRoot);
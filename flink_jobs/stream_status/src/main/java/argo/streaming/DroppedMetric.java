@@ -0,0 +1,73 @@
+package argo.streaming;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.flink.util.OutputTag;
+
+import argo.avro.MetricData;
+import status.StatusManager;
+
+/**
+ * DroppedMetric holds a metric data item that was discarded by the enrichment
+ * or the status computation step along with the reason it was discarded. Each
+ * drop reason has its own side output so that discarded metric data can be
+ * inspected (or just counted) per reason
+ */
+public class DroppedMetric implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// Drop reasons (the ones of the status computation step are the ones reported
+	// by the status manager)
+	public static final String DOWNTIME = StatusManager.DROP_DOWNTIME;
+	public static final String UNKNOWN_GROUP = StatusManager.DROP_UNKNOWN_GROUP;
+	public static final String UNKNOWN_ENDPOINT = StatusManager.DROP_UNKNOWN_ENDPOINT;
+	public static final String UNKNOWN_METRIC = StatusManager.DROP_UNKNOWN_METRIC;
+	public static final String OUT_OF_ORDER = StatusManager.DROP_OUT_OF_ORDER;
+
+	public static final String[] REASONS = { DOWNTIME, UNKNOWN_GROUP, UNKNOWN_ENDPOINT, UNKNOWN_METRIC, OUT_OF_ORDER };
+
+	// Side outputs per drop reason
+	private static final Map<String, OutputTag<DroppedMetric>> TAGS = new HashMap<String, OutputTag<DroppedMetric>>();
+
+	static {
+		for (String reason : REASONS) {
+			TAGS.put(reason, new OutputTag<DroppedMetric>("dropped-" + reason) {
+				private static final long serialVersionUID = 1L;
+			});
+		}
+	}
+
+	// Reason the metric data were discarded
+	public String reason;
+	// Report and endpoint group (empty if not yet known) of the metric data
+	public String report;
+	public String group;
+	// Discarded metric data
+	public MetricData data;
+
+	public DroppedMetric() {
+	}
+
+	public DroppedMetric(String reason, String report, String group, MetricData data) {
+		this.reason = reason;
+		this.report = report;
+		this.group = group;
+		this.data = data;
+	}
+
+	/**
+	 * Returns the side output of a drop reason
+	 */
+	public static OutputTag<DroppedMetric> tag(String reason) {
+		return TAGS.get(reason);
+	}
+
+	@Override
+	public String toString() {
+		return "(" + reason + "," + report + "," + group + "," + data + ")";
+	}
+
+}
@@ -0,0 +1,47 @@
+package argo.streaming;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.ResultTypeQueryable;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.types.Either;
+import org.apache.flink.util.Collector;
+
+/**
+ * DroppedMetricSplitter separates the output of an operator that emits its
+ * records as Either left values and the metric data it discarded as Either
+ * right values. Records are passed on and dropped metric data are routed to the
+ * side output of their drop reason. Co-process functions have no side outputs
+ * in this flink version so the co-process steps of the job are followed by this
+ * function
+ */
+public class DroppedMetricSplitter<T> extends ProcessFunction<Either<T, DroppedMetric>, T>
+		implements ResultTypeQueryable<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final TypeInformation<T> type;
+
+	/**
+	 * @param type
+	 *            Type of the records passed on
+	 */
+	public DroppedMetricSplitter(TypeInformation<T> type) {
+		this.type = type;
+	}
+
+	@Override
+	public void processElement(Either<T, DroppedMetric> value, Context ctx, Collector<T> out) throws Exception {
+		if (value.isLeft()) {
+			out.collect(value.left());
+			return;
+		}
+		DroppedMetric dropped = value.right();
+		ctx.output(DroppedMetric.tag(dropped.reason), dropped);
+	}
+
+	@Override
+	public TypeInformation<T> getProducedType() {
+		return this.type;
+	}
+
+}
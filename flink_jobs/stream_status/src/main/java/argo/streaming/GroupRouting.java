@@ -0,0 +1,60 @@
+package argo.streaming;
+
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+
+import status.StatusManager;
+
+/**
+ * GroupRouting computes the status operator instance that handles an endpoint
+ * group of a report. Metric data are keyed by (report, group) before status
+ * computation, so the instance is found the same way flink assigns the key to
+ * a key group and the key group to an operator instance
+ */
+public class GroupRouting implements StatusManager.GroupOwner {
+
+	private final int maxParallelism;
+	private final int parallelism;
+	private final int index;
+
+	/**
+	 * Creates the routing of an operator instance
+	 *
+	 * @param maxParallelism
+	 *            Max parallelism (number of key groups) of the operator
+	 * @param parallelism
+	 *            Parallelism of the operator
+	 * @param index
+	 *            Index of this operator instance
+	 */
+	public GroupRouting(int maxParallelism, int parallelism, int index) {
+		this.maxParallelism = maxParallelism;
+		this.parallelism = parallelism;
+		this.index = index;
+	}
+
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	public int getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * Get the index of the operator instance that handles a group of a report
+	 */
+	public int instanceOf(String report, String group) {
+		return KeyGroupRangeAssignment.assignKeyToParallelOperator(new Tuple2<String, String>(report, group),
+				this.maxParallelism, this.parallelism);
+	}
+
+	/**
+	 * Checks if a group of a report is handled by this operator instance
+	 */
+	@Override
+	public boolean owns(String report, String group) {
+		return instanceOf(report, group) == this.index;
+	}
+
+}
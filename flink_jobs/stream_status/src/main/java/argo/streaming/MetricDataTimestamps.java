@@ -0,0 +1,45 @@
+package argo.streaming;
+
+import java.text.ParseException;
+
+import org.apache.flink.api.java.tuple.Tuple3;
+import org.apache.flink.streaming.api.functions.timestamps.BoundedOutOfOrdernessTimestampExtractor;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import argo.avro.MetricData;
+import ops.ZuluTime;
+
+/**
+ * MetricDataTimestamps assigns event time timestamps to metric data based on
+ * their monitoring timestamp and emits watermarks that lag behind the latest
+ * seen timestamp by a fixed delay (the reordering window)
+ */
+public class MetricDataTimestamps extends BoundedOutOfOrdernessTimestampExtractor<Tuple3<String, String, MetricData>> {
+
+	private static final long serialVersionUID = 1L;
+
+	// setup logger
+	static Logger LOG = LoggerFactory.getLogger(MetricDataTimestamps.class);
+
+
+	public MetricDataTimestamps(long delay) {
+		super(Time.milliseconds(delay));
+	}
+
+	/**
+	 * Extracts the epoch timestamp of a metric data item. Items with malformed
+	 * timestamps are given the minimum timestamp so that they are handled as late
+	 */
+	@Override
+	public long extractTimestamp(Tuple3<String, String, MetricData> element) {
+		try {
+			return ZuluTime.parse(element.f2.getTimestamp());
+		} catch (ParseException e) {
+			LOG.warn("Unable to parse metric data timestamp: " + element.f2.getTimestamp());
+			return Long.MIN_VALUE;
+		}
+	}
+
+}
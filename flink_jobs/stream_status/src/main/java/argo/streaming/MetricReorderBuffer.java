@@ -0,0 +1,133 @@
+package argo.streaming;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeHint;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.tuple.Tuple3;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+
+import argo.avro.MetricData;
+
+/**
+ * MetricReorderBuffer implements a keyed process function (keyed by report and group)
+ * that holds incoming metric data until the event time watermark passes their
+ * timestamp and then releases them in timestamp order. Metric data arriving
+ * after the watermark has already passed their timestamp can no longer be
+ * reordered and are emitted to the late metric data side output. Items are
+ * buffered along with their event time (epoch ms) and ordered by it, so that
+ * timestamps written in a non canonical form are ordered as they were parsed
+ */
+public class MetricReorderBuffer extends ProcessFunction<Tuple3<String, String, MetricData>, Tuple3<String, String, MetricData>> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Side output for metric data that arrived too late to be reordered
+	 */
+	public static final OutputTag<Tuple3<String, String, MetricData>> LATE_TAG = new OutputTag<Tuple3<String, String, MetricData>>(
+			"late-metric-data") {
+		private static final long serialVersionUID = 1L;
+	};
+
+	// metric data are ordered by their event time
+	private static final Comparator<Tuple2<Long, Tuple3<String, String, MetricData>>> BY_TIMESTAMP = new Comparator<Tuple2<Long, Tuple3<String, String, MetricData>>>() {
+		@Override
+		public int compare(Tuple2<Long, Tuple3<String, String, MetricData>> a,
+				Tuple2<Long, Tuple3<String, String, MetricData>> b) {
+			return a.f0.compareTo(b.f0);
+		}
+	};
+
+	// buffered metric data along with their event time
+	private transient ListState<Tuple2<Long, Tuple3<String, String, MetricData>>> buffer;
+	private transient Counter lateCounter;
+	private transient Counter reorderedCounter;
+
+	@Override
+	public void open(Configuration parameters) {
+		ListStateDescriptor<Tuple2<Long, Tuple3<String, String, MetricData>>> bufferDesc = new ListStateDescriptor<Tuple2<Long, Tuple3<String, String, MetricData>>>(
+				"reorder-buffer", TypeInformation.of(new TypeHint<Tuple2<Long, Tuple3<String, String, MetricData>>>() {
+				}));
+		this.buffer = getRuntimeContext().getListState(bufferDesc);
+		this.lateCounter = getRuntimeContext().getMetricGroup().counter("lateMetricData");
+		this.reorderedCounter = getRuntimeContext().getMetricGroup().counter("reorderedMetricData");
+	}
+
+	/**
+	 * Buffers a metric data item until the watermark reaches its timestamp or
+	 * routes it to the side output if it is already too late
+	 */
+	@Override
+	public void processElement(Tuple3<String, String, MetricData> value, Context ctx,
+			Collector<Tuple3<String, String, MetricData>> out) throws Exception {
+
+		Long ts = ctx.timestamp();
+		// no event time available - nothing to reorder
+		if (ts == null) {
+			out.collect(value);
+			return;
+		}
+
+		if (ts <= ctx.timerService().currentWatermark()) {
+			this.lateCounter.inc();
+			ctx.output(LATE_TAG, value);
+			return;
+		}
+
+		this.buffer.add(new Tuple2<Long, Tuple3<String, String, MetricData>>(ts, value));
+		ctx.timerService().registerEventTimeTimer(ts);
+	}
+
+	/**
+	 * Releases in timestamp order all buffered metric data that are covered by the
+	 * watermark and keeps the rest buffered
+	 */
+	@Override
+	public void onTimer(long timestamp, OnTimerContext ctx, Collector<Tuple3<String, String, MetricData>> out)
+			throws Exception {
+
+		Iterable<Tuple2<Long, Tuple3<String, String, MetricData>>> items = this.buffer.get();
+		if (items == null) {
+			return;
+		}
+
+		ArrayList<Tuple2<Long, Tuple3<String, String, MetricData>>> ready = new ArrayList<Tuple2<Long, Tuple3<String, String, MetricData>>>();
+		ArrayList<Tuple2<Long, Tuple3<String, String, MetricData>>> pending = new ArrayList<Tuple2<Long, Tuple3<String, String, MetricData>>>();
+
+		for (Tuple2<Long, Tuple3<String, String, MetricData>> item : items) {
+			if (item.f0 <= timestamp) {
+				ready.add(item);
+			} else {
+				pending.add(item);
+			}
+		}
+
+		if (ready.isEmpty()) {
+			return;
+		}
+
+		// Keep only the items that are still ahead of the watermark
+		this.buffer.clear();
+		for (Tuple2<Long, Tuple3<String, String, MetricData>> item : pending) {
+			this.buffer.add(item);
+		}
+
+		// Stable sort keeps arrival order for items with equal timestamps
+		Collections.sort(ready, BY_TIMESTAMP);
+		for (Tuple2<Long, Tuple3<String, String, MetricData>> item : ready) {
+			out.collect(item.f1);
+		}
+		this.reorderedCounter.inc(ready.size());
+	}
+
+}
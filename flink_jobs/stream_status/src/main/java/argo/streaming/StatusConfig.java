@@ -1,6 +1,7 @@
 package argo.streaming;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 import org.apache.flink.api.java.utils.ParameterTool;
 
@@ -23,6 +24,8 @@ public class StatusConfig implements Serializable {
 	public String avroSchema;
 	
 	public String report;
+	// Reports computed by the job (the first one is also kept as report)
+	public ArrayList<String> reports;
 	
 	// Sync files
 	public String aps;
@@ -34,8 +37,22 @@ public class StatusConfig implements Serializable {
 	public long timeout;
 	// Parameter used for daily event generation (not used in notifications)
 	public boolean daily;
+	// Parameter used as the number of groups emitted by the daily snapshot per processed metric data
+	public int dailyChunk;
 	// Parameter used to initialize a status to a default value (OK optimistically, MISSING pessimistically)
 	public String initStatus;
+	// Parameter used to enable event time processing with reordering of metric data
+	public boolean eventTime;
+	// Parameter used as reordering window (in ms) when event time is enabled
+	public long eventDelay;
+	// Parameter used as directory (local or hdfs) of the status snapshots used in warm starts
+	public String snapshotPath;
+	// Parameter used as interval (in ms) between status snapshots
+	public long snapshotInterval;
+	// Parameter used as base port of the embedded status query endpoints (-1 disables them)
+	public int queryPort;
+	// Parameter used as window (in ms) for coalescing the endpoint, service and group events of a group (0 disables it)
+	public long coalesceWindow;
 	
 	// Raw parameters
 	public final ParameterTool pt;
@@ -53,7 +70,14 @@ public class StatusConfig implements Serializable {
 	   this.ops = pt.getRequired("sync.ops");
 	   this.runDate = pt.getRequired("run.date");
 	   this.downtime = pt.getRequired("sync.downtime");
-	   this.report = pt.getRequired("report");
+	   // The report parameter accepts a comma separated list of reports
+	   this.reports = new ArrayList<String>();
+	   for (String item : pt.getRequired("report").split(",")) {
+		   if (!item.trim().isEmpty()) {
+			   this.reports.add(item.trim());
+		   }
+	   }
+	   this.report = this.reports.get(0);
 	   // Optional timeout parameter
 	   if (pt.has("timeout")){
 		   this.timeout = pt.getLong("timeout");
@@ -71,6 +95,21 @@ public class StatusConfig implements Serializable {
 	   
 	   // Optional set daily parameter
 	   this.daily = pt.getBoolean("daily",false);
+	   this.dailyChunk = pt.getInt("daily.chunk",10);
+	   
+	   // Optional event time parameters
+	   this.eventTime = pt.getBoolean("event.time",false);
+	   this.eventDelay = pt.getLong("event.delay",60000L);
+	   
+	   // Optional status snapshot parameters
+	   this.snapshotPath = pt.get("snapshot.path",null);
+	   this.snapshotInterval = pt.getLong("snapshot.interval",300000L);
+	   
+	   // Optional status query endpoint parameter
+	   this.queryPort = pt.getInt("query.port",-1);
+	   
+	   // Optional event coalescing parameter
+	   this.coalesceWindow = pt.getLong("coalesce.window",0L);
 	   
 	  }
 	
@@ -78,5 +117,21 @@ public class StatusConfig implements Serializable {
 	    return this.pt;
 	  }
 
+	/**
+	 * Get the sync file used by a report. A report specific file can be given by
+	 * suffixing the parameter with the report name (e.g. sync.mps.Critical),
+	 * otherwise the common file is used
+	 */
+	public String getSyncFile(String key, String report) {
+		return this.pt.get(key + "." + report, this.pt.getRequired(key));
+	}
+
+	/**
+	 * Get the uuid of a report (report.uuid.{report} or the common report.uuid)
+	 */
+	public String getReportUuid(String report) {
+		return this.pt.get("report.uuid." + report, this.pt.get("report.uuid"));
+	}
+
 	
 }
@@ -0,0 +1,130 @@
+package argo.streaming;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.text.ParseException;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import status.StatusManager;
+
+/**
+ * StatusQueryServer is a small embedded read-only http endpoint that serves the
+ * current statuses held by the status managers (one per report) directly from
+ * operator memory. Lookups are done with GET requests to:
+ * /status/{report}/{group}, /status/{report}/{group}/{service} or
+ * /status/{report}/{group}/{service}/{hostname}
+ * and return the status of the entity along with the statuses of its direct
+ * children. The status managers are accessed while holding the given lock so
+ * that lookups never observe a half applied update.
+ * Each status operator instance serves only the groups routed to it and listens
+ * on the base port plus its instance index. Lookups of a group handled by
+ * another instance are answered with 421 (misdirected request) naming the
+ * index and port of the instance to ask instead
+ */
+public class StatusQueryServer implements HttpHandler {
+
+	// setup logger
+	static Logger LOG = LoggerFactory.getLogger(StatusQueryServer.class);
+
+	private static final String CONTEXT = "/status/";
+
+	private final Map<String, StatusManager> sms;
+	private final Object lock;
+	private final GroupRouting routing;
+	private final int basePort;
+	private HttpServer server;
+
+	public StatusQueryServer(Map<String, StatusManager> sms, Object lock, GroupRouting routing, int basePort) {
+		this.sms = sms;
+		this.lock = lock;
+		this.routing = routing;
+		this.basePort = basePort;
+	}
+
+	/**
+	 * Starts serving lookups on the port of this operator instance (base port
+	 * plus instance index)
+	 */
+	public void start() throws IOException {
+		int port = this.basePort + this.routing.getIndex();
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		this.server.createContext(CONTEXT, this);
+		this.server.start();
+		LOG.info("Status query server listening on port " + port);
+	}
+
+	/**
+	 * Stops serving lookups
+	 */
+	public void stop() {
+		if (this.server != null) {
+			this.server.stop(0);
+			this.server = null;
+		}
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+				respond(exchange, 405, "{\"error\":\"method not allowed\"}");
+				return;
+			}
+
+			String path = exchange.getRequestURI().getRawPath().substring(CONTEXT.length());
+			String[] names = path.split("/");
+			if (names.length < 2 || names.length > 4 || names[0].isEmpty() || names[1].isEmpty()) {
+				respond(exchange, 400, "{\"error\":\"expected /status/{report}/{group}[/{service}[/{hostname}]]\"}");
+				return;
+			}
+			for (int i = 0; i < names.length; i++) {
+				names[i] = URLDecoder.decode(names[i], "UTF-8");
+			}
+
+			int owner = this.routing.instanceOf(names[0], names[1]);
+			if (owner != this.routing.getIndex()) {
+				respond(exchange, 421, "{\"error\":\"group handled by another instance\",\"instance\":" + owner
+						+ ",\"port\":" + (this.basePort + owner) + "}");
+				return;
+			}
+
+			String result = null;
+			synchronized (this.lock) {
+				StatusManager sm = this.sms.get(names[0]);
+				if (sm != null) {
+					result = sm.queryStatus(names[1], names.length > 2 ? names[2] : null,
+							names.length > 3 ? names[3] : null);
+				}
+			}
+
+			if (result == null) {
+				respond(exchange, 404, "{\"error\":\"not found\"}");
+			} else {
+				respond(exchange, 200, result);
+			}
+		} catch (ParseException e) {
+			respond(exchange, 500, "{\"error\":\"invalid status timestamp\"}");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void respond(HttpExchange exchange, int code, String body) throws IOException {
+		byte[] bytes = body.getBytes("UTF-8");
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(code, bytes.length);
+		OutputStream os = exchange.getResponseBody();
+		os.write(bytes);
+		os.close();
+	}
+
+}
@@ -0,0 +1,213 @@
+package argo.streaming;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import status.StatusManager;
+
+/**
+ * StatusSnapshotStore keeps binary status snapshots of the status managers in
+ * a directory (local or hdfs). Each operator instance writes its own snapshot
+ * file per report and on startup all the snapshot files of a report are read
+ * so that the job can warm start even with a different parallelism. Snapshot
+ * files left by the instances of an earlier run with a higher parallelism are
+ * deleted once all the current instances have written their own (see cleanup)
+ */
+public class StatusSnapshotStore {
+
+	// setup logger
+	static Logger LOG = LoggerFactory.getLogger(StatusSnapshotStore.class);
+
+	private final FileSystem fs;
+	private final Path dir;
+
+	/**
+	 * Creates a snapshot store
+	 *
+	 * @param url
+	 *            Directory of the snapshots (prefix with "hdfs://" for hdfs usage)
+	 */
+	public StatusSnapshotStore(String url) throws IOException, URISyntaxException {
+		URI uri = new URI(url);
+		this.fs = FileSystem.get(uri, new Configuration());
+		this.dir = new Path(uri);
+	}
+
+	private String prefix(String report) {
+		return "status-" + report + "-";
+	}
+
+	private Path snapshotPath(String report, String pID) {
+		return new Path(this.dir, prefix(report) + pID + ".snapshot");
+	}
+
+	/**
+	 * Lists the snapshot files of a report (status-{report}-{instance}.snapshot)
+	 * from the oldest to the most recently written one
+	 */
+	private FileStatus[] listSnapshots(String report) throws IOException {
+		if (!this.fs.exists(this.dir)) {
+			return new FileStatus[0];
+		}
+
+		ArrayList<FileStatus> files = new ArrayList<FileStatus>();
+		for (FileStatus file : this.fs.listStatus(this.dir)) {
+			if (snapshotIndex(file, report) >= 0) {
+				files.add(file);
+			}
+		}
+
+		FileStatus[] sorted = files.toArray(new FileStatus[files.size()]);
+		Arrays.sort(sorted, new Comparator<FileStatus>() {
+			@Override
+			public int compare(FileStatus a, FileStatus b) {
+				return Long.compare(a.getModificationTime(), b.getModificationTime());
+			}
+		});
+		return sorted;
+	}
+
+	/**
+	 * Get the index of the operator instance that wrote a snapshot file of a
+	 * report (-1 if the file is not a snapshot of the report)
+	 */
+	private int snapshotIndex(FileStatus file, String report) {
+		String prefix = prefix(report);
+		String name = file.getPath().getName();
+		if (!name.startsWith(prefix) || !name.endsWith(".snapshot")) {
+			return -1;
+		}
+		String index = name.substring(prefix.length(), name.length() - ".snapshot".length());
+		if (!index.matches("[0-9]+")) {
+			return -1;
+		}
+		return Integer.parseInt(index);
+	}
+
+	/**
+	 * Serializes the snapshot of a status manager in memory, so that it can be
+	 * written (see write) without holding on to the status manager
+	 *
+	 * @param sm
+	 *            Status manager to be persisted
+	 * @return The binary snapshot
+	 */
+	public static byte[] serialize(StatusManager sm) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bos);
+		sm.writeSnapshot(out);
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	/**
+	 * Writes a serialized snapshot of a status manager. The snapshot is first
+	 * written to a temporary file and then renamed so that a failure never leaves
+	 * a partial snapshot behind
+	 *
+	 * @param snapshot
+	 *            Binary snapshot of the status manager (see serialize)
+	 * @param report
+	 *            Name of the report computed by the status manager
+	 * @param pID
+	 *            Index of the operator instance
+	 */
+	public void write(byte[] snapshot, String report, String pID) throws IOException {
+		Path target = snapshotPath(report, pID);
+		Path tmp = target.suffix(".tmp");
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(this.fs.create(tmp, true)));
+		try {
+			out.write(snapshot);
+		} finally {
+			out.close();
+		}
+
+		if (this.fs.exists(target)) {
+			this.fs.delete(target, false);
+		}
+		if (!this.fs.rename(tmp, target)) {
+			throw new IOException("Unable to rename status snapshot to " + target);
+		}
+	}
+
+	/**
+	 * Reads all the snapshots of the report into a status manager, from the oldest
+	 * to the most recently written one. Unreadable snapshots are skipped
+	 *
+	 * @param sm
+	 *            Status manager to be warm started
+	 * @param report
+	 *            Name of the report computed by the status manager
+	 * @return Number of endpoint groups kept by the status manager
+	 */
+	public int restore(StatusManager sm, String report) throws IOException {
+		int count = 0;
+		for (FileStatus file : listSnapshots(report)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(this.fs.open(file.getPath())));
+			try {
+				count += sm.readSnapshot(in);
+			} catch (IOException e) {
+				LOG.warn("Skipping unreadable status snapshot " + file.getPath() + ": " + e.getMessage());
+			} finally {
+				in.close();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Deletes the snapshots of a report written by operator instances that no
+	 * longer exist (index not below the current parallelism). Each current
+	 * instance carries the groups it restored over to its own snapshot, so stale
+	 * snapshots are deleted only once every current instance has written one
+	 * since the given time
+	 *
+	 * @param report
+	 *            Name of the report
+	 * @param parallelism
+	 *            Current number of operator instances
+	 * @param since
+	 *            Time (epoch ms) the current instances started
+	 * @return Number of snapshots deleted
+	 */
+	public int cleanup(String report, int parallelism, long since) throws IOException {
+		ArrayList<FileStatus> stale = new ArrayList<FileStatus>();
+		int written = 0;
+		for (FileStatus file : listSnapshots(report)) {
+			if (snapshotIndex(file, report) >= parallelism) {
+				stale.add(file);
+			} else if (file.getModificationTime() >= since) {
+				written++;
+			}
+		}
+		if (written < parallelism) {
+			return 0;
+		}
+
+		int count = 0;
+		for (FileStatus file : stale) {
+			if (this.fs.delete(file.getPath(), false)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
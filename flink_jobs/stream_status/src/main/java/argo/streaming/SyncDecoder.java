@@ -0,0 +1,91 @@
+package argo.streaming;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.flink.api.common.functions.RichFlatMapFunction;
+import org.apache.flink.util.Collector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * SyncDecoder implements a flat map function that decodes raw sync messages
+ * from AMS (json, base64 and avro) into SyncUpdate objects. It runs once
+ * upstream so that parallel operators receive already decoded sync data.
+ * Messages of unknown types or of reports not computed by the job are discarded
+ */
+public class SyncDecoder extends RichFlatMapFunction<String, SyncUpdate> {
+
+	private static final long serialVersionUID = 1L;
+
+	// setup logger
+	static Logger LOG = LoggerFactory.getLogger(SyncDecoder.class);
+
+	private ArrayList<String> reports;
+	private long version = 0;
+
+	public SyncDecoder(StatusConfig config) {
+		this.reports = config.reports;
+	}
+
+	/**
+	 * Decodes a raw sync message
+	 * 
+	 * @param value
+	 *            Input sync message in json format from AMS service
+	 * @param out
+	 *            Collection of decoded sync updates
+	 */
+	@Override
+	public void flatMap(String value, Collector<SyncUpdate> out) throws IOException {
+
+		JsonParser jsonParser = new JsonParser();
+		// parse the json root object
+		JsonElement jRoot = jsonParser.parse(value);
+		JsonElement jAttr = jRoot.getAsJsonObject().get("attributes");
+		Map<String, String> attr = SyncParse.parseAttributes(jAttr);
+
+		// The sync dataset should have a type and report attribute and report should
+		// be one of the job's reports
+		if (!attr.containsKey("type") || !attr.containsKey("report") || !this.reports.contains(attr.get("report"))) {
+			LOG.info("Declined " + attr.get("type") + " for report: " + attr.get("report"));
+			return;
+		}
+
+		String sType = attr.get("type");
+		String report = attr.get("report");
+		if (!sType.equalsIgnoreCase(SyncUpdate.METRIC_PROFILE) && !sType.equals(SyncUpdate.GROUP_ENDPOINTS)
+				&& !(sType.equals(SyncUpdate.DOWNTIMES) && attr.containsKey("partition_date"))) {
+			LOG.info("Declined unknown sync type " + sType + " for report: " + report);
+			return;
+		}
+
+		// parse the json field "data" and read it as string
+		// this is the base64 string payload
+		String data = jRoot.getAsJsonObject().get("data").getAsString();
+		// Decode from base64
+		byte[] decoded64 = Base64.decodeBase64(data.getBytes("UTF-8"));
+
+		this.version++;
+		SyncUpdate update = new SyncUpdate(sType, report, attr.get("partition_date"), this.version);
+
+		// Decode from avro
+		if (sType.equalsIgnoreCase(SyncUpdate.METRIC_PROFILE)) {
+			update.type = SyncUpdate.METRIC_PROFILE;
+			update.metricProfile = SyncParse.parseMetricProfile(decoded64);
+		} else if (sType.equals(SyncUpdate.GROUP_ENDPOINTS)) {
+			update.groupEndpoints = SyncParse.parseGroupEndpoint(decoded64);
+		} else {
+			update.downtimes = SyncParse.parseDowntimes(decoded64);
+		}
+
+		LOG.info("Accepted sync update " + update);
+		out.collect(update);
+	}
+
+}
@@ -0,0 +1,54 @@
+package argo.streaming;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import argo.avro.Downtime;
+import argo.avro.GroupEndpoint;
+import argo.avro.MetricProfile;
+
+/**
+ * SyncUpdate holds a decoded sync data set as received from the sync AMS
+ * subscription. Sync messages are decoded once upstream and distributed to all
+ * parallel operators as ready to use SyncUpdate objects. Each update carries a
+ * version which increases with every accepted sync message
+ */
+public class SyncUpdate implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// Sync data set types
+	public static final String METRIC_PROFILE = "metric_profile";
+	public static final String GROUP_ENDPOINTS = "group_endpoints";
+	public static final String DOWNTIMES = "downtimes";
+
+	// Type of the sync data set
+	public String type;
+	// Report the sync data set belongs to
+	public String report;
+	// Partition date (used in downtimes)
+	public String partitionDate;
+	// Version of the update
+	public long version;
+
+	// Decoded contents (only the one matching the type is set)
+	public ArrayList<MetricProfile> metricProfile;
+	public ArrayList<GroupEndpoint> groupEndpoints;
+	public ArrayList<Downtime> downtimes;
+
+	public SyncUpdate() {
+	}
+
+	public SyncUpdate(String type, String report, String partitionDate, long version) {
+		this.type = type;
+		this.report = report;
+		this.partitionDate = partitionDate;
+		this.version = version;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + this.type + "," + this.report + "," + this.partitionDate + "," + this.version + ")";
+	}
+
+}
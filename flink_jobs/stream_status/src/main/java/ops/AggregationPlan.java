@@ -0,0 +1,152 @@
+package ops;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import sync.AggregationProfileManager;
+
+/**
+ * AggregationPlan is an immutable, precompiled form of an aggregation profile
+ * bound to an operations profile. All profile semantics (service to group
+ * mapping, operations per level and the truth table) are resolved once when
+ * the plan is built, so that aggregation loops work only with integer codes
+ */
+public class AggregationPlan {
+
+	private final String profile;
+
+	private final int numStates;
+	private final int numOps;
+	// flattened truth table indexed as [op][a][b]
+	private final int[] truthTable;
+
+	private final int metricOp;
+	private final int totalOp;
+
+	// aggregation groups with their operations (indexed by group id)
+	private final String[] groups;
+	private final int[] groupOps;
+
+	// service name to group id and service operation
+	private final HashMap<String, Integer> serviceGroups;
+	private final HashMap<String, Integer> serviceOps;
+
+	/**
+	 * Compiles a new aggregation plan
+	 *
+	 * @param apsMgr
+	 *            Aggregation profile manager holding the profile
+	 * @param avProfile
+	 *            Name of the aggregation profile to compile
+	 * @param opsMgr
+	 *            Operations manager holding states, operations and truth table
+	 */
+	public AggregationPlan(AggregationProfileManager apsMgr, String avProfile, OpsManager opsMgr) {
+		this.profile = avProfile;
+
+		ArrayList<String> states = opsMgr.availableStates();
+		ArrayList<String> ops = opsMgr.availableOps();
+		this.numStates = states.size();
+		this.numOps = ops.size();
+
+		// Flatten the truth table
+		this.truthTable = new int[this.numOps * this.numStates * this.numStates];
+		for (int op = 0; op < this.numOps; op++) {
+			for (int a = 0; a < this.numStates; a++) {
+				for (int b = 0; b < this.numStates; b++) {
+					this.truthTable[(op * this.numStates + a) * this.numStates + b] = opsMgr.opInt(op, a, b);
+				}
+			}
+		}
+
+		this.metricOp = ops.indexOf(apsMgr.getMetricOp(avProfile));
+		this.totalOp = ops.indexOf(apsMgr.getTotalOp(avProfile));
+
+		// Index groups and services
+		ArrayList<String> groupList = apsMgr.getProfileGroups(avProfile);
+		if (groupList == null) {
+			groupList = new ArrayList<String>();
+		}
+
+		this.groups = new String[groupList.size()];
+		this.groupOps = new int[groupList.size()];
+		this.serviceGroups = new HashMap<String, Integer>();
+		this.serviceOps = new HashMap<String, Integer>();
+
+		for (int i = 0; i < groupList.size(); i++) {
+			String group = groupList.get(i);
+			this.groups[i] = group;
+			this.groupOps[i] = ops.indexOf(apsMgr.getProfileGroupOp(avProfile, group));
+
+			for (String service : apsMgr.getProfileGroupServices(avProfile, group)) {
+				this.serviceGroups.put(service, i);
+				this.serviceOps.put(service, ops.indexOf(apsMgr.getProfileGroupServiceOp(avProfile, group, service)));
+			}
+		}
+	}
+
+	/**
+	 * Applies an operation on two status values using the flattened truth table
+	 *
+	 * @return the resulting status or -1 if operation or statuses are invalid
+	 */
+	public int op(int op, int a, int b) {
+		if (op < 0 || a < 0 || b < 0 || op >= this.numOps || a >= this.numStates || b >= this.numStates) {
+			return -1;
+		}
+		return this.truthTable[(op * this.numStates + a) * this.numStates + b];
+	}
+
+	public String getProfile() {
+		return this.profile;
+	}
+
+	public int getNumStates() {
+		return this.numStates;
+	}
+
+	public int getMetricOp() {
+		return this.metricOp;
+	}
+
+	public int getTotalOp() {
+		return this.totalOp;
+	}
+
+	public int getGroupCount() {
+		return this.groups.length;
+	}
+
+	public String getGroupName(int group) {
+		return this.groups[group];
+	}
+
+	public int getGroupOp(int group) {
+		return this.groupOps[group];
+	}
+
+	/**
+	 * Returns the id of the aggregation group a service belongs to or -1 if the
+	 * service is not part of the profile
+	 */
+	public int getServiceGroup(String service) {
+		Integer group = this.serviceGroups.get(service);
+		if (group == null) {
+			return -1;
+		}
+		return group;
+	}
+
+	/**
+	 * Returns the operation used to aggregate the endpoints of a service or -1 if
+	 * the service is not part of the profile
+	 */
+	public int getServiceOp(String service) {
+		Integer op = this.serviceOps.get(service);
+		if (op == null) {
+			return -1;
+		}
+		return op;
+	}
+
+}
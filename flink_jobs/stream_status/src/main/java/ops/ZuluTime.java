@@ -0,0 +1,259 @@
+package ops;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * ZuluTime converts zulu timestamps (yyyy-MM-dd'T'HH:mm:ss'Z') and dates
+ * (yyyy-MM-dd) to and from epoch milliseconds (UTC). Canonical input is parsed
+ * field by field without allocating anything and without building formatters.
+ * Any other input (e.g. non padded fields) falls back to a lenient
+ * SimpleDateFormat, so results are the same as parsing with the usual format
+ * in UTC, including the lenient overflow of fields (e.g. 24:00:00)
+ */
+public final class ZuluTime {
+
+	public static final String FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+	public static final String DATE_FORMAT = "yyyy-MM-dd";
+
+	private static final long SECOND = 1000L;
+	private static final long DAY = 86400L * SECOND;
+
+	// Fallback formatters for non canonical input (one per thread as
+	// SimpleDateFormat is not thread safe)
+	private static final ThreadLocal<SimpleDateFormat> ZULU = new ThreadLocal<SimpleDateFormat>() {
+		@Override
+		protected SimpleDateFormat initialValue() {
+			return utcFormat(FORMAT);
+		}
+	};
+	private static final ThreadLocal<SimpleDateFormat> DATE = new ThreadLocal<SimpleDateFormat>() {
+		@Override
+		protected SimpleDateFormat initialValue() {
+			return utcFormat(DATE_FORMAT);
+		}
+	};
+
+	private ZuluTime() {
+	}
+
+	private static SimpleDateFormat utcFormat(String pattern) {
+		SimpleDateFormat format = new SimpleDateFormat(pattern);
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return format;
+	}
+
+	/**
+	 * Parses a zulu timestamp to epoch milliseconds
+	 */
+	public static long parse(String zulu) throws ParseException {
+		if (isCanonical(zulu)) {
+			return days(zulu) * DAY + secondOfDayFields(zulu) * SECOND;
+		}
+		return ZULU.get().parse(zulu).getTime();
+	}
+
+	/**
+	 * Parses a zulu timestamp to epoch seconds
+	 */
+	public static long parseSeconds(String zulu) throws ParseException {
+		return floorDiv(parse(zulu), SECOND);
+	}
+
+	/**
+	 * Returns the second of day (0-86399) of a zulu timestamp
+	 */
+	public static int secondOfDay(String zulu) throws ParseException {
+		if (isCanonical(zulu)) {
+			return (int) floorMod(secondOfDayFields(zulu), 86400L);
+		}
+		return (int) (floorMod(parse(zulu), DAY) / SECOND);
+	}
+
+	/**
+	 * Returns the minute of day (0-1439) of a zulu timestamp, seconds are
+	 * truncated
+	 */
+	public static int minuteOfDay(String zulu) throws ParseException {
+		return secondOfDay(zulu) / 60;
+	}
+
+	/**
+	 * Parses a date (or the date part of a zulu timestamp) to the epoch
+	 * milliseconds of its midnight
+	 */
+	public static long parseDate(String date) throws ParseException {
+		if (date != null && date.length() >= 10 && isDate(date)) {
+			return days(date) * DAY;
+		}
+		return DATE.get().parse(date).getTime();
+	}
+
+	/**
+	 * Returns the date part of a timestamp (everything before the 'T')
+	 */
+	public static String datePart(String zulu) {
+		int t = zulu.indexOf('T');
+		return t < 0 ? zulu : zulu.substring(0, t);
+	}
+
+	/**
+	 * Returns true if the date part of a timestamp is the given date
+	 */
+	public static boolean isOnDate(String zulu, String date) {
+		int t = zulu.indexOf('T');
+		int len = t < 0 ? zulu.length() : t;
+		return len == date.length() && zulu.regionMatches(0, date, 0, len);
+	}
+
+	/**
+	 * Returns the date of a zulu timestamp as an integer (yyyyMMdd)
+	 */
+	public static int dateInt(String zulu) {
+		if (isCanonical(zulu)) {
+			return num(zulu, 0, 4) * 10000 + num(zulu, 5, 7) * 100 + num(zulu, 8, 10);
+		}
+		return Integer.parseInt(zulu.split("Z")[0].split("T")[0].replace("-", ""));
+	}
+
+	/**
+	 * Returns the time of a zulu timestamp as an integer (HHmmss)
+	 */
+	public static int timeInt(String zulu) {
+		if (isCanonical(zulu)) {
+			return num(zulu, 11, 13) * 10000 + num(zulu, 14, 16) * 100 + num(zulu, 17, 19);
+		}
+		return Integer.parseInt(zulu.split("Z")[0].split("T")[1].replace(":", ""));
+	}
+
+	/**
+	 * Formats epoch milliseconds as a zulu timestamp
+	 */
+	public static String format(long millis) {
+		char[] buf = new char[20];
+		if (!format(millis, buf, 0)) {
+			return ZULU.get().format(new Date(millis));
+		}
+		return new String(buf);
+	}
+
+	/**
+	 * Formats epoch milliseconds as a zulu timestamp into the 20 characters of
+	 * a buffer starting at an offset
+	 *
+	 * @return false if the year does not fit in 4 digits (nothing is written)
+	 */
+	public static boolean format(long millis, char[] buf, int offset) {
+		long days = floorDiv(millis, DAY);
+		int secs = (int) (floorMod(millis, DAY) / SECOND);
+		if (!formatDate(days, buf, offset)) {
+			return false;
+		}
+		buf[offset + 10] = 'T';
+		digits(secs / 3600, buf, offset + 11);
+		buf[offset + 13] = ':';
+		digits(secs / 60 % 60, buf, offset + 14);
+		buf[offset + 16] = ':';
+		digits(secs % 60, buf, offset + 17);
+		buf[offset + 19] = 'Z';
+		return true;
+	}
+
+	/**
+	 * Formats the date (UTC) of epoch milliseconds
+	 */
+	public static String formatDate(long millis) {
+		char[] buf = new char[10];
+		if (!formatDate(floorDiv(millis, DAY), buf, 0)) {
+			return DATE.get().format(new Date(millis));
+		}
+		return new String(buf);
+	}
+
+	private static boolean formatDate(long days, char[] buf, int offset) {
+		// civil date of a day count since epoch (proleptic gregorian calendar)
+		long z = days + 719468;
+		long era = (z >= 0 ? z : z - 146096) / 146097;
+		long doe = z - era * 146097;
+		long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		long mp = (5 * doy + 2) / 153;
+		int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+		int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+		if (year < 1 || year > 9999) {
+			return false;
+		}
+		digits((int) (year / 100), buf, offset);
+		digits((int) (year % 100), buf, offset + 2);
+		buf[offset + 4] = '-';
+		digits(month, buf, offset + 5);
+		buf[offset + 7] = '-';
+		digits(day, buf, offset + 8);
+		return true;
+	}
+
+	private static void digits(int value, char[] buf, int offset) {
+		buf[offset] = (char) ('0' + value / 10);
+		buf[offset + 1] = (char) ('0' + value % 10);
+	}
+
+	private static boolean isDigit(String s, int i) {
+		char c = s.charAt(i);
+		return c >= '0' && c <= '9';
+	}
+
+	private static int num(String s, int from, int to) {
+		int value = 0;
+		for (int i = from; i < to; i++) {
+			value = value * 10 + (s.charAt(i) - '0');
+		}
+		return value;
+	}
+
+	private static boolean isDate(String s) {
+		return isDigit(s, 0) && isDigit(s, 1) && isDigit(s, 2) && isDigit(s, 3) && s.charAt(4) == '-'
+				&& isDigit(s, 5) && isDigit(s, 6) && s.charAt(7) == '-' && isDigit(s, 8) && isDigit(s, 9);
+	}
+
+	private static boolean isCanonical(String s) {
+		return s != null && s.length() == 20 && isDate(s) && s.charAt(10) == 'T' && isDigit(s, 11) && isDigit(s, 12)
+				&& s.charAt(13) == ':' && isDigit(s, 14) && isDigit(s, 15) && s.charAt(16) == ':' && isDigit(s, 17)
+				&& isDigit(s, 18) && s.charAt(19) == 'Z';
+	}
+
+	private static long secondOfDayFields(String s) {
+		return num(s, 11, 13) * 3600L + num(s, 14, 16) * 60L + num(s, 17, 19);
+	}
+
+	/**
+	 * Days since epoch of the date fields of a canonical string (months and
+	 * days out of range overflow as in a lenient calendar)
+	 */
+	private static long days(String s) {
+		long year = num(s, 0, 4);
+		long month = num(s, 5, 7) - 1;
+		int day = num(s, 8, 10);
+		year += floorDiv(month, 12);
+		month = floorMod(month, 12) + 1;
+
+		long y = month <= 2 ? year - 1 : year;
+		long era = (y >= 0 ? y : y - 399) / 400;
+		long yoe = y - era * 400;
+		long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5;
+		long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+		return era * 146097 + doe - 719468 + (day - 1);
+	}
+
+	private static long floorDiv(long x, long y) {
+		long q = x / y;
+		return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+	}
+
+	private static long floorMod(long x, long y) {
+		return x - floorDiv(x, y) * y;
+	}
+
+}
@@ -2,6 +2,8 @@ package status;
 
 import com.google.gson.annotations.SerializedName;
 
+import ops.ZuluTime;
+
 public class StatusEvent{
 
 	private String report;
@@ -154,8 +156,7 @@ public class StatusEvent{
 	}
 	
 	public int getTimeInt() {
-		String timePart = this.tsMonitored.replaceAll(":|Z", "").split("T")[1];
-		return Integer.parseInt(timePart);
+		return ZuluTime.timeInt(this.tsMonitored);
 	}
 	
 	
@@ -1,33 +1,41 @@
 package status;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
-import java.text.DateFormat;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.TreeMap;
 
 import org.apache.hadoop.hdfs.tools.DFSAdmin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.TimeZone;
-
 import sync.AggregationProfileManager;
 import sync.DowntimeCache;
 import sync.DowntimeManager;
 import sync.EndpointGroupManagerV2;
 import sync.EndpointGroupManagerV2.EndpointItem;
 import sync.MetricProfileManager;
+import ops.AggregationPlan;
 import ops.OpsManager;
+import ops.ZuluTime;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 
 import argo.avro.Downtime;
 import argo.avro.GroupEndpoint;
@@ -54,6 +62,8 @@ public class StatusManager {
 	public MetricProfileManager mps = new MetricProfileManager();
 	AggregationProfileManager aps = new AggregationProfileManager();
 	OpsManager ops = new OpsManager();
+	// Aggregation profile precompiled against the operations profile
+	AggregationPlan plan;
 	private Long timeout = 86400000L;
 	
 	// Add downtime manager cache - 5 slots are enough for status manager case
@@ -67,12 +77,53 @@ public class StatusManager {
 	// Structure to hold topology entities and related statuses
 	Map<String, StatusNode> groups = new HashMap<String, StatusNode>();
 
+	// Scheduled repeat notifications indexed by due time (epoch ms)
+	TreeMap<Long, LinkedHashSet<StatusNode>> timeouts = new TreeMap<Long, LinkedHashSet<StatusNode>>();
+
+	// Scheduled downtime start and end boundaries indexed by time (epoch ms)
+	TreeMap<Long, ArrayList<DowntimeBoundary>> downtimeBoundaries = new TreeMap<Long, ArrayList<DowntimeBoundary>>();
+	// Keys of the scheduled boundaries (used to ignore resent downtime feeds)
+	HashSet<String> downtimeScheduled = new HashSet<String>();
+	// Time up to which downtime boundaries have been fired
+	long downtimeClock = Long.MIN_VALUE;
+
 	// Flag used in initial event generation
 	Boolean firstGen = true;
 
 	// Timestamp of the latest processed event used as a daily event generation
 	// trigger
 	String tsLatest;
+
+	// Groups not yet emitted by the daily snapshot in progress and its timestamp
+	LinkedHashSet<String> dailyPending = new LinkedHashSet<String>();
+	Date dailyTs;
+
+	// Window (ms of metric time) used to coalesce the endpoint, service and group
+	// events of a group (0 disables coalescing). Windows are closed by fireCoalesced
+	// so they are flushed only as metric data of the report keep arriving
+	private long coalesceWindow = 0;
+	// Coalesced events per group keyed by entity (in order of arrival)
+	HashMap<String, LinkedHashMap<String, StatusEvent>> coalesced = new HashMap<String, LinkedHashMap<String, StatusEvent>>();
+	// Groups with coalesced events indexed by their flush time (epoch ms)
+	TreeMap<Long, LinkedHashSet<String>> coalesceDue = new TreeMap<Long, LinkedHashSet<String>>();
+
+	// Version of the binary status snapshot format (version 1 has no coalesced
+	// events)
+	static final int SNAPSHOT_VERSION = 2;
+	// Status trees read from a snapshot waiting for their group to be handled
+	Map<String, StatusNode> restored = new HashMap<String, StatusNode>();
+	// Selects the snapshot groups handled by this status manager (null keeps all)
+	private GroupOwner groupOwner;
+
+	// Reasons for which setStatus discards a metric result
+	public static final String DROP_DOWNTIME = "downtime";
+	public static final String DROP_UNKNOWN_GROUP = "unknown_group";
+	public static final String DROP_UNKNOWN_ENDPOINT = "unknown_endpoint";
+	public static final String DROP_UNKNOWN_METRIC = "unknown_metric";
+	public static final String DROP_OUT_OF_ORDER = "out_of_order";
+	// Reason the last result given to setStatus was discarded (null if it was
+	// processed)
+	String dropReason;
 	
 	public void setReport(String report) {
 		this.report = report;
@@ -90,6 +141,35 @@ public class StatusManager {
 		return this.timeout;
 	}
 
+	public void setCoalesceWindow(long coalesceWindow) {
+		this.coalesceWindow = coalesceWindow;
+	}
+
+	public long getCoalesceWindow() {
+		return this.coalesceWindow;
+	}
+
+	public void setGroupOwner(GroupOwner groupOwner) {
+		this.groupOwner = groupOwner;
+	}
+
+	/**
+	 * Group Owner decides whether an endpoint group of a report is handled by a
+	 * status manager. Snapshots hold the groups of all the operator instances,
+	 * so only the groups owned by this one are kept when a snapshot is read
+	 */
+	public interface GroupOwner {
+		boolean owns(String report, String group);
+	}
+
+	/**
+	 * Returns the reason the last result given to setStatus was discarded (one of
+	 * the DROP_* constants) or null if the result was processed
+	 */
+	public String getDropReason() {
+		return this.dropReason;
+	}
+
 	// Get Operation Manager
 	public OpsManager getOps() {
 		return this.ops;
@@ -108,6 +188,27 @@ public class StatusManager {
 	
 	public void addDowntimeSet(String dayStamp, ArrayList<Downtime> downList) {
 		this.dc.addFeed(dayStamp, downList);
+		scheduleDowntimes(downList);
+	}
+
+	/**
+	 * Downtime Boundary represents the start or the end of a downtime period of a
+	 * service endpoint
+	 */
+	public class DowntimeBoundary {
+		String hostname;
+		String service;
+		boolean start;
+
+		public DowntimeBoundary(String hostname, String service, boolean start) {
+			this.hostname = hostname;
+			this.service = service;
+			this.start = start;
+		}
+
+		String key(long ts) {
+			return this.hostname + "|" + this.service + "|" + ts + "|" + this.start;
+		}
 	}
 
 	/**
@@ -117,12 +218,23 @@ public class StatusManager {
 	public class StatusNode {
 		// Type of entity: endpoint_group,service,endpoint or metric
 		String type;
+		// Name of the entity
+		String name;
 		// Status information with timestamp
 		StatusItem item;
 		// A list of entities contained as children
 		Map<String, StatusNode> children = new HashMap<String, StatusNode>();
 		// Reference to the parent node
 		StatusNode parent = null;
+		// Aggregation group id and operation resolved from the plan (service nodes)
+		int aggGroup = -1;
+		int aggOp = -1;
+		// Due time of the scheduled repeat notification (-1 if not scheduled)
+		long due = -1;
+		// Default status and timestamp implicitly carried by the metrics of an
+		// endpoint that are not materialized yet (endpoint nodes)
+		int defStatus = -1;
+		Date defTs;
 
 		/**
 		 * Creates a new status node
@@ -208,14 +320,7 @@ public class StatusManager {
 			return false;
 
 
-		String dtOld = tsOld.split("T")[0];
-		String dtNew = tsNew.split("T")[0];
-
-		if (dtOld.compareToIgnoreCase(dtNew) != 0) {
-			return true;
-		}
-
-		return false;
+		return !ZuluTime.isOnDate(tsNew, ZuluTime.datePart(tsOld));
 	}
 
 	/**
@@ -246,8 +351,7 @@ public class StatusManager {
 	 * @return Date object
 	 */
 	public Date setDate(String zulu) throws ParseException {
-		String[] parts = zulu.split("T");
-		return fromZulu(parts[0] + "T00:00:00Z");
+		return new Date(ZuluTime.parseDate(zulu));
 	}
 
 	/**
@@ -258,6 +362,8 @@ public class StatusManager {
 		this.validMetricProfile = this.mps.getProfiles().get(0);
 		this.validAggProfile = this.aps.getAvProfiles().get(0);
 		this.validServices = this.mps.getProfileServices(this.validMetricProfile);
+		// Compile the aggregation plan used in all aggregation steps
+		this.plan = new AggregationPlan(this.aps, this.validAggProfile, this.ops);
 	}
 
 	/**
@@ -280,6 +386,7 @@ public class StatusManager {
 		
 		// First downtime loaded in cache 
 		dc.addFeed(runDate, downList);
+		scheduleDowntimes(downList);
 		
 		
 		setValidProfileServices();
@@ -364,6 +471,7 @@ public class StatusManager {
 		// Check if group exists
 		if (!this.groups.containsKey(group)) {
 			StatusNode groupNode = new StatusNode("group", defStatus, defTs);
+			groupNode.name = group;
 			this.groups.put(group, groupNode);
 			// Add to the new node
 			addService(groupNode, service, hostname, defStatus, defTs);
@@ -392,6 +500,9 @@ public class StatusManager {
 	public void addService(StatusNode groupNode, String service, String hostname, int defStatus, Date defTs) {
 		if (!groupNode.children.containsKey(service)) {
 			StatusNode serviceNode = new StatusNode("service", defStatus, defTs, groupNode);
+			serviceNode.name = service;
+			serviceNode.aggGroup = this.plan.getServiceGroup(service);
+			serviceNode.aggOp = this.plan.getServiceOp(service);
 			groupNode.children.put(service, serviceNode);
 			// Add to the new node
 			addEndpoint(serviceNode, service, hostname, defStatus, defTs);
@@ -419,6 +530,9 @@ public class StatusManager {
 	public void addEndpoint(StatusNode serviceNode, String service, String hostname, int defStatus, Date defTs) {
 		if (!serviceNode.children.containsKey(hostname)) {
 			StatusNode endpointNode = new StatusNode("endpoint", defStatus, defTs, serviceNode);
+			endpointNode.name = hostname;
+			endpointNode.defStatus = defStatus;
+			endpointNode.defTs = defTs;
 			serviceNode.children.put(hostname, endpointNode);
 			// Add to the new node
 			addMetrics(endpointNode, service, hostname, defStatus, defTs);
@@ -430,7 +544,10 @@ public class StatusManager {
 	}
 
 	/**
-	 * Add a new metrics node to the status topology using metric data information
+	 * Checks that the metrics of a new endpoint are defined in the metric profile.
+	 * Metric nodes are not created here: they are materialized when the first
+	 * result of the metric arrives (see getMetricNode) and until then they
+	 * implicitly carry the default status and timestamp of their endpoint
 	 * 
 	 * @param endpointNode
 	 *            Reference to the parent node
@@ -452,11 +569,407 @@ public class StatusManager {
 			throw new RuntimeException(msg);
 		}
 
-		// For all available metrics create leaf metric nodes
-		for (String metric : metrics) {
-			StatusNode metricNode = new StatusNode("metric", defStatus, defTs, endpointNode);
-			metricNode.children = null;
-			endpointNode.children.put(metric, metricNode);
+	}
+
+	/**
+	 * Get the metric node of an endpoint, materializing it with the endpoint's
+	 * default status and timestamp if the metric belongs to the profile and has
+	 * not been seen yet
+	 * 
+	 * @param endpointNode
+	 *            Reference to the parent endpoint node
+	 * @param service
+	 *            Name of the service flavor
+	 * @param metric
+	 *            Name of the metric
+	 * @return The metric node or null if the metric is not part of the profile
+	 */
+	StatusNode getMetricNode(StatusNode endpointNode, String service, String metric) {
+		StatusNode metricNode = endpointNode.children.get(metric);
+		if (metricNode != null) {
+			return metricNode;
+		}
+
+		ArrayList<String> metrics = this.mps.getProfileServiceMetrics(this.validMetricProfile, service);
+		if (metrics == null || !metrics.contains(metric)) {
+			return null;
+		}
+
+		metricNode = new StatusNode("metric", endpointNode.defStatus, endpointNode.defTs, endpointNode);
+		metricNode.name = metric;
+		metricNode.children = null;
+		endpointNode.children.put(metric, metricNode);
+		return metricNode;
+	}
+
+	/**
+	 * Get the number of metrics an endpoint of a service has in the profile
+	 */
+	private int getMetricCount(String service) {
+		ArrayList<String> metrics = this.mps.getProfileServiceMetrics(this.validMetricProfile, service);
+		return metrics == null ? 0 : metrics.size();
+	}
+
+	/**
+	 * Updates the topology in place using a new endpoint group list. The endpoint
+	 * group index is patched with the added and removed entries and the status
+	 * trees of the groups already handled are updated accordingly. Aggregated
+	 * statuses affected by the change are recomputed without generating events.
+	 * Groups not yet handled are built when their first metric data arrive
+	 * 
+	 * @param egpList
+	 *            The new endpoint group list
+	 * @param defStatus
+	 *            Default status for new entities
+	 * @param defTs
+	 *            Default timestamp for new entities
+	 * @return Number of added and removed endpoint group entries
+	 */
+	public int updateTopology(ArrayList<GroupEndpoint> egpList, int defStatus, Date defTs) {
+		// Trim endpoint group list based on metric profile information
+		ArrayList<GroupEndpoint> egpTrim = new ArrayList<GroupEndpoint>();
+		for (GroupEndpoint egpItem : egpList) {
+			if (this.validServices.contains(egpItem.getService())) {
+				egpTrim.add(egpItem);
+			}
+		}
+
+		ArrayList<EndpointItem> added = new ArrayList<EndpointItem>();
+		ArrayList<EndpointItem> removed = new ArrayList<EndpointItem>();
+		this.egp.applyDiff(egpTrim, added, removed);
+
+		for (EndpointItem item : removed) {
+			removeEndpoint(item.getGroup(), item.getService(), item.getHostname());
+		}
+
+		for (EndpointItem item : added) {
+			String group = item.getGroup();
+			String service = item.getService();
+			String hostname = item.getHostname();
+
+			StatusNode groupNode = this.groups.get(group);
+			if (groupNode == null) {
+				continue;
+			}
+
+			StatusNode serviceNode = groupNode.children.get(service);
+			if (serviceNode != null && serviceNode.children.containsKey(hostname)) {
+				continue;
+			}
+
+			addGroup(group, service, hostname, defStatus, defTs);
+			refreshStatus(groupNode.children.get(service).children.get(hostname));
+		}
+
+		return added.size() + removed.size();
+	}
+
+	/**
+	 * Removes an endpoint node (along with its metrics) from the status topology.
+	 * Services and groups left without children are removed as well
+	 * 
+	 * @param group
+	 *            Name of the endpoint group
+	 * @param service
+	 *            Name of the service flavor
+	 * @param hostname
+	 *            Name of the endpoint
+	 */
+	public void removeEndpoint(String group, String service, String hostname) {
+		StatusNode groupNode = this.groups.get(group);
+		if (groupNode == null) {
+			return;
+		}
+		StatusNode serviceNode = groupNode.children.get(service);
+		if (serviceNode == null) {
+			return;
+		}
+		StatusNode endpointNode = serviceNode.children.remove(hostname);
+		if (endpointNode == null) {
+			return;
+		}
+
+		unscheduleTimeout(endpointNode);
+		for (StatusNode metricNode : endpointNode.children.values()) {
+			unscheduleTimeout(metricNode);
+		}
+
+		if (!serviceNode.children.isEmpty()) {
+			refreshStatus(serviceNode);
+			return;
+		}
+
+		groupNode.children.remove(service);
+		unscheduleTimeout(serviceNode);
+
+		if (!groupNode.children.isEmpty()) {
+			refreshStatus(groupNode);
+			return;
+		}
+
+		this.groups.remove(group);
+		unscheduleTimeout(groupNode);
+		this.dailyPending.remove(group);
+	}
+
+	/**
+	 * Recomputes the aggregated status of a node and its ancestors after a
+	 * topology change
+	 */
+	private void refreshStatus(StatusNode node) {
+		for (StatusNode cur = node; cur != null; cur = cur.parent) {
+			if (cur.children != null && !cur.children.isEmpty()) {
+				cur.item.status = aggregate(cur, cur.item.timestamp);
+			}
+		}
+	}
+
+	/**
+	 * Writes a compact binary snapshot of the status trees (entity name, status,
+	 * timestamp, generation timestamp and scheduled repeat notification) handled
+	 * by this status manager. Trees restored from a previous snapshot whose group
+	 * has not been handled yet are written as well, so that quiet groups are not
+	 * lost when this snapshot replaces the one they were read from. The events of
+	 * coalescing windows still open follow the status trees
+	 * 
+	 * @param out
+	 *            Data output the snapshot is written to
+	 * @return Number of endpoint groups written
+	 */
+	public int writeSnapshot(DataOutput out) throws IOException {
+		out.writeInt(SNAPSHOT_VERSION);
+		out.writeUTF(this.tsLatest == null ? "" : this.tsLatest);
+		out.writeInt(this.groups.size() + this.restored.size());
+		for (StatusNode groupNode : this.groups.values()) {
+			writeNode(out, groupNode);
+		}
+		for (StatusNode groupNode : this.restored.values()) {
+			writeNode(out, groupNode);
+		}
+
+		// nulls are kept so that events are restored exactly as they were held
+		Gson gson = new GsonBuilder().serializeNulls().create();
+		out.writeInt(this.coalesced.size());
+		for (Map.Entry<Long, LinkedHashSet<String>> bucket : this.coalesceDue.entrySet()) {
+			for (String group : bucket.getValue()) {
+				LinkedHashMap<String, StatusEvent> pending = this.coalesced.get(group);
+				out.writeUTF(group);
+				out.writeLong(bucket.getKey());
+				out.writeInt(pending.size());
+				for (Map.Entry<String, StatusEvent> evt : pending.entrySet()) {
+					out.writeUTF(evt.getKey());
+					byte[] json = gson.toJson(evt.getValue()).getBytes(StandardCharsets.UTF_8);
+					out.writeInt(json.length);
+					out.write(json);
+				}
+			}
+		}
+		return this.groups.size() + this.restored.size();
+	}
+
+	private void writeNode(DataOutput out, StatusNode node) throws IOException {
+		out.writeUTF(node.name);
+		out.writeInt(node.item.status);
+		out.writeLong(node.item.timestamp == null ? -1 : node.item.timestamp.getTime());
+		out.writeLong(node.item.genTs == null ? -1 : node.item.genTs.getTime());
+		out.writeLong(node.due);
+		if (node.children == null) {
+			out.writeInt(0);
+			return;
+		}
+		out.writeInt(node.children.size());
+		for (StatusNode child : node.children.values()) {
+			writeNode(out, child);
+		}
+	}
+
+	/**
+	 * Reads a binary status snapshot. The status trees of the owned groups (see
+	 * setGroupOwner) are kept aside and restored when their endpoint group is
+	 * first handled (see restoreGroup) so that snapshots written with a different
+	 * parallelism can be reused. A group found in more than one snapshot keeps
+	 * the tree with the latest group timestamp (the latest read on a tie). The
+	 * coalescing windows of the owned groups are reopened with their events and
+	 * flush time, keeping the window that closes last
+	 * 
+	 * @param in
+	 *            Data input the snapshot is read from
+	 * @return Number of endpoint groups kept that were not read before
+	 */
+	public int readSnapshot(DataInput in) throws IOException {
+		int version = in.readInt();
+		if (version < 1 || version > SNAPSHOT_VERSION) {
+			throw new IOException("Unsupported status snapshot version: " + version);
+		}
+
+		String ts = in.readUTF();
+		if (!ts.isEmpty() && (this.tsLatest == null || ts.compareTo(this.tsLatest) > 0)) {
+			this.tsLatest = ts;
+		}
+
+		int count = 0;
+		int total = in.readInt();
+		for (int i = 0; i < total; i++) {
+			StatusNode groupNode = readNode(in, 0, null);
+			// groups routed to other operator instances are skipped
+			if (this.groupOwner != null && !this.groupOwner.owns(this.report, groupNode.name)) {
+				continue;
+			}
+			StatusNode other = this.restored.get(groupNode.name);
+			if (other != null && isNewer(other, groupNode)) {
+				continue;
+			}
+			if (this.restored.put(groupNode.name, groupNode) == null) {
+				count++;
+			}
+		}
+
+		if (version > 1) {
+			readCoalesced(in);
+		}
+		return count;
+	}
+
+	private void readCoalesced(DataInput in) throws IOException {
+		Gson gson = new Gson();
+		HashMap<String, Long> dues = new HashMap<String, Long>();
+		for (Map.Entry<Long, LinkedHashSet<String>> bucket : this.coalesceDue.entrySet()) {
+			for (String group : bucket.getValue()) {
+				dues.put(group, bucket.getKey());
+			}
+		}
+
+		int total = in.readInt();
+		for (int i = 0; i < total; i++) {
+			String group = in.readUTF();
+			long due = in.readLong();
+			LinkedHashMap<String, StatusEvent> pending = new LinkedHashMap<String, StatusEvent>();
+			int evtCount = in.readInt();
+			for (int j = 0; j < evtCount; j++) {
+				String key = in.readUTF();
+				byte[] json = new byte[in.readInt()];
+				in.readFully(json);
+				pending.put(key, gson.fromJson(new String(json, StandardCharsets.UTF_8), StatusEvent.class));
+			}
+
+			if (this.groupOwner != null && !this.groupOwner.owns(this.report, group)) {
+				continue;
+			}
+			Long other = dues.get(group);
+			if (other != null) {
+				if (other > due) {
+					continue;
+				}
+				this.coalesceDue.get(other).remove(group);
+				if (this.coalesceDue.get(other).isEmpty()) {
+					this.coalesceDue.remove(other);
+				}
+			}
+
+			this.coalesced.put(group, pending);
+			dues.put(group, due);
+			LinkedHashSet<String> bucket = this.coalesceDue.get(due);
+			if (bucket == null) {
+				bucket = new LinkedHashSet<String>();
+				this.coalesceDue.put(due, bucket);
+			}
+			bucket.add(group);
+		}
+	}
+
+	/**
+	 * Checks if a status node holds a more recent status than another one
+	 */
+	private boolean isNewer(StatusNode node, StatusNode other) {
+		if (node.item.timestamp == null) {
+			return false;
+		}
+		return other.item.timestamp == null || node.item.timestamp.compareTo(other.item.timestamp) > 0;
+	}
+
+	private StatusNode readNode(DataInput in, int level, StatusNode parent) throws IOException {
+		final String[] types = { "group", "service", "endpoint", "metric" };
+		String name = in.readUTF();
+		int status = in.readInt();
+		long ts = in.readLong();
+		long genTs = in.readLong();
+		long due = in.readLong();
+
+		StatusNode node = new StatusNode(types[Math.min(level, types.length - 1)], status,
+				ts < 0 ? null : new Date(ts), parent);
+		node.name = name;
+		node.item.genTs = genTs < 0 ? null : new Date(genTs);
+		node.due = due;
+
+		int childCount = in.readInt();
+		for (int i = 0; i < childCount; i++) {
+			StatusNode child = readNode(in, level + 1, node);
+			node.children.put(child.name, child);
+		}
+		return node;
+	}
+
+	/**
+	 * Get the number of endpoint groups read from a snapshot and not yet restored
+	 */
+	public int getRestorePending() {
+		return this.restored.size();
+	}
+
+	/**
+	 * Builds a new endpoint group from the current topology and restores the
+	 * statuses of its entities from a previously read snapshot. Entities that no
+	 * longer exist in the topology are ignored and new entities keep the default
+	 * status
+	 * 
+	 * @param group
+	 *            Name of the endpoint group
+	 * @param defStatus
+	 *            Default status for entities missing from the snapshot
+	 * @param defTs
+	 *            Default timestamp for entities missing from the snapshot
+	 * @return True if the group was restored from the snapshot
+	 */
+	public boolean restoreGroup(String group, int defStatus, Date defTs) {
+		StatusNode snapNode = this.restored.remove(group);
+		if (snapNode == null) {
+			return false;
+		}
+
+		addNewGroup(group, defStatus, defTs);
+		StatusNode groupNode = this.groups.get(group);
+		if (groupNode == null) {
+			return false;
+		}
+
+		restoreNode(groupNode, snapNode);
+		return true;
+	}
+
+	private void restoreNode(StatusNode node, StatusNode snapNode) {
+		node.item.status = snapNode.item.status;
+		if (snapNode.item.timestamp != null) {
+			node.item.timestamp = snapNode.item.timestamp;
+		}
+		if (snapNode.item.genTs != null) {
+			node.item.genTs = snapNode.item.genTs;
+		}
+		if (snapNode.due >= 0) {
+			scheduleTimeout(node);
+		}
+
+		if (node.children == null) {
+			return;
+		}
+		for (StatusNode snapChild : snapNode.children.values()) {
+			StatusNode child = node.children.get(snapChild.name);
+			// metrics are materialized only if they were seen before the snapshot
+			if (child == null && node.type.equals("endpoint")) {
+				child = getMetricNode(node, node.parent.name, snapChild.name);
+			}
+			if (child != null) {
+				restoreNode(child, snapChild);
+			}
 		}
 	}
 
@@ -468,10 +981,7 @@ public class StatusManager {
 	 * @return Date object
 	 */
 	public Date fromZulu(String zulu) throws ParseException {
-		DateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-		utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-		Date date = utcFormat.parse(zulu);
-		return date;
+		return new Date(ZuluTime.parse(zulu));
 	}
 
 	/**
@@ -482,9 +992,7 @@ public class StatusManager {
 	 * @return String with timestamp in zulu format
 	 */
 	public String toZulu(Date ts) throws ParseException {
-		DateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-		utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-		return utcFormat.format(ts);
+		return ZuluTime.format(ts.getTime());
 	}
 
 	/**
@@ -499,7 +1007,26 @@ public class StatusManager {
 		Date ts = fromZulu(tsStr);
 		// Initialize event list
 		ArrayList<String> results = new ArrayList<String>();
-		
+
+		// For each endpoint group in topology
+		for (String groupName : groups.keySet()) {
+			dumpGroup(groupName, ts, results);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Generates status events for all entities of an endpoint group
+	 * 
+	 * @param groupName
+	 *            Name of the endpoint group
+	 * @param ts
+	 *            Timestamp of status generation
+	 * @param results
+	 *            List that the generated events are appended to
+	 */
+	private void dumpGroup(String groupName, Date ts, ArrayList<String> results) throws ParseException {
 		StatusEvent evtMetric = new StatusEvent();
 		StatusEvent evtEndpoint = new StatusEvent();
 		StatusEvent evtService = new StatusEvent();
@@ -510,76 +1037,181 @@ public class StatusManager {
 		String[] statusEndpoint = new String[4];
 		String[] statusService = new String[4];
 		String[] statusEgroup = new String[4];
-		
 
-		// For each endpoint group in topology
-		for (String groupName : groups.keySet()) {
-			StatusNode groupNode = groups.get(groupName);
-			String groupStatus = ops.getStrStatus(groupNode.item.status);
-			Date groupTs = groupNode.item.timestamp;
-
-			// For each service in the specific endpoint group
-			for (String serviceName : groupNode.children.keySet()) {
-				StatusNode serviceNode = groupNode.children.get(serviceName);
-				String serviceStatus = ops.getStrStatus(serviceNode.item.status);
-				Date serviceTs = serviceNode.item.timestamp;
-
-				// For each endpoint in the specific service
-				for (String endpointName : serviceNode.children.keySet()) {
-					StatusNode endpointNode = serviceNode.children.get(endpointName);
-					String endpointStatus = ops.getStrStatus(endpointNode.item.status);
-					Date endpointTs = endpointNode.item.timestamp;
-
-					// For each metric in the specific service endpoint
-					for (String metricName : endpointNode.children.keySet()) {
-						StatusNode metricNode = endpointNode.children.get(metricName);
-						String metricStatus = ops.getStrStatus(metricNode.item.status);
-						Date metricTs = metricNode.item.timestamp;
-						// Generate metric status event
-						evtMetric = genEvent("metric", groupName, serviceName, endpointName, metricName, metricStatus,
-								"", metricTs, metricStatus, metricTs, true,"","");
-						
-						statusMetric = new String[]{evtMetric.getStatus(),evtMetric.getPrevStatus(),evtMetric.getTsProcessed(),evtMetric.getPrevTs()};
-						evtMetric.setStatusMetric(statusMetric);
-						results.add(eventToString(evtMetric));
-						
-						
-					}
-					// Generate endpoint status event
-					evtEndpoint = genEvent("endpoint", groupName, serviceName, endpointName, "", endpointStatus, "", ts,
-							endpointStatus, endpointTs, true,"","");
+		StatusNode groupNode = groups.get(groupName);
+		if (groupNode == null) {
+			return;
+		}
+		String groupStatus = ops.getStrStatus(groupNode.item.status);
+		Date groupTs = groupNode.item.timestamp;
+
+		// For each service in the specific endpoint group
+		for (String serviceName : groupNode.children.keySet()) {
+			StatusNode serviceNode = groupNode.children.get(serviceName);
+			String serviceStatus = ops.getStrStatus(serviceNode.item.status);
+			Date serviceTs = serviceNode.item.timestamp;
+
+			// For each endpoint in the specific service
+			for (String endpointName : serviceNode.children.keySet()) {
+				StatusNode endpointNode = serviceNode.children.get(endpointName);
+				String endpointStatus = ops.getStrStatus(endpointNode.item.status);
+				Date endpointTs = endpointNode.item.timestamp;
+
+				// For each metric in the specific service endpoint (metrics not seen yet
+				// carry the endpoint's default status)
+				ArrayList<String> metricNames = this.mps.getProfileServiceMetrics(this.validMetricProfile, serviceName);
+				if (metricNames == null) {
+					metricNames = new ArrayList<String>(endpointNode.children.keySet());
+				}
+				for (String metricName : metricNames) {
+					StatusNode metricNode = endpointNode.children.get(metricName);
+					String metricStatus = ops.getStrStatus(metricNode == null ? endpointNode.defStatus : metricNode.item.status);
+					Date metricTs = metricNode == null ? endpointNode.defTs : metricNode.item.timestamp;
+					// Generate metric status event
+					evtMetric = genEvent("metric", groupName, serviceName, endpointName, metricName, metricStatus,
+							"", metricTs, metricStatus, metricTs, true,"","");
+					
+					statusMetric = new String[]{evtMetric.getStatus(),evtMetric.getPrevStatus(),evtMetric.getTsProcessed(),evtMetric.getPrevTs()};
+					evtMetric.setStatusMetric(statusMetric);
+					results.add(eventToString(evtMetric));
 					
-					statusEndpoint = new String[] {evtEndpoint.getStatus(),evtEndpoint.getPrevStatus(),evtEndpoint.getTsMonitored(),evtEndpoint.getPrevTs()};
-					evtEndpoint.setStatusMetric(statusMetric);
-					evtEndpoint.setStatusEndpoint(statusEndpoint);
 					
-					results.add(eventToString(evtEndpoint));
 				}
-				// Generate service status event
-				evtService = genEvent("service", groupName, serviceName, "", "", serviceStatus, "", ts, serviceStatus,
-						serviceTs, true,"","");
+				// Generate endpoint status event
+				evtEndpoint = genEvent("endpoint", groupName, serviceName, endpointName, "", endpointStatus, "", ts,
+						endpointStatus, endpointTs, true,"","");
 				
-				statusService = new String[] {evtService.getStatus(),evtService.getPrevStatus(),evtService.getTsMonitored(),evtService.getPrevTs()};
-				evtService.setStatusMetric(statusMetric);
-				evtService.setStatusEndpoint(statusEndpoint);
-				evtService.setStatusService(statusService);
+				statusEndpoint = new String[] {evtEndpoint.getStatus(),evtEndpoint.getPrevStatus(),evtEndpoint.getTsMonitored(),evtEndpoint.getPrevTs()};
+				evtEndpoint.setStatusMetric(statusMetric);
+				evtEndpoint.setStatusEndpoint(statusEndpoint);
 				
-				results.add(eventToString(evtService));
-			}
-			// Generate endpoint group status event
-			evtEgroup = genEvent("grpoup", groupName, "", "", "", groupStatus, "", ts, groupStatus, groupTs, true,"","");
-			statusEgroup = new String[] {evtEgroup.getStatus(),evtEgroup.getPrevStatus(),evtEgroup.getTsMonitored(),evtEgroup.getPrevTs()};
-			evtEgroup.setStatusMetric(statusMetric);
-			evtEgroup.setStatusEndpoint(statusEndpoint);
-			evtEgroup.setStatusService(statusService);
-			evtEgroup.setStatusEgroup(statusEgroup);
+				results.add(eventToString(evtEndpoint));
+			}
+			// Generate service status event
+			evtService = genEvent("service", groupName, serviceName, "", "", serviceStatus, "", ts, serviceStatus,
+					serviceTs, true,"","");
 			
-			results.add(eventToString(evtEgroup));			
+			statusService = new String[] {evtService.getStatus(),evtService.getPrevStatus(),evtService.getTsMonitored(),evtService.getPrevTs()};
+			evtService.setStatusMetric(statusMetric);
+			evtService.setStatusEndpoint(statusEndpoint);
+			evtService.setStatusService(statusService);
 			
+			results.add(eventToString(evtService));
+		}
+		// Generate endpoint group status event
+		evtEgroup = genEvent("grpoup", groupName, "", "", "", groupStatus, "", ts, groupStatus, groupTs, true,"","");
+		statusEgroup = new String[] {evtEgroup.getStatus(),evtEgroup.getPrevStatus(),evtEgroup.getTsMonitored(),evtEgroup.getPrevTs()};
+		evtEgroup.setStatusMetric(statusMetric);
+		evtEgroup.setStatusEndpoint(statusEndpoint);
+		evtEgroup.setStatusService(statusService);
+		evtEgroup.setStatusEgroup(statusEgroup);
+		
+		results.add(eventToString(evtEgroup));
+	}
+
+	/**
+	 * Looks up the current status of an entity along with the statuses of its
+	 * direct children. An endpoint group, a service or an endpoint is selected by
+	 * giving the group name, the group and service names or all three names
+	 * (null for the omitted ones)
+	 * 
+	 * @param group
+	 *            Name of the endpoint group
+	 * @param service
+	 *            Name of the service flavor (or null)
+	 * @param hostname
+	 *            Name of the endpoint (or null)
+	 * @return Json string with the statuses or null if the entity is not handled
+	 */
+	public String queryStatus(String group, String service, String hostname) throws ParseException {
+		StatusNode node = this.groups.get(group);
+		if (node != null && service != null) {
+			node = node.children.get(service);
+			if (node != null && hostname != null) {
+				node = node.children.get(hostname);
+			}
 		}
+		if (node == null) {
+			return null;
+		}
+
+		JsonObject result = statusToJson(node.type, node.name, node.item.status, node.item.timestamp);
+		JsonArray children = new JsonArray();
+		if (node.type.equals("endpoint")) {
+			// metrics not seen yet carry the endpoint's default status
+			ArrayList<String> metrics = this.mps.getProfileServiceMetrics(this.validMetricProfile, service);
+			if (metrics == null) {
+				metrics = new ArrayList<String>(node.children.keySet());
+			}
+			for (String metric : metrics) {
+				StatusNode metricNode = node.children.get(metric);
+				if (metricNode == null) {
+					children.add(statusToJson("metric", metric, node.defStatus, node.defTs));
+				} else {
+					children.add(statusToJson("metric", metric, metricNode.item.status, metricNode.item.timestamp));
+				}
+			}
+		} else {
+			for (StatusNode child : node.children.values()) {
+				children.add(statusToJson(child.type, child.name, child.item.status, child.item.timestamp));
+			}
+		}
+		result.add("children", children);
+
+		return result.toString();
+	}
+
+	private JsonObject statusToJson(String type, String name, int status, Date ts) throws ParseException {
+		JsonObject jObj = new JsonObject();
+		jObj.addProperty("type", type.equals("group") ? "endpoint_group" : type);
+		jObj.addProperty("name", name);
+		jObj.addProperty("status", ops.getStrStatus(status));
+		jObj.addProperty("ts", ts == null ? "" : toZulu(ts));
+		return jObj;
+	}
+
+	/**
+	 * Starts a new daily status snapshot. The snapshot is not generated at once:
+	 * groups are emitted in chunks by dumpDailyChunk and any group that is about to
+	 * change before being emitted is emitted first (in setStatus), so the snapshot
+	 * reflects the statuses at the time it was started. A snapshot still in
+	 * progress is completed and its remaining events are returned
+	 * 
+	 * @param tsStr
+	 *            String containing timestamp of status generation
+	 * @return List of remaining events of a previous snapshot in string json format
+	 */
+	public ArrayList<String> startDailySnapshot(String tsStr) throws ParseException {
+		ArrayList<String> results = dumpDailyChunk(this.dailyPending.size());
+		this.dailyTs = fromZulu(tsStr);
+		this.dailyPending.addAll(this.groups.keySet());
+		return results;
+	}
 
+	/**
+	 * Generates the daily status events for the next groups of the snapshot in
+	 * progress
+	 * 
+	 * @param maxGroups
+	 *            Maximum number of groups to emit
+	 * @return List of generated events in string json format
+	 */
+	public ArrayList<String> dumpDailyChunk(int maxGroups) throws ParseException {
+		ArrayList<String> results = new ArrayList<String>();
+		Iterator<String> pendingIter = this.dailyPending.iterator();
+		for (int i = 0; i < maxGroups && pendingIter.hasNext(); i++) {
+			dumpGroup(pendingIter.next(), this.dailyTs, results);
+			pendingIter.remove();
+		}
 		return results;
 	}
+
+	/**
+	 * Get the number of groups still pending in the daily snapshot in progress
+	 */
+	public int getDailyPending() {
+		return this.dailyPending.size();
+	}
 	
 	public boolean hasTimeDiff(Date d1, Date d2, long timeout) {
 		if (d2 == null || d1 == null) {
@@ -598,24 +1230,362 @@ public class StatusManager {
 	}
 	
 	public boolean hasDowntime(String timestamp, String hostname, String service ) {
-		String dayStamp = timestamp.split("T")[0];
-		ArrayList<String> period = this.dc.getDowntimePeriod(dayStamp, hostname, service);
-		// if no period was found return immediately fals
-		if (period == null) return false;
-		
-		// else check if ts lower than period's start time (first element in array list)
-		if (timestamp.compareTo(period.get(0)) <0 ) return false;
-		// else check if ts higher than period's end time (second element in array list)
-		if (timestamp.compareTo(period.get(1)) > 0) return false;
-		
-		// else everything is ok and timestamp belongs inside element's downtime period
-		return true;
+		try {
+			return hasDowntime(ZuluTime.datePart(timestamp), fromZulu(timestamp).getTime(), hostname, service);
+		} catch (ParseException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if a service endpoint is in downtime at a specific time (epoch
+	 * milliseconds) using the downtime feed of the given day
+	 */
+	public boolean hasDowntime(String dayStamp, long ts, String hostname, String service) {
+		return this.dc.inDowntime(dayStamp, hostname, service, ts);
+	}
+
+	/**
+	 * Schedules the repeat notification of a status node at its latest event
+	 * generation time plus the timeout. Any previously scheduled notification of
+	 * the node is dropped
+	 * 
+	 * @param node
+	 *            Status node to be scheduled
+	 */
+	public void scheduleTimeout(StatusNode node) {
+		unscheduleTimeout(node);
+		if (node.item.genTs == null || this.timeout <= 0) {
+			return;
+		}
+
+		long due = node.item.genTs.getTime() + this.timeout;
+		LinkedHashSet<StatusNode> bucket = this.timeouts.get(due);
+		if (bucket == null) {
+			bucket = new LinkedHashSet<StatusNode>();
+			this.timeouts.put(due, bucket);
+		}
+		bucket.add(node);
+		node.due = due;
+	}
+
+	/**
+	 * Removes the scheduled repeat notification of a status node (if any)
+	 * 
+	 * @param node
+	 *            Status node to be unscheduled
+	 */
+	public void unscheduleTimeout(StatusNode node) {
+		if (node.due < 0) {
+			return;
+		}
+
+		LinkedHashSet<StatusNode> bucket = this.timeouts.get(node.due);
+		if (bucket != null) {
+			bucket.remove(node);
+			if (bucket.isEmpty()) {
+				this.timeouts.remove(node.due);
+			}
+		}
+		node.due = -1;
+	}
+
+	/**
+	 * Get the number of status nodes with a scheduled repeat notification
+	 */
+	public int getScheduledTimeouts() {
+		int count = 0;
+		for (LinkedHashSet<StatusNode> bucket : this.timeouts.values()) {
+			count += bucket.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Advances the notification clock and generates repeat events for all
+	 * entities whose timeout has expired until the given timestamp, even if they
+	 * have not received any new metric data. Each expired entity generates a
+	 * single repeat event and is rescheduled
+	 * 
+	 * @param tsStr
+	 *            Timestamp (zulu format) the clock is advanced to
+	 * @return List of generated repeat events in string json format
+	 */
+	public ArrayList<String> fireTimeouts(String tsStr) throws ParseException {
+		ArrayList<String> results = new ArrayList<String>();
+		long now = fromZulu(tsStr).getTime();
+
+		while (!this.timeouts.isEmpty() && this.timeouts.firstKey() <= now) {
+			Map.Entry<Long, LinkedHashSet<StatusNode>> expired = this.timeouts.pollFirstEntry();
+			long due = expired.getKey();
+
+			for (StatusNode node : expired.getValue()) {
+				node.due = -1;
+				String evnt = genTimeoutEvent(node, new Date(due));
+				if (evnt != null) {
+					results.add(evnt);
+				}
+				// skip whole timeout periods that have already passed
+				long periods = (now - due) / this.timeout;
+				node.item.genTs = new Date(due + periods * this.timeout);
+				scheduleTimeout(node);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Schedules the start and end boundaries of a list of downtime periods.
+	 * Boundaries that have already passed or are already scheduled are ignored
+	 * 
+	 * @param downList
+	 *            List of downtime periods
+	 */
+	public void scheduleDowntimes(List<Downtime> downList) {
+		if (downList == null) {
+			return;
+		}
+
+		for (Downtime item : downList) {
+			try {
+				long start = fromZulu(item.getStartTime()).getTime();
+				long end = fromZulu(item.getEndTime()).getTime();
+				scheduleDowntimeBoundary(start, new DowntimeBoundary(item.getHostname(), item.getService(), true));
+				scheduleDowntimeBoundary(end, new DowntimeBoundary(item.getHostname(), item.getService(), false));
+			} catch (ParseException e) {
+				LOG.warn("Invalid downtime period: " + item.getHostname() + "," + item.getService());
+			}
+		}
+	}
+
+	private void scheduleDowntimeBoundary(long ts, DowntimeBoundary boundary) {
+		if (ts <= this.downtimeClock || !this.downtimeScheduled.add(boundary.key(ts))) {
+			return;
+		}
+
+		ArrayList<DowntimeBoundary> bucket = this.downtimeBoundaries.get(ts);
+		if (bucket == null) {
+			bucket = new ArrayList<DowntimeBoundary>();
+			this.downtimeBoundaries.put(ts, bucket);
+		}
+		bucket.add(boundary);
+	}
+
+	/**
+	 * Advances the downtime clock and generates endpoint events for all downtime
+	 * periods that started or ended until the given timestamp. A starting downtime
+	 * generates an event with the default downtime status and an ending downtime an
+	 * event with the current endpoint status. Only endpoints handled by this status
+	 * manager generate events
+	 * 
+	 * @param tsStr
+	 *            Timestamp (zulu format) the clock is advanced to
+	 * @return List of generated events in string json format
+	 */
+	public ArrayList<String> fireDowntimes(String tsStr) throws ParseException {
+		ArrayList<String> results = new ArrayList<String>();
+		long now = fromZulu(tsStr).getTime();
+
+		while (!this.downtimeBoundaries.isEmpty() && this.downtimeBoundaries.firstKey() <= now) {
+			Map.Entry<Long, ArrayList<DowntimeBoundary>> passed = this.downtimeBoundaries.pollFirstEntry();
+			Date ts = new Date(passed.getKey());
+
+			for (DowntimeBoundary boundary : passed.getValue()) {
+				this.downtimeScheduled.remove(boundary.key(passed.getKey()));
+				genDowntimeEvents(boundary, ts, results);
+			}
+		}
+
+		if (now > this.downtimeClock) {
+			this.downtimeClock = now;
+		}
+
+		return results;
+	}
+
+	/**
+	 * Generates the endpoint events of a downtime boundary for all groups the
+	 * endpoint belongs to
+	 */
+	private void genDowntimeEvents(DowntimeBoundary boundary, Date ts, ArrayList<String> results)
+			throws ParseException {
+		String down = ops.getDefaultDown();
+
+		for (String group : this.egp.getGroup(boundary.hostname, boundary.service)) {
+			StatusNode groupNode = this.groups.get(group);
+			if (groupNode == null) {
+				continue;
+			}
+			StatusNode serviceNode = groupNode.children.get(boundary.service);
+			if (serviceNode == null) {
+				continue;
+			}
+			StatusNode endpointNode = serviceNode.children.get(boundary.hostname);
+			if (endpointNode == null) {
+				continue;
+			}
+
+			String current = ops.getStrStatus(endpointNode.item.status);
+			StatusEvent evnt;
+			if (boundary.start) {
+				evnt = genEvent("endpoint", group, boundary.service, boundary.hostname, "", down, "", ts, current,
+						endpointNode.item.timestamp, false, "", "");
+			} else {
+				evnt = genEvent("endpoint", group, boundary.service, boundary.hostname, "", current, "", ts, down,
+						endpointNode.item.timestamp, false, "", "");
+			}
+
+			evnt.setStatusEndpoint(new String[] { evnt.getStatus(), evnt.getPrevStatus(), evnt.getTsMonitored(),
+					evnt.getPrevTs() });
+			results.add(eventToString(evnt));
+		}
+	}
+
+	/**
+	 * Emits an endpoint, service or group event. If coalescing is enabled the
+	 * event is kept until the coalescing window of its group closes and replaces
+	 * any previous event of the same entity in the window, keeping the status
+	 * the window started from as previous status
+	 */
+	private void emitAggregated(String group, StatusEvent evt, Date ts, ArrayList<String> results)
+			throws ParseException {
+		if (this.coalesceWindow <= 0) {
+			results.add(eventToString(evt));
+			return;
+		}
+
+		LinkedHashMap<String, StatusEvent> pending = this.coalesced.get(group);
+		if (pending == null) {
+			pending = new LinkedHashMap<String, StatusEvent>();
+			this.coalesced.put(group, pending);
+			long due = ts.getTime() + this.coalesceWindow;
+			LinkedHashSet<String> bucket = this.coalesceDue.get(due);
+			if (bucket == null) {
+				bucket = new LinkedHashSet<String>();
+				this.coalesceDue.put(due, bucket);
+			}
+			bucket.add(group);
+		}
+
+		String key = evt.getType();
+		if (key.equals("endpoint")) {
+			key = key + "|" + evt.getService() + "|" + evt.getHostname();
+		} else if (key.equals("service")) {
+			key = key + "|" + evt.getService();
+		}
+
+		StatusEvent first = pending.get(key);
+		if (first != null) {
+			evt.setPrevStatus(first.getPrevStatus());
+			evt.setPrevTs(first.getPrevTs());
+		}
+		pending.put(key, evt);
+	}
+
+	/**
+	 * Advances the coalescing clock and emits the net transitions of all groups
+	 * whose coalescing window has closed until the given timestamp. Entities that
+	 * ended the window in the status they started from generate no event. The
+	 * clock follows metric time, so a window is flushed only when metric data of
+	 * the report reach this status manager after it closes
+	 * 
+	 * @param tsStr
+	 *            Timestamp (zulu format) the clock is advanced to
+	 * @return List of generated events in string json format
+	 */
+	public ArrayList<String> fireCoalesced(String tsStr) throws ParseException {
+		ArrayList<String> results = new ArrayList<String>();
+		long now = fromZulu(tsStr).getTime();
+
+		while (!this.coalesceDue.isEmpty() && this.coalesceDue.firstKey() <= now) {
+			for (String group : this.coalesceDue.pollFirstEntry().getValue()) {
+				LinkedHashMap<String, StatusEvent> pending = this.coalesced.remove(group);
+				if (pending == null) {
+					continue;
+				}
+
+				for (StatusEvent evt : pending.values()) {
+					if (evt.getStatus().equals(evt.getPrevStatus())) {
+						continue;
+					}
+
+					// the event's own level reflects the net transition
+					String[] statusLevel = new String[] { evt.getStatus(), evt.getPrevStatus(), evt.getTsMonitored(),
+							evt.getPrevTs() };
+					if (evt.getType().equals("endpoint")) {
+						evt.setStatusEndpoint(statusLevel);
+					} else if (evt.getType().equals("service")) {
+						evt.setStatusService(statusLevel);
+					} else {
+						evt.setStatusEgroup(statusLevel);
+					}
+					results.add(eventToString(evt));
+				}
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Generates a repeat status event for a status node with an expired timeout
+	 * 
+	 * @param node
+	 *            Status node with expired timeout
+	 * @param due
+	 *            Time the timeout expired
+	 * @return A string containing the event in json format or null if the entity
+	 *         is in downtime
+	 */
+	private String genTimeoutEvent(StatusNode node, Date due) throws ParseException {
+		String group = "";
+		String service = "";
+		String hostname = "";
+		String metric = "";
+
+		// Collect the entity names by walking up the topology
+		for (StatusNode cur = node; cur != null; cur = cur.parent) {
+			if (cur.type.equals("metric")) {
+				metric = cur.name;
+			} else if (cur.type.equals("endpoint")) {
+				hostname = cur.name;
+			} else if (cur.type.equals("service")) {
+				service = cur.name;
+			} else {
+				group = cur.name;
+			}
+		}
+
+		if (!hostname.isEmpty() && hasDowntime(toZulu(due), hostname, service)) {
+			return null;
+		}
+
+		String evtType = node.type.equals("group") ? "endpoint_group" : node.type;
+		String status = ops.getStrStatus(node.item.status);
+		StatusEvent evnt = genEvent(evtType, group, service, hostname, metric, status, "", due, status,
+				node.item.timestamp, true, "", "");
+
+		String[] statusLevel = new String[] { evnt.getStatus(), evnt.getPrevStatus(), evnt.getTsMonitored(),
+				evnt.getPrevTs() };
+		if (node.type.equals("metric")) {
+			evnt.setStatusMetric(statusLevel);
+		} else if (node.type.equals("endpoint")) {
+			evnt.setStatusEndpoint(statusLevel);
+		} else if (node.type.equals("service")) {
+			evnt.setStatusService(statusLevel);
+		} else {
+			evnt.setStatusEgroup(statusLevel);
+		}
+
+		return eventToString(evnt);
 	}
 
 	/**
 	 * setStatus accepts an incoming metric event and checks which entities are
 	 * affected (changes in status). For each affected entity generates a status
-	 * event
+	 * event. If the event is discarded the reason is available through
+	 * getDropReason
 	 * 
 	 * @param service
 	 *            Name of the service in the metric event
@@ -643,6 +1613,15 @@ public class StatusManager {
 		
 		int status = ops.getIntStatus(statusStr);
 		Date ts = fromZulu(tsStr);
+		this.dropReason = null;
+
+		// If service host combination has downtime discard the result before any
+		// processing takes place
+		if (hasDowntime(ZuluTime.datePart(tsStr), ts.getTime(), hostname, service)) {
+			LOG.debug("Downtime encountered for group:{},service:{},host:{} - result will be discarded", group, service, hostname);
+			this.dropReason = DROP_DOWNTIME;
+			return results;
+		}
 
 			
 
@@ -676,10 +1655,19 @@ public class StatusManager {
 
 		// Open groups
 		groupNode = this.groups.get(group);
+
+		// Emit the group to the daily snapshot in progress before it changes
+		ArrayList<String> dailyResults = new ArrayList<String>();
+		if (this.dailyPending.remove(group)) {
+			dumpGroup(group, this.dailyTs, dailyResults);
+		}
+
 		if (groupNode != null) {
 			// check if ts is behind groupNode ts
-			if (groupNode.item.timestamp.compareTo(ts) > 0)
-				return results;
+			if (groupNode.item.timestamp.compareTo(ts) > 0) {
+				this.dropReason = DROP_OUT_OF_ORDER;
+				return dailyResults;
+			}
 			// update ts
 			oldGroupTS = groupNode.item.timestamp;
 			oldGroupStatus = groupNode.item.status;
@@ -690,8 +1678,10 @@ public class StatusManager {
 
 			if (serviceNode != null) {
 				// check if ts is behind groupNode ts
-				if (serviceNode.item.timestamp.compareTo(ts) > 0)
-					return results;
+				if (serviceNode.item.timestamp.compareTo(ts) > 0) {
+					this.dropReason = DROP_OUT_OF_ORDER;
+					return dailyResults;
+				}
 				// update ts
 				oldServiceTS = serviceNode.item.timestamp;
 				oldServiceStatus = serviceNode.item.status;
@@ -702,28 +1692,29 @@ public class StatusManager {
 
 				if (endpointNode != null) {
 					// check if ts is behind groupNode ts
-					if (endpointNode.item.timestamp.compareTo(ts) > 0)
-						return results;
+					if (endpointNode.item.timestamp.compareTo(ts) > 0) {
+						this.dropReason = DROP_OUT_OF_ORDER;
+						return dailyResults;
+					}
 					// update ts
 					oldEndpointTS = endpointNode.item.timestamp;
 					oldEndpointStatus = endpointNode.item.status;
 					endpointNode.item.timestamp = ts;
 
 					// Open metrics
-					metricNode = endpointNode.children.get(metric);
+					metricNode = getMetricNode(endpointNode, service, metric);
 
 					if (metricNode != null) {
 
 						// check if ts is after previous timestamp
 						if (metricNode.item.timestamp.compareTo(ts) <= 0) {
-							// update status
-							boolean repeat = hasTimeDiff(ts,metricNode.item.genTs,this.timeout);
+							// update status (repeat notifications are handled by fireTimeouts)
 							oldMetricTS = metricNode.item.timestamp;
 							oldMetricStatus = metricNode.item.status;
-							if (metricNode.item.status != status || repeat ) {
+							if (metricNode.item.status != status) {
 								// generate event
 								evtMetric = genEvent("metric", group, service, hostname, metric, ops.getStrStatus(status),
-										monHost, ts, ops.getStrStatus(oldMetricStatus), oldMetricTS, repeat, summary, message);
+										monHost, ts, ops.getStrStatus(oldMetricStatus), oldMetricTS, false, summary, message);
 										
 								
 								// Create metric status level object
@@ -738,51 +1729,55 @@ public class StatusManager {
 								metricNode.item.status = status;
 								metricNode.item.timestamp = ts;
 								metricNode.item.genTs = ts;
+								scheduleTimeout(metricNode);
 								updMetric = true;
 							}
 
 							
+						} else {
+							this.dropReason = DROP_OUT_OF_ORDER;
 						}
 
+					} else {
+						this.dropReason = DROP_UNKNOWN_METRIC;
 					}
 					// If metric indeed updated -> aggregate endpoint
 					if (updMetric) {
 						// calculate endpoint new status
-						int endpNewStatus = aggregate("", endpointNode, ts);
-						// check if status changed
-						boolean repeat = hasTimeDiff(ts,endpointNode.item.genTs,this.timeout);
+						int endpNewStatus = aggregate(endpointNode, ts);
 						if (true) {
 
 							// generate event
 							evtEndpoint = genEvent("endpoint", group, service, hostname, metric,
 									ops.getStrStatus(endpNewStatus), monHost, ts,
-									ops.getStrStatus(oldEndpointStatus), oldEndpointTS,repeat,summary,message);
+									ops.getStrStatus(oldEndpointStatus), oldEndpointTS,false,summary,message);
 							
 							// Create metric,endpoint status level object
 							statusEndpoint = new String[] {evtEndpoint.getStatus(),evtEndpoint.getPrevStatus(), evtEndpoint.getTsMonitored(), evtEndpoint.getPrevTs()};
 							
 							evtEndpoint.setStatusMetric(statusMetric);
 							evtEndpoint.setStatusEndpoint(statusEndpoint);
-							results.add(eventToString(evtEndpoint));
+							emitAggregated(group, evtEndpoint, ts, results);
 							
 							endpointNode.item.status = endpNewStatus;
 							endpointNode.item.genTs = ts;
+							scheduleTimeout(endpointNode);
 							updEndpoint = true;
 						}
 
 					}
+				} else {
+					this.dropReason = DROP_UNKNOWN_ENDPOINT;
 				}
 				// if endpoint indeed updated -> aggregate service
 				if (updEndpoint) {
 					// calculate service new status
-					int servNewStatus = aggregate(service, serviceNode, ts);
-					// check if status changed
-					boolean repeat = hasTimeDiff(ts,groupNode.item.genTs,this.timeout);
+					int servNewStatus = aggregate(serviceNode, ts);
 					if (true) {
 
 						// generate event
 						evtService = genEvent("service", group, service, hostname, metric, ops.getStrStatus(servNewStatus),
-								monHost, ts, ops.getStrStatus(oldServiceStatus), oldServiceTS,repeat,summary,message);
+								monHost, ts, ops.getStrStatus(oldServiceStatus), oldServiceTS,false,summary,message);
 						
 						
 						// Create metric, endpoint, service status metric objects
@@ -793,27 +1788,28 @@ public class StatusManager {
 						evtService.setStatusService(statusService);
 						
 						
-						results.add(eventToString(evtService));
+						emitAggregated(group, evtService, ts, results);
 						serviceNode.item.status = servNewStatus;
 						serviceNode.item.genTs=ts;
+						scheduleTimeout(serviceNode);
 						updService = true;
 
 					}
 
 				}
+			} else {
+				this.dropReason = DROP_UNKNOWN_ENDPOINT;
 			}
 			// if service indeed updated -> aggregate group
 			if (updService) {
 				// calculate group new status
-				int groupNewStatus = aggregate(group, groupNode, ts);
-				// check if status changed
-				boolean repeat = hasTimeDiff(ts,groupNode.item.genTs,this.timeout);
+				int groupNewStatus = aggregate(groupNode, ts);
 				if (true){
 					
 					// generate event
 					
 					evtEgroup = genEvent("endpoint_group", group, service, hostname, metric, ops.getStrStatus(groupNewStatus),
-							monHost, ts, ops.getStrStatus(oldGroupStatus), oldGroupTS,repeat,summary,message);
+							monHost, ts, ops.getStrStatus(oldGroupStatus), oldGroupTS,false,summary,message);
 					
 					// Create metric, endpoint, service, egroup status metric objects
 					statusEgroup = new String[] {evtEgroup.getStatus(),evtEgroup.getPrevStatus(), evtEgroup.getTsMonitored(), evtEgroup.getPrevTs()};
@@ -824,21 +1820,23 @@ public class StatusManager {
 					evtEgroup.setStatusService(statusService);
 					evtEgroup.setStatusEgroup(statusEgroup);
 					
-					results.add(eventToString(evtEgroup));
+					emitAggregated(group, evtEgroup, ts, results);
 					
 					groupNode.item.status = groupNewStatus;
 					groupNode.item.genTs = ts;
+					scheduleTimeout(groupNode);
 					
 				}
 			}
+		} else {
+			this.dropReason = DROP_UNKNOWN_GROUP;
 		}
-		// If service host combination has downtime clear result set
-		if (hasDowntime(tsStr,hostname,service)){
-			LOG.info("Downtime encountered for group:{},service:{},host:{} - events will be discarded",group,service,hostname);
-			results.clear();
+		// Daily snapshot events precede the new status events
+		if (!dailyResults.isEmpty()) {
+			dailyResults.addAll(results);
+			return dailyResults;
 		}
 		
-		
 		return results;
 		
 	}
@@ -868,7 +1866,7 @@ public class StatusManager {
 	private StatusEvent genEvent(String type, String group, String service, String hostname, String metric, String status,
 			String monHost, Date ts, String prevStatus, Date prevTs, boolean repeat, String summary, String message) throws ParseException {
 		String tsStr = toZulu(ts);
-		String dt = tsStr.split("T")[0].replaceAll("-", "");
+		String dt = Integer.toString(ZuluTime.dateInt(tsStr));
 		String tsProc = toZulu(new Date());
 		
 		if (summary==null) {
@@ -907,88 +1905,73 @@ public class StatusManager {
 	 *            Timestamp of the aggregation event
 	 * @return Status value in integer format
 	 */
-	public int aggregate(String itemName, StatusNode node, Date ts) {
-
-		// get aggregation profile used (1st one in the list)
-		String aggProfile = aps.getAvProfiles().get(0);
-		
-		
-		
-	
+	public int aggregate(StatusNode node, Date ts) {
 
 		// Iterate on children nodes
-		Iterator<Entry<String, StatusNode>> valIter = node.children.entrySet().iterator();
-		Entry<String, StatusNode> item = valIter.next();
-		StatusNode a = item.getValue();
-		StatusNode b = null;
+		Iterator<StatusNode> valIter = node.children.values().iterator();
+		StatusNode a = valIter.next();
 		int res = a.item.status;
 
-		
 		if (node.type.equals("group")) {
 
-			// Create a hashmap for the aggregation groups
-			Map<String, Integer> aGroups = new HashMap<String, Integer>();
-			// If aggregation target is group then each hashmap item key is the service name
-			String serviceName = item.getKey();
-			String groupName = aps.getGroupByService(aggProfile, serviceName);
-			// aggregation hashmap is empty so insert the first item
-			aGroups.put(groupName, a.item.status);
-			// Iterate over rest of the service items
+			// Keep an aggregated value per aggregation group id of the plan
+			int[] aGroups = new int[this.plan.getGroupCount()];
+			boolean[] aFound = new boolean[aGroups.length];
+
+			// Start over with the first service item
+			valIter = node.children.values().iterator();
 			while (valIter.hasNext()) {
-				// next item in iteration
-				item = valIter.next();
-				// get the service name from key
-				serviceName = item.getKey();
-				// get the item status information
-				b = item.getValue();
-				// get the aggregation group name based on service name
-				groupName = aps.getGroupByService(aggProfile, serviceName);
-				// Now that aggregation hashmap is surely not empty check if groupname exists
-				if (aGroups.containsKey(groupName)) {
-					// aggregate the existing value with the new one
-					// get the appropriate aggregation operation for this service group
-					int gOp = ops.getIntOperation(aps.getProfileGroupServiceOp(aggProfile, groupName, serviceName));
-					// get the existing value from the hashmap
-					res = aGroups.get(groupName).intValue();
-					// calculate the new value
-					res = ops.opInt(gOp, res, b.item.status);
-					aGroups.put(groupName, res);
+				StatusNode b = valIter.next();
+				// services not included in the profile are not aggregated
+				int g = b.aggGroup;
+				if (g < 0) {
+					continue;
+				}
 
+				if (aFound[g]) {
+					// aggregate the existing value with the new one using the group's operation
+					aGroups[g] = this.plan.op(this.plan.getGroupOp(g), aGroups[g], b.item.status);
+				} else {
+					aGroups[g] = b.item.status;
+					aFound[g] = true;
 				}
 			}
 
 			// after completing the individual group aggregations aggregate the total value
-			int totalOp = ops.getIntOperation(aps.getTotalOp(aggProfile));
-			// iterate over the group aggregations
-			Iterator<Entry<String, Integer>> aggIter = aGroups.entrySet().iterator();
-			res = aggIter.next().getValue();
-			// second value to be aggregated in each iteration
-			int bItem;
-			while (aggIter.hasNext()) {
-				bItem = aggIter.next().getValue();
-				res = ops.opInt(totalOp, res, bItem);
+			boolean first = true;
+			for (int g = 0; g < aGroups.length; g++) {
+				if (!aFound[g]) {
+					continue;
+				}
+				if (first) {
+					res = aGroups[g];
+					first = false;
+				} else {
+					res = this.plan.op(this.plan.getTotalOp(), res, aGroups[g]);
+				}
+			}
+
+			// no service of the group belongs to the profile - keep the current status
+			if (first) {
+				res = node.item.status;
 			}
 
 		} else {
-			
 
-			
-			
-			
+			// endpoints aggregate their metrics and services their endpoints
+			int op = this.plan.getMetricOp();
+			if (node.type.equals("service")) {
+				op = node.aggOp;
+			}
+
 			// aggregate according to rest of the types
 			while (valIter.hasNext()) {
-				b = valIter.next().getValue();
-				if (node.type.equals("endpoint")) {
-					int mOp = ops.getIntOperation(aps.getMetricOp(aggProfile));
-					res = ops.opInt(mOp, res, b.item.status);
-				} else if (node.type.equals("service")) {
-					
-					String groupName = aps.getGroupByService(aggProfile, itemName);
-					int eOp = ops.getIntOperation(aps.getProfileGroupServiceOp(aggProfile, groupName, itemName));
-					res = ops.opInt(eOp, res, b.item.status);
-				} else if (node.type.equals("group")) {
-					//res = ops.opInt(sOp, res, b.item.status);
-				}
+				res = this.plan.op(op, res, valIter.next().item.status);
+			}
+
+			// metrics not materialized yet take part with the endpoint's default status
+			if (node.type.equals("endpoint") && node.children.size() < getMetricCount(node.parent.name)) {
+				res = this.plan.op(op, res, node.defStatus);
 			}
 		}
 
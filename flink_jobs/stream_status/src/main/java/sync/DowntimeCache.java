@@ -111,6 +111,19 @@ public class DowntimeCache {
 		return null;
 	}
 
+	/**
+	 * Check if a specific endpoint (service, hostname) is in downtime at a specific time
+	 * using the downtime feed of the given day
+	 */
+	public boolean inDowntime(String dayStamp, String hostname, String service, long ts) {
+		DowntimeManager downMgr = cache.get(dayStamp);
+		if (downMgr == null) {
+			return false;
+		}
+
+		return downMgr.inDowntime(hostname, service, ts);
+	}
+
 	public void clear() {
 		this.cache.clear();
 	}
@@ -7,8 +7,11 @@ import argo.avro.Downtime;
 
 import java.io.File;
 import java.io.IOException;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 
@@ -22,6 +25,8 @@ import org.apache.avro.io.DatumReader;
 import org.apache.avro.util.Utf8;
 import org.apache.commons.io.IOUtils;
 
+import ops.ZuluTime;
+
 /**
  * DowntimeManager manages supplementary downtime information that is needed in computation of a/r scores for endpoint groups
  * Information can be loaded either directly from an avro file or from a list of avro objects
@@ -32,6 +37,10 @@ public class DowntimeManager {
 	 * List of Downtime information items
 	 */
 	private ArrayList<DowntimeItem> list;
+	/**
+	 * Index of downtime periods per service endpoint (hostname|service)
+	 */
+	private HashMap<String, DowntimeIntervals> index;
 	private static final Logger LOG = Logger.getLogger(DowntimeManager.class.getName());
 
 	/**
@@ -42,6 +51,8 @@ public class DowntimeManager {
 		String service; // name of service
 		String startTime; // declare start time of downtime
 		String endTime; // declare end time of downtime
+		long start; // start time in epoch milliseconds
+		long end; // end time in epoch milliseconds
 
 		
 
@@ -58,15 +69,98 @@ public class DowntimeManager {
 
 	}
 
+	/**
+	 * Inner class that holds all downtime periods of a service endpoint. Periods
+	 * are kept in insertion order and sorted by start time (lazily) for interval
+	 * lookups
+	 */
+	private class DowntimeIntervals {
+		ArrayList<DowntimeItem> items = new ArrayList<DowntimeItem>();
+		long[] starts; // sorted start times
+		long[] maxEnds; // maximum end time of all periods up to each position
+		boolean sorted = false;
+
+		void sort() {
+			ArrayList<DowntimeItem> byStart = new ArrayList<DowntimeItem>();
+			for (DowntimeItem item : this.items) {
+				// periods with invalid timestamps are not indexed
+				if (item.start >= 0 && item.end >= 0 && item.start <= item.end) {
+					byStart.add(item);
+				}
+			}
+			Collections.sort(byStart, new Comparator<DowntimeItem>() {
+				@Override
+				public int compare(DowntimeItem a, DowntimeItem b) {
+					return Long.compare(a.start, b.start);
+				}
+			});
+
+			this.starts = new long[byStart.size()];
+			this.maxEnds = new long[byStart.size()];
+			for (int i = 0; i < byStart.size(); i++) {
+				this.starts[i] = byStart.get(i).start;
+				this.maxEnds[i] = byStart.get(i).end;
+				if (i > 0 && this.maxEnds[i - 1] > this.maxEnds[i]) {
+					this.maxEnds[i] = this.maxEnds[i - 1];
+				}
+			}
+			this.sorted = true;
+		}
+
+		boolean contains(long ts) {
+			if (!this.sorted) {
+				sort();
+			}
+			// find the last period starting at or before ts
+			int pos = Arrays.binarySearch(this.starts, ts);
+			if (pos < 0) {
+				pos = -pos - 2;
+			} else {
+				// move to the last period with the same start
+				while (pos + 1 < this.starts.length && this.starts[pos + 1] == ts) {
+					pos++;
+				}
+			}
+			return pos >= 0 && this.maxEnds[pos] >= ts;
+		}
+	}
+
 	public DowntimeManager() {
 		this.list = new ArrayList<DowntimeItem>();
+		this.index = new HashMap<String, DowntimeIntervals>();
+	}
+
+	/**
+	 * Converts a zulu timestamp to epoch milliseconds or -1 if it is malformed
+	 */
+	private long toEpoch(String zulu) {
+		try {
+			return ZuluTime.parse(zulu);
+		} catch (ParseException e) {
+			LOG.warn("Invalid downtime timestamp:" + zulu);
+			return -1;
+		}
 	}
+
 	/**
 	 * Inserts new downtime information to Donwtime Manager (hostname,service,startTime,endTime)
 	 */
 	public int insert(String hostname, String service, String startTime, String endTime) {
 		DowntimeItem tmpItem = new DowntimeItem(hostname, service, startTime, endTime);
+		tmpItem.start = toEpoch(startTime);
+		tmpItem.end = toEpoch(endTime);
 		this.list.add(tmpItem);
+
+		// Add item to the endpoint index
+		String key = hostname + "|" + service;
+		DowntimeIntervals intervals = this.index.get(key);
+		if (intervals == null) {
+			intervals = new DowntimeIntervals();
+			this.index.put(key, intervals);
+		}
+		intervals.items.add(tmpItem);
+		intervals.sorted = false;
+
 		return 0; // All good
 	}
 
@@ -75,21 +169,34 @@ public class DowntimeManager {
 	 */
 	public ArrayList<String> getPeriod(String hostname, String service) {
 
+		DowntimeIntervals intervals = this.index.get(hostname + "|" + service);
+		if (intervals == null) {
+			return null;
+		}
+
+		// Return the first period declared for the endpoint
 		ArrayList<String> period = new ArrayList<String>();
+		DowntimeItem item = intervals.items.get(0);
+		period.add(item.startTime);
+		period.add(item.endTime);
+		return period;
 
-		for (DowntimeItem item : this.list) {
+	}
 
-			if (item.hostname.equals(hostname)) {
-				if (item.service.equals(service)) {
-					period.add(item.startTime);
-					period.add(item.endTime);
-					return period;
-				}
-			}
+	/**
+	 * Checks if a service endpoint (hostname,service) is in downtime at a specific
+	 * time. All downtime periods declared for the endpoint are considered
+	 * 
+	 * @param ts
+	 *            Time in epoch milliseconds
+	 * @return true if the time falls inside a downtime period (inclusive)
+	 */
+	public boolean inDowntime(String hostname, String service, long ts) {
+		DowntimeIntervals intervals = this.index.get(hostname + "|" + service);
+		if (intervals == null) {
+			return false;
 		}
-
-		return null;
-
+		return intervals.contains(ts);
 	}
 
 	/**
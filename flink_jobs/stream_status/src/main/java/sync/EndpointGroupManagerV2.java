@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -98,6 +99,113 @@ public class EndpointGroupManagerV2 {
 		return 0; // All good
 	}
 
+	/**
+	 * Removes an endpoint group entry from the index
+	 * 
+	 * @return true if the entry existed and was removed
+	 */
+	public boolean remove(String type, String group, String service, String hostname) {
+		String key = type + "|" + hostname + "|" + service;
+		Map<String, EndpointItem> subList = list.get(key);
+		if (subList == null || subList.remove(group) == null) {
+			return false;
+		}
+		if (subList.isEmpty()) {
+			list.remove(key);
+		}
+
+		// Remove item from the secondary group index
+		ArrayList<EndpointItem> groupItems = groupIndex.get(group);
+		if (groupItems != null) {
+			Iterator<EndpointItem> itemIter = groupItems.iterator();
+			while (itemIter.hasNext()) {
+				EndpointItem item = itemIter.next();
+				if (item.type.equals(type) && item.service.equals(service) && item.hostname.equals(hostname)) {
+					itemIter.remove();
+					break;
+				}
+			}
+			if (groupItems.isEmpty()) {
+				groupIndex.remove(group);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Updates the index in place to match a new list of endpoint group entries.
+	 * Entries (type, group, service, hostname) missing from the new list are
+	 * removed, new entries are inserted and the tags of existing entries are
+	 * updated
+	 * 
+	 * @param egp
+	 *            The new list of endpoint group entries
+	 * @param added
+	 *            List to be filled with the inserted entries
+	 * @param removed
+	 *            List to be filled with the removed entries
+	 */
+	public void applyDiff(List<GroupEndpoint> egp, List<EndpointItem> added, List<EndpointItem> removed) {
+
+		// Index the keys and groups of the new entries
+		HashMap<String, HashSet<String>> newKeys = new HashMap<String, HashSet<String>>();
+		for (GroupEndpoint item : egp) {
+			String key = item.getType() + "|" + item.getHostname() + "|" + item.getService();
+			HashSet<String> newGroups = newKeys.get(key);
+			if (newGroups == null) {
+				newGroups = new HashSet<String>();
+				newKeys.put(key, newGroups);
+			}
+			newGroups.add(item.getGroup());
+		}
+
+		// Find and remove the entries missing from the new list
+		for (Map.Entry<String, Map<String, EndpointItem>> entry : list.entrySet()) {
+			HashSet<String> newGroups = newKeys.get(entry.getKey());
+			for (EndpointItem item : entry.getValue().values()) {
+				if (newGroups == null || !newGroups.contains(item.group)) {
+					removed.add(item);
+				}
+			}
+		}
+
+		for (EndpointItem item : removed) {
+			this.remove(item.type, item.group, item.service, item.hostname);
+		}
+
+		// Insert the new entries and update the tags of the existing ones
+		for (GroupEndpoint item : egp) {
+			String type = item.getType();
+			String group = item.getGroup();
+			String service = item.getService();
+			String hostname = item.getHostname();
+			HashMap<String, String> tagMap = new HashMap<String, String>();
+			Map<String, String> tags = item.getTags();
+
+			if (tags != null) {
+				for (String tagKey : tags.keySet()) {
+					tagMap.put(tagKey, tags.get(tagKey));
+				}
+			}
+
+			String key = type + "|" + hostname + "|" + service;
+			Map<String, EndpointItem> subList = list.get(key);
+			EndpointItem current = null;
+			if (subList != null) {
+				current = subList.get(group);
+			}
+
+			if (current != null) {
+				current.tags = tagMap;
+			} else {
+				this.insert(type, group, service, hostname, tagMap);
+				added.add(list.get(key).get(group));
+			}
+			defaultType = type;
+		}
+	}
+
 	public boolean checkEndpoint(String hostname, String service) {
 
 		String key = defaultType + "|" + hostname + "|" + service;
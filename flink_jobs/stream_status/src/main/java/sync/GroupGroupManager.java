@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.TreeMap;
@@ -28,6 +29,10 @@ public class GroupGroupManager {
 	private ArrayList<GroupItem> list;
 	private ArrayList<GroupItem> fList;
 
+	// Indexes of the filtered items, rebuilt on every filter/unfilter
+	private HashMap<String, GroupItem> subgroupIndex; // type|subgroup (first item)
+	private HashSet<String> subgroups;
+
 	private class GroupItem {
 		String type; // type of group
 		String group; // name of the group
@@ -55,6 +60,8 @@ public class GroupGroupManager {
 	public GroupGroupManager() {
 		this.list = new ArrayList<GroupItem>();
 		this.fList = new ArrayList<GroupItem>();
+		this.subgroupIndex = new HashMap<String, GroupItem>();
+		this.subgroups = new HashSet<String>();
 	}
 
 	public int insert(String type, String group, String subgroup, HashMap<String, String> tags) {
@@ -64,10 +71,9 @@ public class GroupGroupManager {
 	}
 
 	public HashMap<String, String> getGroupTags(String type, String subgroup) {
-		for (GroupItem item : this.fList) {
-			if (item.type.equals(type) && item.subgroup.equals(subgroup)) {
-				return item.tags;
-			}
+		GroupItem item = this.subgroupIndex.get(type + "|" + subgroup);
+		if (item != null) {
+			return item.tags;
 		}
 
 		return null;
@@ -78,10 +84,9 @@ public class GroupGroupManager {
 	}
 
 	public String getGroup(String type, String subgroup) {
-		for (GroupItem item : this.fList) {
-			if (item.type.equals(type) && item.subgroup.equals(subgroup)) {
-				return item.group;
-			}
+		GroupItem item = this.subgroupIndex.get(type + "|" + subgroup);
+		if (item != null) {
+			return item.group;
 		}
 
 		return null;
@@ -92,6 +97,7 @@ public class GroupGroupManager {
 		for (GroupItem item : this.list) {
 			this.fList.add(item);
 		}
+		this.index();
 	}
 
 	public void filter(TreeMap<String, String> fTags) {
@@ -114,16 +120,27 @@ public class GroupGroupManager {
 				fList.add(item);
 			}
 		}
+		this.index();
 	}
 
-	public boolean checkSubGroup(String subgroup) {
-		for (GroupItem item : fList) {
-			if (item.subgroup.equals(subgroup)) {
-				return true;
+	/**
+	 * Rebuilds the lookup indexes out of the filtered items (the first item of
+	 * a type and subgroup wins, as in a scan of the filtered list)
+	 */
+	private void index() {
+		this.subgroupIndex.clear();
+		this.subgroups.clear();
+		for (GroupItem item : this.fList) {
+			String key = item.type + "|" + item.subgroup;
+			if (!this.subgroupIndex.containsKey(key)) {
+				this.subgroupIndex.put(key, item);
 			}
+			this.subgroups.add(item.subgroup);
 		}
+	}
 
-		return false;
+	public boolean checkSubGroup(String subgroup) {
+		return this.subgroups.contains(subgroup);
 	}
 
 	/**
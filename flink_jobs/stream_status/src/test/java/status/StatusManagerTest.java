@@ -2,6 +2,10 @@ package status;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -9,6 +13,7 @@ import java.net.URL;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 
 
 
@@ -20,6 +25,10 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
+import argo.avro.Downtime;
+import argo.avro.GroupEndpoint;
+import sync.EndpointGroupManagerV2.EndpointItem;
+
 public class StatusManagerTest {
 
 	
@@ -329,4 +338,465 @@ public class StatusManagerTest {
 		assertEquals(4,elist10.size());
 	}
 
+	/**
+	 * Creates a status manager of the Critical report loaded with the test sync
+	 * files
+	 */
+	private StatusManager newManager() throws URISyntaxException, IOException {
+		// Prepare Resource File
+		URL resAPSJsonFile = StatusManagerTest.class.getResource("/ops/ap1.json");
+		File jsonAPSFile = new File(resAPSJsonFile.toURI());
+
+		URL resOPSJsonFile = StatusManagerTest.class.getResource("/ops/EGI-algorithm.json");
+		File jsonOPSFile = new File(resOPSJsonFile.toURI());
+
+		URL resEGPAvroFile = StatusManagerTest.class.getResource("/avro/group_endpoints_v2.avro");
+		File avroEGPFile = new File(resEGPAvroFile.toURI());
+
+		URL resMPSAvroFile = StatusManagerTest.class.getResource("/avro/poem_sync_2017_03_02.avro");
+		File avroMPSFile = new File(resMPSAvroFile.toURI());
+
+		URL resDownAvroFile = StatusManagerTest.class.getResource("/avro/downtimes_03.avro");
+		File avroDownFile = new File(resDownAvroFile.toURI());
+
+		StatusManager sm = new StatusManager();
+		sm.setReport("Critical");
+		sm.loadAllFiles("2017-03-03", avroDownFile, avroEGPFile, avroMPSFile, jsonAPSFile, jsonOPSFile);
+		return sm;
+	}
+
+	@Test
+	public void testTimeouts() throws URISyntaxException, IOException, ParseException {
+		StatusManager sm = newManager();
+		// one hour timeout
+		sm.setTimeout(3600000L);
+
+		Date ts1 = sm.fromZulu("2017-03-03T00:00:00Z");
+		sm.addNewGroup("WUT", sm.ops.getIntStatus("OK"), ts1);
+
+		// metric, endpoint, service and endpoint group events get scheduled
+		ArrayList<String> elist01 = sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness",
+				"CRITICAL", "mon01.argo.eu", "2017-03-03T01:00:00Z", "", "");
+		assertEquals(4, elist01.size());
+		assertEquals(4, sm.getScheduledTimeouts());
+
+		// timeout not yet expired
+		assertEquals(0, sm.fireTimeouts("2017-03-03T01:30:00Z").size());
+
+		// same status before the timeout expires does not generate events
+		assertEquals(0, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "CRITICAL",
+				"mon01.argo.eu", "2017-03-03T01:45:00Z", "", "").size());
+
+		// timeout expired without new metric data for the entities
+		ArrayList<String> elist02 = sm.fireTimeouts("2017-03-03T02:10:00Z");
+		assertEquals(4, elist02.size());
+		JsonObject j01 = getJSON(elist02.get(0));
+		assertEquals("metric", j01.get("type").getAsString());
+		assertEquals("org.bdii.Freshness", j01.get("metric").getAsString());
+		assertEquals("bdii.if.pw.edu.pl", j01.get("hostname").getAsString());
+		assertEquals("CRITICAL", j01.get("status").getAsString());
+		assertEquals("true", j01.get("repeat").getAsString());
+		assertEquals("2017-03-03T02:00:00Z", j01.get("ts_monitored").getAsString());
+		JsonObject j04 = getJSON(elist02.get(3));
+		assertEquals("endpoint_group", j04.get("type").getAsString());
+		assertEquals("WUT", j04.get("endpoint_group").getAsString());
+
+		// entities are rescheduled for the next period
+		assertEquals(4, sm.getScheduledTimeouts());
+		assertEquals(0, sm.fireTimeouts("2017-03-03T02:50:00Z").size());
+
+		// a long silence generates a single repeat event per entity
+		assertEquals(4, sm.fireTimeouts("2017-03-03T06:20:00Z").size());
+		assertEquals(0, sm.fireTimeouts("2017-03-03T06:50:00Z").size());
+		assertEquals(4, sm.fireTimeouts("2017-03-03T07:00:00Z").size());
+	}
+
+	@Test
+	public void testDowntimes() throws URISyntaxException, IOException, ParseException {
+		StatusManager sm = newManager();
+
+		Date ts1 = sm.fromZulu("2017-03-03T00:00:00Z");
+		sm.addNewGroup("WUT", sm.ops.getIntStatus("OK"), ts1);
+		assertEquals(4, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "CRITICAL",
+				"mon01.argo.eu", "2017-03-03T01:00:00Z", "", "").size());
+
+		// Declare a downtime for the endpoint
+		ArrayList<Downtime> downList = new ArrayList<Downtime>();
+		downList.add(new Downtime("bdii.if.pw.edu.pl", "Site-BDII", "2017-03-03T10:00:00Z", "2017-03-03T12:00:00Z"));
+		sm.addDowntimeSet("2017-03-03", downList);
+
+		// downtime not yet started
+		assertEquals(0, sm.fireDowntimes("2017-03-03T09:00:00Z").size());
+
+		// downtime start is emitted proactively
+		ArrayList<String> elist01 = sm.fireDowntimes("2017-03-03T10:05:00Z");
+		assertEquals(1, elist01.size());
+		JsonObject j01 = getJSON(elist01.get(0));
+		assertEquals("endpoint", j01.get("type").getAsString());
+		assertEquals("bdii.if.pw.edu.pl", j01.get("hostname").getAsString());
+		assertEquals("DOWNTIME", j01.get("status").getAsString());
+		assertEquals("CRITICAL", j01.get("prev_status").getAsString());
+		assertEquals("2017-03-03T10:00:00Z", j01.get("ts_monitored").getAsString());
+
+		// results during the downtime are suppressed and leave the tree untouched
+		assertEquals(0, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "OK",
+				"mon01.argo.eu", "2017-03-03T11:00:00Z", "", "").size());
+
+		// a resent downtime feed does not schedule the boundaries again
+		sm.addDowntimeSet("2017-03-03", downList);
+		assertEquals(0, sm.fireDowntimes("2017-03-03T11:30:00Z").size());
+
+		// downtime end restores the current endpoint status
+		ArrayList<String> elist02 = sm.fireDowntimes("2017-03-03T12:30:00Z");
+		assertEquals(1, elist02.size());
+		JsonObject j02 = getJSON(elist02.get(0));
+		assertEquals("CRITICAL", j02.get("status").getAsString());
+		assertEquals("DOWNTIME", j02.get("prev_status").getAsString());
+		assertEquals("2017-03-03T12:00:00Z", j02.get("ts_monitored").getAsString());
+		assertEquals(0, sm.fireDowntimes("2017-03-03T13:00:00Z").size());
+	}
+
+	@Test
+	public void testSnapshot() throws URISyntaxException, IOException, ParseException {
+		StatusManager sm = newManager();
+
+		Date ts1 = sm.fromZulu("2017-03-03T00:00:00Z");
+		sm.addNewGroup("WUT", sm.ops.getIntStatus("OK"), ts1);
+		assertEquals(4, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "CRITICAL",
+				"mon01.argo.eu", "2017-03-03T01:00:00Z", "", "").size());
+		sm.setTsLatest("2017-03-03T01:00:00Z");
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		assertEquals(1, sm.writeSnapshot(new DataOutputStream(bos)));
+
+		// Warm start a new status manager from the snapshot
+		StatusManager sm2 = newManager();
+		assertEquals(1, sm2.readSnapshot(new DataInputStream(new ByteArrayInputStream(bos.toByteArray()))));
+		assertEquals("2017-03-03T01:00:00Z", sm2.getTsLatest());
+		assertEquals(1, sm2.getRestorePending());
+
+		// Groups missing from the snapshot are not restored
+		assertFalse(sm2.restoreGroup("UNKNOWN", sm2.ops.getIntStatus("OK"), ts1));
+
+		assertTrue(sm2.restoreGroup("WUT", sm2.ops.getIntStatus("OK"), ts1));
+		assertEquals(0, sm2.getRestorePending());
+		assertTrue(sm2.hasGroup("WUT"));
+		// Restored entities are rescheduled for repeat notifications
+		assertEquals(4, sm2.getScheduledTimeouts());
+
+		// Same status as the restored one does not generate events
+		assertEquals(0, sm2.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "CRITICAL",
+				"mon01.argo.eu", "2017-03-03T01:10:00Z", "", "").size());
+
+		// A status change is reported against the restored status
+		ArrayList<String> elist01 = sm2.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness",
+				"OK", "mon01.argo.eu", "2017-03-03T01:20:00Z", "", "");
+		assertEquals(4, elist01.size());
+		JsonObject j01 = getJSON(elist01.get(0));
+		assertEquals("OK", j01.get("status").getAsString());
+		assertEquals("CRITICAL", j01.get("prev_status").getAsString());
+		assertEquals("2017-03-03T01:00:00Z", j01.get("prev_ts").getAsString());
+	}
+
+	@Test
+	public void testSnapshotMerge() throws URISyntaxException, IOException, ParseException {
+		StatusManager sm = newManager();
+
+		Date ts1 = sm.fromZulu("2017-03-03T00:00:00Z");
+		sm.addNewGroup("WUT", sm.ops.getIntStatus("OK"), ts1);
+		sm.addNewGroup("UKI-LT2-IC-HEP", sm.ops.getIntStatus("OK"), ts1);
+		sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "CRITICAL", "mon01.argo.eu",
+				"2017-03-03T01:00:00Z", "", "");
+		ByteArrayOutputStream older = new ByteArrayOutputStream();
+		assertEquals(2, sm.writeSnapshot(new DataOutputStream(older)));
+
+		sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "OK", "mon01.argo.eu",
+				"2017-03-03T02:00:00Z", "", "");
+		ByteArrayOutputStream newer = new ByteArrayOutputStream();
+		assertEquals(2, sm.writeSnapshot(new DataOutputStream(newer)));
+
+		// Only the groups owned by the status manager are kept
+		StatusManager sm2 = newManager();
+		sm2.setGroupOwner(new StatusManager.GroupOwner() {
+			@Override
+			public boolean owns(String report, String group) {
+				return group.equals("WUT");
+			}
+		});
+		assertEquals(1, sm2.readSnapshot(new DataInputStream(new ByteArrayInputStream(newer.toByteArray()))));
+		// The most recent tree of a group is kept whatever the read order
+		assertEquals(0, sm2.readSnapshot(new DataInputStream(new ByteArrayInputStream(older.toByteArray()))));
+		assertEquals(1, sm2.getRestorePending());
+
+		// Groups not handled yet are carried over to the next snapshot
+		ByteArrayOutputStream carried = new ByteArrayOutputStream();
+		assertEquals(1, sm2.writeSnapshot(new DataOutputStream(carried)));
+
+		StatusManager sm3 = newManager();
+		assertEquals(1, sm3.readSnapshot(new DataInputStream(new ByteArrayInputStream(carried.toByteArray()))));
+		assertTrue(sm3.restoreGroup("WUT", sm3.ops.getIntStatus("OK"), ts1));
+		JsonObject j01 = getJSON(sm3.queryStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl"));
+		assertEquals("OK", j01.get("status").getAsString());
+		assertEquals("2017-03-03T02:00:00Z", j01.get("ts").getAsString());
+	}
+
+	@Test
+	public void testLazyMetrics()throws URISyntaxException, IOException, ParseException {
+		StatusManager sm = newManager();
+
+		// Pessimistic default so that implicit metric statuses affect aggregation
+		Date ts1 = sm.fromZulu("2017-03-03T00:00:00Z");
+		sm.addNewGroup("WUT", sm.ops.getIntStatus("MISSING"), ts1);
+		int dumpSize = sm.dumpStatus("2017-03-03T00:00:00Z").size();
+
+		// No metric node is created before its first result
+		StatusManager.StatusNode endpointNode = sm.groups.get("WUT").children.get("Site-BDII").children
+				.get("bdii.if.pw.edu.pl");
+		assertTrue(endpointNode.children.isEmpty());
+
+		// Metrics outside the profile are not materialized
+		assertEquals(0, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "unknown.metric", "OK",
+				"mon01.argo.eu", "2017-03-03T00:30:00Z", "", "").size());
+		assertTrue(endpointNode.children.isEmpty());
+
+		// The absent org.bdii.Entries metric still counts as MISSING
+		ArrayList<String> elist01 = sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness",
+				"OK", "mon01.argo.eu", "2017-03-03T01:00:00Z", "", "");
+		JsonObject j01 = getJSON(elist01.get(0));
+		assertEquals("OK", j01.get("status").getAsString());
+		assertEquals("MISSING", j01.get("prev_status").getAsString());
+		assertEquals(1, endpointNode.children.size());
+		assertEquals(sm.ops.getIntStatus("MISSING"), endpointNode.item.status);
+
+		sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Entries", "OK", "mon01.argo.eu",
+				"2017-03-03T01:10:00Z", "", "");
+		assertEquals(2, endpointNode.children.size());
+		assertEquals(sm.ops.getIntStatus("OK"), endpointNode.item.status);
+
+		// Status dumps still cover all the profile metrics
+		assertEquals(dumpSize, sm.dumpStatus("2017-03-03T02:00:00Z").size());
+	}
+
+	@Test
+	public void testDropReasons() throws URISyntaxException, IOException, ParseException {
+		StatusManager sm = newManager();
+
+		Date ts1 = sm.fromZulu("2017-03-03T00:00:00Z");
+		sm.addNewGroup("WUT", sm.ops.getIntStatus("OK"), ts1);
+
+		// Group not handled by the status manager
+		assertEquals(0, sm.setStatus("UNKNOWN-GROUP", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "OK",
+				"mon01.argo.eu", "2017-03-03T00:10:00Z", "", "").size());
+		assertEquals(StatusManager.DROP_UNKNOWN_GROUP, sm.getDropReason());
+
+		// Service and endpoint outside the group topology
+		sm.setStatus("WUT", "Unknown-Service", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "OK", "mon01.argo.eu",
+				"2017-03-03T00:10:00Z", "", "");
+		assertEquals(StatusManager.DROP_UNKNOWN_ENDPOINT, sm.getDropReason());
+		sm.setStatus("WUT", "Site-BDII", "unknown.host", "org.bdii.Freshness", "OK", "mon01.argo.eu",
+				"2017-03-03T00:10:00Z", "", "");
+		assertEquals(StatusManager.DROP_UNKNOWN_ENDPOINT, sm.getDropReason());
+
+		// Metric outside the profile
+		sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "unknown.metric", "OK", "mon01.argo.eu",
+				"2017-03-03T00:20:00Z", "", "");
+		assertEquals(StatusManager.DROP_UNKNOWN_METRIC, sm.getDropReason());
+
+		// Processed results have no drop reason
+		assertEquals(4, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "CRITICAL",
+				"mon01.argo.eu", "2017-03-03T01:00:00Z", "", "").size());
+		assertNull(sm.getDropReason());
+
+		// Results older than the latest status
+		assertEquals(0, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "OK",
+				"mon01.argo.eu", "2017-03-03T00:30:00Z", "", "").size());
+		assertEquals(StatusManager.DROP_OUT_OF_ORDER, sm.getDropReason());
+
+		// Results during a downtime
+		ArrayList<Downtime> downList = new ArrayList<Downtime>();
+		downList.add(new Downtime("bdii.if.pw.edu.pl", "Site-BDII", "2017-03-03T10:00:00Z", "2017-03-03T12:00:00Z"));
+		sm.addDowntimeSet("2017-03-03", downList);
+		assertEquals(0, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "OK",
+				"mon01.argo.eu", "2017-03-03T11:00:00Z", "", "").size());
+		assertEquals(StatusManager.DROP_DOWNTIME, sm.getDropReason());
+	}
+
+	@Test
+	public void testQueryStatus() throws URISyntaxException, IOException, ParseException {
+		StatusManager sm = newManager();
+
+		Date ts1 = sm.fromZulu("2017-03-03T00:00:00Z");
+		sm.addNewGroup("WUT", sm.ops.getIntStatus("OK"), ts1);
+		sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "CRITICAL", "mon01.argo.eu",
+				"2017-03-03T01:00:00Z", "", "");
+
+		// Unknown entities are not found
+		assertNull(sm.queryStatus("UNKNOWN", null, null));
+		assertNull(sm.queryStatus("WUT", "unknown.service", null));
+
+		// Group lookup lists the services of the group
+		JsonObject j01 = getJSON(sm.queryStatus("WUT", null, null));
+		assertEquals("endpoint_group", j01.get("type").getAsString());
+		assertEquals(sm.groups.get("WUT").children.size(), j01.get("children").getAsJsonArray().size());
+
+		// Service lookup lists the endpoints of the service
+		JsonObject j02 = getJSON(sm.queryStatus("WUT", "Site-BDII", null));
+		assertEquals("service", j02.get("type").getAsString());
+		assertEquals(sm.groups.get("WUT").children.get("Site-BDII").children.size(),
+				j02.get("children").getAsJsonArray().size());
+
+		// Endpoint lookup lists all the profile metrics (seen or not)
+		JsonObject j03 = getJSON(sm.queryStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl"));
+		assertEquals("endpoint", j03.get("type").getAsString());
+		assertEquals("CRITICAL", j03.get("status").getAsString());
+		assertEquals("2017-03-03T01:00:00Z", j03.get("ts").getAsString());
+		assertEquals(2, j03.get("children").getAsJsonArray().size());
+		for (JsonElement jMetric : j03.get("children").getAsJsonArray()) {
+			String metric = jMetric.getAsJsonObject().get("name").getAsString();
+			String status = jMetric.getAsJsonObject().get("status").getAsString();
+			assertEquals(metric.equals("org.bdii.Freshness") ? "CRITICAL" : "OK", status);
+		}
+	}
+
+	@Test
+	public void testCoalescing() throws URISyntaxException, IOException, ParseException {
+		StatusManager sm = newManager();
+		// one minute coalescing window
+		sm.setCoalesceWindow(60000L);
+
+		Date ts1 = sm.fromZulu("2017-03-03T00:00:00Z");
+		sm.addNewGroup("WUT", sm.ops.getIntStatus("OK"), ts1);
+
+		// Only metric events are emitted at once
+		ArrayList<String> elist01 = sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness",
+				"CRITICAL", "mon01.argo.eu", "2017-03-03T01:00:00Z", "", "");
+		assertEquals(1, elist01.size());
+		assertEquals("metric", getJSON(elist01.get(0)).get("type").getAsString());
+		assertEquals(1, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "OK",
+				"mon01.argo.eu", "2017-03-03T01:00:30Z", "", "").size());
+
+		// Window still open
+		assertEquals(0, sm.fireCoalesced("2017-03-03T01:00:50Z").size());
+		// The burst ended where it started - no net transition
+		assertEquals(0, sm.fireCoalesced("2017-03-03T01:01:10Z").size());
+
+		// A new burst with a net transition
+		assertEquals(1, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness", "CRITICAL",
+				"mon01.argo.eu", "2017-03-03T02:00:00Z", "", "").size());
+		assertEquals(1, sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Entries", "CRITICAL",
+				"mon01.argo.eu", "2017-03-03T02:00:10Z", "", "").size());
+
+		// Open windows are carried by status snapshots
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		sm.writeSnapshot(new DataOutputStream(snapshot));
+		StatusManager sm2 = newManager();
+		sm2.setCoalesceWindow(60000L);
+		sm2.readSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot.toByteArray())));
+
+		ArrayList<String> elist02 = sm.fireCoalesced("2017-03-03T02:01:00Z");
+		assertEquals(elist02, sm2.fireCoalesced("2017-03-03T02:01:00Z"));
+		assertTrue(elist02.size() >= 1);
+		JsonObject j01 = getJSON(elist02.get(0));
+		assertEquals("endpoint", j01.get("type").getAsString());
+		assertEquals("bdii.if.pw.edu.pl", j01.get("hostname").getAsString());
+		assertEquals("CRITICAL", j01.get("status").getAsString());
+		assertEquals("OK", j01.get("prev_status").getAsString());
+		assertEquals("2017-03-03T02:00:10Z", j01.get("ts_monitored").getAsString());
+		for (String event : elist02) {
+			JsonObject jEvent = getJSON(event);
+			assertNotEquals(jEvent.get("status").getAsString(), jEvent.get("prev_status").getAsString());
+		}
+		assertEquals(0, sm.fireCoalesced("2017-03-03T03:00:00Z").size());
+	}
+
+	@Test
+	public void testDailySnapshot() throws URISyntaxException, IOException, ParseException {
+		StatusManager sm = newManager();
+
+		Date ts1 = sm.fromZulu("2017-03-03T00:00:00Z");
+		sm.addNewGroup("WUT", sm.ops.getIntStatus("OK"), ts1);
+		sm.addNewGroup("UKI-LT2-IC-HEP", sm.ops.getIntStatus("OK"), ts1);
+
+		// Full snapshot used as reference
+		int fullSize = sm.dumpStatus("2017-03-04T00:00:00Z").size();
+
+		// Start the snapshot - nothing is emitted yet
+		assertEquals(0, sm.startDailySnapshot("2017-03-04T00:00:00Z").size());
+		assertEquals(2, sm.getDailyPending());
+
+		// A changing group is emitted to the snapshot before its new status events
+		ArrayList<String> elist01 = sm.setStatus("WUT", "Site-BDII", "bdii.if.pw.edu.pl", "org.bdii.Freshness",
+				"CRITICAL", "mon01.argo.eu", "2017-03-04T00:05:00Z", "", "");
+		assertEquals(1, sm.getDailyPending());
+		assertTrue(elist01.size() > 4);
+		for (int i = 0; i < elist01.size() - 4; i++) {
+			JsonObject jDaily = getJSON(elist01.get(i));
+			assertEquals("WUT", jDaily.get("endpoint_group").getAsString());
+			assertEquals("OK", jDaily.get("status").getAsString());
+			assertEquals("true", jDaily.get("repeat").getAsString());
+		}
+		JsonObject jNew = getJSON(elist01.get(elist01.size() - 4));
+		assertEquals("metric", jNew.get("type").getAsString());
+		assertEquals("CRITICAL", jNew.get("status").getAsString());
+
+		// The rest of the snapshot is emitted in chunks
+		ArrayList<String> elist02 = sm.dumpDailyChunk(1);
+		assertEquals(0, sm.getDailyPending());
+		assertEquals(fullSize, elist02.size() + elist01.size() - 4);
+		assertEquals(0, sm.dumpDailyChunk(1).size());
+	}
+
+	@Test
+	public void testUpdateTopology() throws URISyntaxException, IOException, ParseException {
+		StatusManager sm = newManager();
+
+		int ok = sm.ops.getIntStatus("OK");
+		Date ts1 = sm.fromZulu("2017-03-03T00:00:00Z");
+		sm.addNewGroup("WUT", ok, ts1);
+
+		// Keep the current WUT topology and add a new endpoint to it
+		ArrayList<GroupEndpoint> egpList = new ArrayList<GroupEndpoint>();
+		Iterator<EndpointItem> hostIter = sm.egp.getGroupIter("WUT");
+		while (hostIter.hasNext()) {
+			EndpointItem host = hostIter.next();
+			if (!sm.validServices.contains(host.getService())) {
+				continue;
+			}
+			GroupEndpoint item = new GroupEndpoint();
+			item.setType(host.getType());
+			item.setGroup(host.getGroup());
+			item.setService(host.getService());
+			item.setHostname(host.getHostname());
+			egpList.add(item);
+		}
+		int wutSize = egpList.size();
+
+		GroupEndpoint newItem = new GroupEndpoint();
+		newItem.setType(egpList.get(0).getType());
+		newItem.setGroup("WUT");
+		newItem.setService("Site-BDII");
+		newItem.setHostname("bdii2.if.pw.edu.pl");
+		egpList.add(newItem);
+
+		// All other groups are removed from the index and one endpoint is added
+		assertTrue(sm.updateTopology(egpList, ok, ts1) > 1);
+		assertTrue(sm.groups.get("WUT").children.get("Site-BDII").children.containsKey("bdii2.if.pw.edu.pl"));
+		assertEquals(wutSize + 1, sm.egp.getList().size());
+
+		// The new endpoint receives metric data without any rebuild
+		ArrayList<String> elist01 = sm.setStatus("WUT", "Site-BDII", "bdii2.if.pw.edu.pl", "org.bdii.Freshness",
+				"CRITICAL", "mon01.argo.eu", "2017-03-03T01:00:00Z", "", "");
+		assertTrue(elist01.size() >= 2);
+
+		// Remove the new endpoint again
+		egpList.remove(newItem);
+		assertEquals(1, sm.updateTopology(egpList, ok, ts1));
+		assertFalse(sm.groups.get("WUT").children.get("Site-BDII").children.containsKey("bdii2.if.pw.edu.pl"));
+
+		// Removing the whole group removes its status tree
+		assertEquals(wutSize, sm.updateTopology(new ArrayList<GroupEndpoint>(), ok, ts1));
+		assertFalse(sm.hasGroup("WUT"));
+		assertEquals(0, sm.getScheduledTimeouts());
+	}
+
 }
@@ -65,4 +65,40 @@ public class DowntimeManagerTest {
 
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testInDowntime() {
+		DowntimeManager dt = new DowntimeManager();
+		// Multiple and overlapping periods for the same endpoint
+		dt.insert("host01.example.org", "CREAM-CE", "2018-05-13T02:00:00Z", "2018-05-13T04:00:00Z");
+		dt.insert("host01.example.org", "CREAM-CE", "2018-05-13T10:00:00Z", "2018-05-13T12:00:00Z");
+		dt.insert("host01.example.org", "CREAM-CE", "2018-05-13T01:00:00Z", "2018-05-13T08:00:00Z");
+		dt.insert("host01.example.org", "SRMv2", "2018-05-13T00:00:00Z", "2018-05-13T23:59:00Z");
+		dt.insert("host02.example.org", "CREAM-CE", "invalid", "2018-05-13T23:59:00Z");
+
+		long hour = 3600000L;
+		long day = 1526169600000L; // 2018-05-13T00:00:00Z
+
+		assertFalse(dt.inDowntime("host01.example.org", "CREAM-CE", day));
+		assertTrue(dt.inDowntime("host01.example.org", "CREAM-CE", day + hour));
+		assertTrue(dt.inDowntime("host01.example.org", "CREAM-CE", day + 3 * hour));
+		assertTrue(dt.inDowntime("host01.example.org", "CREAM-CE", day + 8 * hour));
+		assertFalse(dt.inDowntime("host01.example.org", "CREAM-CE", day + 9 * hour));
+		assertTrue(dt.inDowntime("host01.example.org", "CREAM-CE", day + 10 * hour));
+		assertTrue(dt.inDowntime("host01.example.org", "CREAM-CE", day + 12 * hour));
+		assertFalse(dt.inDowntime("host01.example.org", "CREAM-CE", day + 13 * hour));
+		assertTrue(dt.inDowntime("host01.example.org", "SRMv2", day + 13 * hour));
+		assertFalse(dt.inDowntime("host02.example.org", "CREAM-CE", day + 13 * hour));
+		assertFalse(dt.inDowntime("host03.example.org", "CREAM-CE", day + 13 * hour));
+
+		// First declared period is still reported per endpoint
+		ArrayList<String> timePeriod = new ArrayList<String>();
+		timePeriod.add("2018-05-13T02:00:00Z");
+		timePeriod.add("2018-05-13T04:00:00Z");
+		assertEquals(timePeriod, dt.getPeriod("host01.example.org", "CREAM-CE"));
+
+		// New periods are picked up after a lookup
+		dt.insert("host01.example.org", "CREAM-CE", "2018-05-13T13:00:00Z", "2018-05-13T14:00:00Z");
+		assertTrue(dt.inDowntime("host01.example.org", "CREAM-CE", day + 13 * hour));
+	}
+
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Iterator;
 
 
 
@@ -80,4 +81,62 @@ public class EndpointGroupManagerV2Test {
 	
 	}
 
+	private GroupEndpoint newItem(String group, String service, String hostname) {
+		GroupEndpoint item = new GroupEndpoint();
+		item.setType("SITE");
+		item.setGroup(group);
+		item.setService(service);
+		item.setHostname(hostname);
+		return item;
+	}
+
+	@Test
+	public void testApplyDiff() {
+		ArrayList<GroupEndpoint> egpList = new ArrayList<GroupEndpoint>();
+		egpList.add(newItem("SITE-A", "CREAM-CE", "ce01.site-a.org"));
+		egpList.add(newItem("SITE-A", "SRMv2", "se01.site-a.org"));
+		egpList.add(newItem("SITE-B", "CREAM-CE", "ce01.site-b.org"));
+
+		EndpointGroupManagerV2 egpMgr = new EndpointGroupManagerV2();
+		egpMgr.loadFromList(egpList);
+
+		// Remove an endpoint, move an endpoint to another group and add a new one
+		ArrayList<GroupEndpoint> egpNew = new ArrayList<GroupEndpoint>();
+		egpNew.add(newItem("SITE-A", "CREAM-CE", "ce01.site-a.org"));
+		egpNew.add(newItem("SITE-C", "CREAM-CE", "ce01.site-b.org"));
+		egpNew.add(newItem("SITE-C", "ARC-CE", "arc01.site-c.org"));
+
+		ArrayList<EndpointGroupManagerV2.EndpointItem> added = new ArrayList<EndpointGroupManagerV2.EndpointItem>();
+		ArrayList<EndpointGroupManagerV2.EndpointItem> removed = new ArrayList<EndpointGroupManagerV2.EndpointItem>();
+		egpMgr.applyDiff(egpNew, added, removed);
+
+		assertEquals(2, added.size());
+		assertEquals(2, removed.size());
+
+		assertTrue(egpMgr.checkEndpoint("ce01.site-a.org", "CREAM-CE"));
+		assertFalse(egpMgr.checkEndpoint("se01.site-a.org", "SRMv2"));
+		assertTrue(egpMgr.checkEndpoint("arc01.site-c.org", "ARC-CE"));
+
+		ArrayList<String> result1 = new ArrayList<String>();
+		result1.add("SITE-C");
+		assertEquals(result1, egpMgr.getGroup("ce01.site-b.org", "CREAM-CE"));
+
+		// Group index is patched as well
+		assertNull(egpMgr.getGroupIter("SITE-B"));
+		int count = 0;
+		Iterator<EndpointGroupManagerV2.EndpointItem> groupIter = egpMgr.getGroupIter("SITE-A");
+		while (groupIter.hasNext()) {
+			groupIter.next();
+			count++;
+		}
+		assertEquals(1, count);
+
+		// Applying the same list again changes nothing
+		added.clear();
+		removed.clear();
+		egpMgr.applyDiff(egpNew, added, removed);
+		assertEquals(0, added.size());
+		assertEquals(0, removed.size());
+	}
+
 }